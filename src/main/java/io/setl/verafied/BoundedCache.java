@@ -0,0 +1,257 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+package io.setl.verafied;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * A map with a maximum size, which evicts the least recently used entry when a new entry would exceed it. Adding an entry never scans the whole map.
+ *
+ * <p>A large map is split into segments by the hash of the key, and each segment has its own lock and its own share of the maximum size. Hence the evicted
+ * entry is the least recently used in its segment, rather than in the whole map, and threads only contend with other threads that use the same segment. A
+ * small map has a single segment, so it evicts exactly the least recently used entry.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ *
+ * @author agent on 19/10/2026.
+ */
+public class BoundedCache<K, V> {
+
+  /** Maximum number of segments. */
+  private static final int MAX_SEGMENTS = 16;
+
+  /** Minimum number of entries in a segment. Maps smaller than two segments of this size are not split. */
+  private static final int MIN_SEGMENT_SIZE = 64;
+
+
+  /** A segment, which holds its entries in order of use. */
+  private static class Segment<K, V> extends LinkedHashMap<K, V> {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Maximum number of entries in this segment. */
+    private final int capacity;
+
+
+    Segment(int capacity) {
+      super(16, 0.75f, true);
+      this.capacity = capacity;
+    }
+
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+      return size() > capacity;
+    }
+
+  }
+
+
+  /** Mask to convert a hash to a segment index. */
+  private final int mask;
+
+  /** The maximum number of entries. */
+  private final int maxSize;
+
+  /** The segments. */
+  private final Segment<K, V>[] segments;
+
+
+  /**
+   * New instance.
+   *
+   * @param maxSize the maximum number of entries
+   */
+  @SuppressWarnings("unchecked")
+  public BoundedCache(int maxSize) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("Maximum size must be positive, not " + maxSize);
+    }
+    this.maxSize = maxSize;
+    int count = Integer.highestOneBit(Math.max(1, Math.min(MAX_SEGMENTS, maxSize / MIN_SEGMENT_SIZE)));
+    mask = count - 1;
+    segments = new Segment[count];
+    for (int i = 0; i < count; i++) {
+      // Share the size out exactly, so the total is the maximum size
+      segments[i] = new Segment<>(maxSize / count + (i < maxSize % count ? 1 : 0));
+    }
+  }
+
+
+  /**
+   * Remove all entries.
+   */
+  public void clear() {
+    for (Segment<K, V> segment : segments) {
+      synchronized (segment) {
+        segment.clear();
+      }
+    }
+  }
+
+
+  /**
+   * Perform an action on every entry. The action is performed on a copy of each segment, so it may modify this cache.
+   *
+   * @param action the action
+   */
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    for (Segment<K, V> segment : segments) {
+      List<Map.Entry<K, V>> entries;
+      synchronized (segment) {
+        entries = new ArrayList<>(segment.size());
+        for (Map.Entry<K, V> e : segment.entrySet()) {
+          entries.add(Map.entry(e.getKey(), e.getValue()));
+        }
+      }
+      for (Map.Entry<K, V> e : entries) {
+        action.accept(e.getKey(), e.getValue());
+      }
+    }
+  }
+
+
+  /**
+   * Get the value for a key, marking the entry as recently used.
+   *
+   * @param key the key
+   *
+   * @return the value, or null if there is none
+   */
+  public V get(K key) {
+    Segment<K, V> segment = segmentFor(key);
+    synchronized (segment) {
+      return segment.get(key);
+    }
+  }
+
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+
+  /**
+   * Set the value for a key. If this would exceed the maximum size, the least recently used entry in the key's segment is evicted.
+   *
+   * @param key   the key
+   * @param value the value
+   *
+   * @return the previous value, or null if there was none
+   */
+  public V put(K key, V value) {
+    Segment<K, V> segment = segmentFor(key);
+    synchronized (segment) {
+      return segment.put(key, value);
+    }
+  }
+
+
+  /**
+   * Remove the entry for a key.
+   *
+   * @param key the key
+   *
+   * @return the removed value, or null if there was none
+   */
+  public V remove(K key) {
+    Segment<K, V> segment = segmentFor(key);
+    synchronized (segment) {
+      return segment.remove(key);
+    }
+  }
+
+
+  /**
+   * Remove the entry for a key, if it has the expected value.
+   *
+   * @param key   the key
+   * @param value the expected value
+   *
+   * @return true if the entry was removed
+   */
+  public boolean remove(K key, V value) {
+    Segment<K, V> segment = segmentFor(key);
+    synchronized (segment) {
+      return segment.remove(key, value);
+    }
+  }
+
+
+  /**
+   * Remove every entry whose value matches a filter. This scans the whole cache, so it should only be used for maintenance and invalidation.
+   *
+   * @param filter the filter
+   */
+  public void removeIf(Predicate<? super V> filter) {
+    for (Segment<K, V> segment : segments) {
+      synchronized (segment) {
+        segment.values().removeIf(filter);
+      }
+    }
+  }
+
+
+  /**
+   * Replace the value for a key, if it has the expected value.
+   *
+   * @param key      the key
+   * @param oldValue the expected value
+   * @param newValue the new value
+   *
+   * @return true if the value was replaced
+   */
+  public boolean replace(K key, V oldValue, V newValue) {
+    Segment<K, V> segment = segmentFor(key);
+    synchronized (segment) {
+      return segment.replace(key, oldValue, newValue);
+    }
+  }
+
+
+  /**
+   * Get the number of entries.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    int size = 0;
+    for (Segment<K, V> segment : segments) {
+      synchronized (segment) {
+        size += segment.size();
+      }
+    }
+    return size;
+  }
+
+
+  private Segment<K, V> segmentFor(K key) {
+    int hash = key.hashCode();
+    return segments[(hash ^ (hash >>> 16)) & mask];
+  }
+
+}
@@ -64,6 +64,15 @@ public class CredentialConstants {
   private static JsonValue standardContext = JSON_PROVIDER.createArrayBuilder().add(CREDENTIAL_CONTEXT).build();
 
 
+  private static SecureRandom createStrongRandom() {
+    try {
+      return SecureRandom.getInstanceStrong();
+    } catch (NoSuchAlgorithmException e) {
+      return new SecureRandom();
+    }
+  }
+
+
   /**
    * Get the clock used to generate timestamps. By default, this will be the system UTC clock.
    *
@@ -94,12 +103,9 @@ public class CredentialConstants {
   public static SecureRandom getSecureRandom() {
     SecureRandom sr = SECURE_RANDOM.get();
     if (sr == null) {
-      try {
-        sr = SecureRandom.getInstanceStrong();
-      } catch (NoSuchAlgorithmException e) {
-        sr = new SecureRandom();
-      }
+      sr = createStrongRandom();
       SECURE_RANDOM.compareAndSet(null, sr);
+      sr = SECURE_RANDOM.get();
     }
 
     return sr;
@@ -166,6 +172,21 @@ public class CredentialConstants {
   }
 
 
+  /**
+   * Switch to a non-blocking secure random number generator. The generator is seeded once from a "strong" source and then spreads requests across several
+   * independent DRBG instances, so that threads signing in parallel do not contend on a single generator.
+   *
+   * @return the new secure random number generator
+   *
+   * @see StripedSecureRandom
+   */
+  public static SecureRandom useStripedSecureRandom() {
+    SecureRandom sr = new StripedSecureRandom(createStrongRandom());
+    SECURE_RANDOM.set(sr);
+    return sr;
+  }
+
+
   public static void setStandardContext(JsonValue newContext) {
     standardContext = Objects.requireNonNull(newContext);
   }
@@ -0,0 +1,190 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+package io.setl.verafied;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.security.SecureRandomSpi;
+
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.prng.SP800SecureRandom;
+import org.bouncycastle.crypto.prng.SP800SecureRandomBuilder;
+
+/**
+ * A non-blocking secure random number generator which spreads requests across several independent NIST SP 800-90A Hash DRBG instances. A single master
+ * DRBG is seeded from a strong source once. Each stripe is seeded from the master, so after construction no request can block waiting for system entropy.
+ *
+ * <p>A thread always uses the same stripe, so threads only contend with other threads that map to the same stripe.
+ *
+ * @author agent on 18/10/2026.
+ */
+public class StripedSecureRandom extends SecureRandom {
+
+  private static final long serialVersionUID = 1L;
+
+
+  /** Service provider which actually holds the stripes. */
+  private static class StripedSpi extends SecureRandomSpi {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Mask to convert a thread ID to a stripe index. */
+    private final int mask;
+
+    /** The master DRBG, which provides entropy to the stripes. */
+    private final SP800SecureRandom master;
+
+    /** The stripes. */
+    private final SP800SecureRandom[] stripes;
+
+
+    StripedSpi(SecureRandom strong, int stripeCount) {
+      int size = 1;
+      while (size < stripeCount) {
+        size <<= 1;
+      }
+      mask = size - 1;
+      master = new SP800SecureRandomBuilder(strong, false)
+          .setPersonalizationString(personalization(-1))
+          .buildHash(new SHA512Digest(), strong.generateSeed(32), false);
+      stripes = new SP800SecureRandom[size];
+      for (int i = 0; i < size; i++) {
+        byte[] nonce = new byte[32];
+        master.nextBytes(nonce);
+        stripes[i] = new SP800SecureRandomBuilder(master, false)
+            .setPersonalizationString(personalization(i))
+            .buildHash(new SHA512Digest(), nonce, false);
+      }
+    }
+
+
+    @Override
+    protected byte[] engineGenerateSeed(int numBytes) {
+      byte[] bytes = new byte[numBytes];
+      master.nextBytes(bytes);
+      return bytes;
+    }
+
+
+    @Override
+    protected void engineNextBytes(byte[] bytes) {
+      stripe().nextBytes(bytes);
+    }
+
+
+    @Override
+    protected void engineSetSeed(byte[] seed) {
+      // Additional seed material is mixed into the caller's stripe only.
+      stripe().setSeed(seed);
+    }
+
+
+    private byte[] personalization(int index) {
+      return ByteBuffer.allocate(20)
+          .putInt(index)
+          .putLong(System.nanoTime())
+          .putLong(System.currentTimeMillis())
+          .array();
+    }
+
+
+    private SP800SecureRandom stripe() {
+      long id = Thread.currentThread().getId();
+      return stripes[(int) (id ^ (id >>> 32)) & mask];
+    }
+
+  }
+
+
+  /** The service provider, held so we can bypass the synchronization that SecureRandom applies for providers not declared to be thread safe. */
+  private final transient StripedSpi spi;
+
+
+  /**
+   * New instance with one stripe per available processor, seeded from the supplied strong source.
+   *
+   * @param strong the strong source. This is only used during construction.
+   */
+  public StripedSecureRandom(SecureRandom strong) {
+    this(strong, Runtime.getRuntime().availableProcessors());
+  }
+
+
+  /**
+   * New instance seeded from the supplied strong source.
+   *
+   * @param strong      the strong source. This is only used during construction.
+   * @param stripeCount the minimum number of stripes. The actual number is rounded up to a power of two.
+   */
+  public StripedSecureRandom(SecureRandom strong, int stripeCount) {
+    this(new StripedSpi(strong, stripeCount));
+  }
+
+
+  private StripedSecureRandom(StripedSpi spi) {
+    super(spi, null);
+    this.spi = spi;
+  }
+
+
+  @Override
+  public byte[] generateSeed(int numBytes) {
+    return spi.engineGenerateSeed(numBytes);
+  }
+
+
+  @Override
+  public String getAlgorithm() {
+    return "StripedHashDRBG";
+  }
+
+
+  /**
+   * Get the number of stripes.
+   *
+   * @return the number of stripes
+   */
+  public int getStripeCount() {
+    return spi.stripes.length;
+  }
+
+
+  @Override
+  public void nextBytes(byte[] bytes) {
+    spi.engineNextBytes(bytes);
+  }
+
+
+  @Override
+  public void setSeed(byte[] seed) {
+    spi.engineSetSeed(seed);
+  }
+
+
+  @Override
+  public void setSeed(long seed) {
+    // The super-class constructor calls this before our SPI is assigned, and ignores a zero seed.
+    if (spi != null && seed != 0) {
+      spi.engineSetSeed(ByteBuffer.allocate(8).putLong(seed).array());
+    }
+  }
+
+}
@@ -20,19 +20,30 @@
 
 package io.setl.verafied.data;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.io.IOException;
 import javax.json.JsonStructure;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import io.setl.json.jackson.Convert;
+import io.setl.json.jackson.JsonModule;
+import io.setl.verafied.data.credential.Credential;
+import io.setl.verafied.data.presentation.Presentation;
+import io.setl.verafied.did.DecentralizedIdentifier;
 
 /**
  * Utility methods to between Java objects and their JSON representations.
  *
+ * <p>Readers and writers are created once for each type and then reused, so the root (de)serializer for a type is only looked up once. Conversions to and
+ * from JSON structures stream directly between Jackson and the JSON structure, without creating an intermediate Jackson tree.
+ *
  * @author Simon Greatrix on 02/07/2020.
  */
 public class JsonConvert {
@@ -40,6 +51,62 @@ public class JsonConvert {
   /** Jackson Object Mapper for conversions. */
   public static final ObjectMapper OBJECT_MAPPER;
 
+  /** Optional bytecode acceleration modules, in order of preference. Only the first available is registered. */
+  private static final String[] ACCELERATORS = {
+      "com.fasterxml.jackson.module.blackbird.BlackbirdModule",
+      "com.fasterxml.jackson.module.afterburner.AfterburnerModule"
+  };
+
+  /** Readers specialised for each type. */
+  private static final ClassValue<ObjectReader> READERS = new ClassValue<>() {
+    @Override
+    protected ObjectReader computeValue(Class<?> type) {
+      return OBJECT_MAPPER.readerFor(type);
+    }
+  };
+
+  /** Writers specialised for each type. */
+  private static final ClassValue<ObjectWriter> WRITERS = new ClassValue<>() {
+    @Override
+    protected ObjectWriter computeValue(Class<?> type) {
+      return OBJECT_MAPPER.writerFor(type);
+    }
+  };
+
+
+  /**
+   * Get the cached reader for a type.
+   *
+   * @param type the type
+   *
+   * @return the reader
+   */
+  public static ObjectReader getReader(Class<?> type) {
+    return READERS.get(type);
+  }
+
+
+  /**
+   * Create the readers and writers for the commonly converted types, so that the cost of doing so is not incurred by the first conversion. This is
+   * optional.
+   */
+  public static void prepare() {
+    prepare(Credential.class, Presentation.class, DecentralizedIdentifier.class, Proof.class);
+  }
+
+
+  /**
+   * Create the readers and writers for the specified types, so that the cost of doing so is not incurred by the first conversion. This is optional.
+   *
+   * @param types the types to prepare
+   */
+  public static void prepare(Class<?>... types) {
+    for (Class<?> type : types) {
+      READERS.get(type);
+      WRITERS.get(type);
+    }
+  }
+
 
   /**
    * Convert a JsonStructure to a POJO.
@@ -53,7 +120,14 @@ public class JsonConvert {
    * @throws JsonProcessingException if JSON cannot be converted
    */
   public static <T> T toInstance(JsonStructure jsonStructure, Class<T> type) throws JsonProcessingException {
-    return OBJECT_MAPPER.treeToValue(Convert.toJackson(jsonStructure), type);
+    try (JsonValueParser parser = new JsonValueParser(jsonStructure, OBJECT_MAPPER)) {
+      return READERS.get(type).readValue(parser);
+    } catch (JsonProcessingException e) {
+      throw e;
+    } catch (IOException e) {
+      // The parser does not perform I/O, so this should not happen
+      throw JsonMappingException.fromUnexpectedIOE(e);
+    }
   }
 
 
@@ -69,7 +143,7 @@ public class JsonConvert {
    * @throws JsonProcessingException if JSON cannot be converted
    */
   public static <T> T toInstance(String json, Class<T> type) throws JsonProcessingException {
-    return OBJECT_MAPPER.readValue(json, type);
+    return READERS.get(type).readValue(json);
   }
 
 
@@ -81,18 +155,44 @@ public class JsonConvert {
    * @return the JSON
    */
   public static JsonStructure toJson(Object object) {
-    return (JsonStructure) Convert.toJson(OBJECT_MAPPER.<JsonNode>valueToTree(object));
+    if (object == null) {
+      return (JsonStructure) Convert.toJson(OBJECT_MAPPER.valueToTree(null));
+    }
+
+    JsonValueGenerator generator = new JsonValueGenerator(OBJECT_MAPPER);
+    try {
+      WRITERS.get(object.getClass()).writeValue(generator, object);
+    } catch (IOException e) {
+      throw new IllegalArgumentException(e.getMessage(), e);
+    }
+    return (JsonStructure) generator.getValue();
+  }
+
+
+  private static boolean registerOptional(String className) {
+    try {
+      Module module = Class.forName(className).asSubclass(Module.class).getDeclaredConstructor().newInstance();
+      OBJECT_MAPPER.registerModule(module);
+      return true;
+    } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+      // module is not available
+      return false;
+    }
   }
 
 
   static {
     OBJECT_MAPPER = new ObjectMapper();
-    //Beware the DefaultScalaModule, it's evilness causes changes in mapper deserialisation, and consequential test failure
-    List<String> allowedModules = List.of("JsonModule", "Jdk8Module", "JavaTimeModule", "ParameterNamesModule", "AfterburnerModule");
-    OBJECT_MAPPER.registerModules(ObjectMapper.findModules()
-        .stream()
-        .filter(m -> allowedModules.contains(m.getClass().getSimpleName()))
-        .collect(Collectors.toList()));
+
+    // Modules are registered explicitly rather than discovered, which avoids a class path scan. It also keeps unwanted modules such as the
+    // DefaultScalaModule out, as their evilness causes changes in mapper deserialisation.
+    OBJECT_MAPPER.registerModules(new JsonModule(), new Jdk8Module(), new JavaTimeModule());
+    registerOptional("com.fasterxml.jackson.module.paramnames.ParameterNamesModule");
+    for (String accelerator : ACCELERATORS) {
+      if (registerOptional(accelerator)) {
+        break;
+      }
+    }
   }
 
 
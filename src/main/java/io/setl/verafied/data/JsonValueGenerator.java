@@ -0,0 +1,279 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+package io.setl.verafied.data;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import javax.json.JsonValue;
+import javax.json.spi.JsonProvider;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.JsonGenerationException;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.base.GeneratorBase;
+import com.fasterxml.jackson.core.json.JsonWriteContext;
+
+import io.setl.json.CJArray;
+import io.setl.json.CJObject;
+import io.setl.verafied.CredentialConstants;
+
+/**
+ * A Jackson generator which builds canonical JSON values directly, without creating an intermediate Jackson tree.
+ *
+ * @author agent on 18/10/2026.
+ */
+class JsonValueGenerator extends GeneratorBase {
+
+  /** The provider used to create primitive values. */
+  private static final JsonProvider PROVIDER = CredentialConstants.JSON_PROVIDER;
+
+  /** The containers currently being built. The head is the innermost. */
+  private final Deque<JsonValue> containers = new ArrayDeque<>();
+
+  /** The completed value. */
+  private JsonValue root;
+
+
+  /**
+   * New instance.
+   *
+   * @param codec the codec used to write POJOs and trees
+   */
+  JsonValueGenerator(ObjectCodec codec) {
+    super(0, codec);
+  }
+
+
+  @Override
+  public void flush() {
+    // nothing to flush
+  }
+
+
+  /**
+   * Get the value that has been written.
+   *
+   * @return the value
+   *
+   * @throws IllegalStateException if a complete value has not been written
+   */
+  JsonValue getValue() {
+    if (root == null || !containers.isEmpty()) {
+      throw new IllegalStateException("A complete value has not been written");
+    }
+    return root;
+  }
+
+
+  @Override
+  public void writeBinary(Base64Variant variant, byte[] data, int offset, int len) throws IOException {
+    writeString(variant.encode(Arrays.copyOfRange(data, offset, offset + len)));
+  }
+
+
+  @Override
+  public void writeBoolean(boolean state) throws IOException {
+    add(state ? JsonValue.TRUE : JsonValue.FALSE);
+  }
+
+
+  @Override
+  public void writeEndArray() throws IOException {
+    if (!_writeContext.inArray()) {
+      _reportError("Current context not an Array but " + _writeContext.typeDesc());
+    }
+    _writeContext = _writeContext.clearAndGetParent();
+    containers.pop();
+  }
+
+
+  @Override
+  public void writeEndObject() throws IOException {
+    if (!_writeContext.inObject()) {
+      _reportError("Current context not an Object but " + _writeContext.typeDesc());
+    }
+    _writeContext = _writeContext.clearAndGetParent();
+    containers.pop();
+  }
+
+
+  @Override
+  public void writeFieldName(String name) throws IOException {
+    if (_writeContext.writeFieldName(name) == JsonWriteContext.STATUS_EXPECT_VALUE) {
+      _reportError("Can not write a field name, expecting a value");
+    }
+  }
+
+
+  @Override
+  public void writeNull() throws IOException {
+    add(JsonValue.NULL);
+  }
+
+
+  @Override
+  public void writeNumber(int v) throws IOException {
+    add(PROVIDER.createValue(v));
+  }
+
+
+  @Override
+  public void writeNumber(long v) throws IOException {
+    add(PROVIDER.createValue(v));
+  }
+
+
+  @Override
+  public void writeNumber(BigInteger v) throws IOException {
+    add(v != null ? PROVIDER.createValue(v) : JsonValue.NULL);
+  }
+
+
+  @Override
+  public void writeNumber(double v) throws IOException {
+    add(PROVIDER.createValue(v));
+  }
+
+
+  @Override
+  public void writeNumber(float v) throws IOException {
+    // Use the shortest decimal representation of the float, not of its double equivalent
+    add(PROVIDER.createValue(new BigDecimal(Float.toString(v))));
+  }
+
+
+  @Override
+  public void writeNumber(BigDecimal v) throws IOException {
+    add(v != null ? PROVIDER.createValue(v) : JsonValue.NULL);
+  }
+
+
+  @Override
+  public void writeNumber(String encodedValue) throws IOException {
+    add(encodedValue != null ? PROVIDER.createValue(new BigDecimal(encodedValue)) : JsonValue.NULL);
+  }
+
+
+  @Override
+  public void writeRaw(String text) {
+    _reportUnsupportedOperation();
+  }
+
+
+  @Override
+  public void writeRaw(String text, int offset, int len) {
+    _reportUnsupportedOperation();
+  }
+
+
+  @Override
+  public void writeRaw(char[] text, int offset, int len) {
+    _reportUnsupportedOperation();
+  }
+
+
+  @Override
+  public void writeRaw(char c) {
+    _reportUnsupportedOperation();
+  }
+
+
+  @Override
+  public void writeRawUTF8String(byte[] text, int offset, int length) throws IOException {
+    writeString(new String(text, offset, length, UTF_8));
+  }
+
+
+  @Override
+  public void writeStartArray() throws IOException {
+    CJArray array = new CJArray();
+    add(array);
+    _writeContext = _writeContext.createChildArrayContext();
+    containers.push(array);
+  }
+
+
+  @Override
+  public void writeStartObject() throws IOException {
+    CJObject object = new CJObject();
+    add(object);
+    _writeContext = _writeContext.createChildObjectContext();
+    containers.push(object);
+  }
+
+
+  @Override
+  public void writeString(String text) throws IOException {
+    add(text != null ? PROVIDER.createValue(text) : JsonValue.NULL);
+  }
+
+
+  @Override
+  public void writeString(char[] text, int offset, int len) throws IOException {
+    writeString(new String(text, offset, len));
+  }
+
+
+  @Override
+  public void writeUTF8String(byte[] text, int offset, int length) throws IOException {
+    writeString(new String(text, offset, length, UTF_8));
+  }
+
+
+  @Override
+  protected void _releaseBuffers() {
+    // no buffers to release
+  }
+
+
+  @Override
+  protected void _verifyValueWrite(String typeMsg) throws IOException {
+    if (_writeContext.writeValue() == JsonWriteContext.STATUS_EXPECT_NAME) {
+      throw new JsonGenerationException("Can not " + typeMsg + ", expecting a field name", this);
+    }
+  }
+
+
+  @SuppressWarnings("unchecked")
+  private void add(JsonValue value) throws IOException {
+    _verifyValueWrite("write a value");
+    JsonValue container = containers.peek();
+    if (container == null) {
+      if (root != null) {
+        _reportError("A root value has already been written");
+      }
+      root = value;
+    } else if (_writeContext.inObject()) {
+      ((Map<String, JsonValue>) container).put(_writeContext.getCurrentName(), value);
+    } else {
+      ((List<JsonValue>) container).add(value);
+    }
+  }
+
+}
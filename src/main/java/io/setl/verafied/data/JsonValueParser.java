@@ -0,0 +1,407 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+package io.setl.verafied.data;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import javax.json.JsonNumber;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.core.base.ParserMinimalBase;
+
+/**
+ * A Jackson parser which reads directly from a JSON value, without creating an intermediate Jackson tree.
+ *
+ * @author agent on 18/10/2026.
+ */
+class JsonValueParser extends ParserMinimalBase {
+
+  /** Parsing context which also iterates over the members of a container. */
+  private static class Context extends JsonStreamContext {
+
+    /** Iterator over an array's members, if this is an array context. */
+    final Iterator<JsonValue> arrayIterator;
+
+    /** Iterator over an object's members, if this is an object context. */
+    final Iterator<Entry<String, JsonValue>> objectIterator;
+
+    /** The parent context. */
+    final Context parent;
+
+    /** The current field name. */
+    String name;
+
+
+    Context(Context parent, int type, Iterator<JsonValue> arrayIterator, Iterator<Entry<String, JsonValue>> objectIterator) {
+      super(type, -1);
+      this.parent = parent;
+      this.arrayIterator = arrayIterator;
+      this.objectIterator = objectIterator;
+    }
+
+
+    /** Move to the next member of this context. */
+    void advance() {
+      _index++;
+    }
+
+
+    @Override
+    public String getCurrentName() {
+      return name;
+    }
+
+
+    @Override
+    public Context getParent() {
+      return parent;
+    }
+
+  }
+
+
+  /** The codec for reading POJOs and trees. */
+  private ObjectCodec codec;
+
+  /** The current context. */
+  private Context context = new Context(null, JsonStreamContext.TYPE_ROOT, null, null);
+
+  /** The value associated with the current token. */
+  private JsonValue current;
+
+  /** Has this parser been closed?. */
+  private boolean isClosed = false;
+
+  /** The value to be returned by the next call to "nextToken", if it is an object member. */
+  private JsonValue pending;
+
+
+  /**
+   * New instance.
+   *
+   * @param value the value to parse
+   * @param codec the codec for reading POJOs and trees
+   */
+  JsonValueParser(JsonValue value, ObjectCodec codec) {
+    this.codec = codec;
+    pending = value;
+  }
+
+
+  @Override
+  public void close() {
+    isClosed = true;
+    pending = null;
+    current = null;
+    _currToken = null;
+  }
+
+
+  @Override
+  public BigInteger getBigIntegerValue() throws IOException {
+    return number().bigIntegerValue();
+  }
+
+
+  @Override
+  public byte[] getBinaryValue(Base64Variant variant) throws IOException {
+    if (_currToken != JsonToken.VALUE_STRING) {
+      _reportError("Current token (" + _currToken + ") is not a string so cannot contain binary data");
+    }
+    try {
+      return variant.decode(((JsonString) current).getString());
+    } catch (IllegalArgumentException e) {
+      _reportError(e.getMessage());
+      return null;
+    }
+  }
+
+
+  @Override
+  public ObjectCodec getCodec() {
+    return codec;
+  }
+
+
+  @Override
+  public JsonLocation getCurrentLocation() {
+    return JsonLocation.NA;
+  }
+
+
+  @Override
+  public String getCurrentName() {
+    if (_currToken == JsonToken.START_OBJECT || _currToken == JsonToken.START_ARRAY) {
+      Context parent = context.getParent();
+      return parent != null ? parent.name : null;
+    }
+    return context.name;
+  }
+
+
+  @Override
+  public BigDecimal getDecimalValue() throws IOException {
+    return number().bigDecimalValue();
+  }
+
+
+  @Override
+  public double getDoubleValue() throws IOException {
+    return number().doubleValue();
+  }
+
+
+  @Override
+  public Object getEmbeddedObject() {
+    return null;
+  }
+
+
+  @Override
+  public float getFloatValue() throws IOException {
+    return (float) number().doubleValue();
+  }
+
+
+  @Override
+  public int getIntValue() throws IOException {
+    JsonNumber number = number();
+    try {
+      return number.bigDecimalValue().intValueExact();
+    } catch (ArithmeticException e) {
+      _reportError("Numeric value (" + number + ") out of range of int");
+      return 0;
+    }
+  }
+
+
+  @Override
+  public long getLongValue() throws IOException {
+    JsonNumber number = number();
+    try {
+      return number.bigDecimalValue().longValueExact();
+    } catch (ArithmeticException e) {
+      _reportError("Numeric value (" + number + ") out of range of long");
+      return 0;
+    }
+  }
+
+
+  @Override
+  public NumberType getNumberType() throws IOException {
+    JsonNumber number = number();
+    if (!number.isIntegral()) {
+      // A double could lose precision, and so change the document's canonical form
+      return NumberType.BIG_DECIMAL;
+    }
+    int bits = number.bigIntegerValue().bitLength();
+    if (bits < 32) {
+      return NumberType.INT;
+    }
+    return bits < 64 ? NumberType.LONG : NumberType.BIG_INTEGER;
+  }
+
+
+  @Override
+  public Number getNumberValue() throws IOException {
+    switch (getNumberType()) {
+      case INT:
+        return number().intValue();
+      case LONG:
+        return number().longValue();
+      case BIG_INTEGER:
+        return number().bigIntegerValue();
+      default:
+        return number().bigDecimalValue();
+    }
+  }
+
+
+  @Override
+  public JsonStreamContext getParsingContext() {
+    return context;
+  }
+
+
+  @Override
+  public String getText() {
+    if (_currToken == null) {
+      return null;
+    }
+    switch (_currToken) {
+      case FIELD_NAME:
+        return context.name;
+      case VALUE_STRING:
+        return ((JsonString) current).getString();
+      case VALUE_NUMBER_INT:
+      case VALUE_NUMBER_FLOAT:
+        return current.toString();
+      default:
+        return _currToken.asString();
+    }
+  }
+
+
+  @Override
+  public char[] getTextCharacters() {
+    String text = getText();
+    return text != null ? text.toCharArray() : null;
+  }
+
+
+  @Override
+  public int getTextLength() {
+    String text = getText();
+    return text != null ? text.length() : 0;
+  }
+
+
+  @Override
+  public int getTextOffset() {
+    return 0;
+  }
+
+
+  @Override
+  public JsonLocation getTokenLocation() {
+    return JsonLocation.NA;
+  }
+
+
+  @Override
+  public boolean hasTextCharacters() {
+    return false;
+  }
+
+
+  @Override
+  public boolean isClosed() {
+    return isClosed;
+  }
+
+
+  @Override
+  public JsonToken nextToken() {
+    if (isClosed) {
+      return null;
+    }
+
+    if (pending != null) {
+      // Either the root value, or the value following a field name
+      JsonValue value = pending;
+      pending = null;
+      return _currToken = start(value);
+    }
+
+    if (context.inObject()) {
+      if (context.objectIterator.hasNext()) {
+        Entry<String, JsonValue> entry = context.objectIterator.next();
+        context.name = entry.getKey();
+        pending = entry.getValue();
+        current = null;
+        return _currToken = JsonToken.FIELD_NAME;
+      }
+      context = context.parent;
+      current = null;
+      return _currToken = JsonToken.END_OBJECT;
+    }
+
+    if (context.inArray()) {
+      if (context.arrayIterator.hasNext()) {
+        return _currToken = start(context.arrayIterator.next());
+      }
+      context = context.parent;
+      current = null;
+      return _currToken = JsonToken.END_ARRAY;
+    }
+
+    // At the root and the value has been read
+    current = null;
+    return _currToken = null;
+  }
+
+
+  @Override
+  public void overrideCurrentName(String name) {
+    context.name = name;
+  }
+
+
+  @Override
+  public void setCodec(ObjectCodec codec) {
+    this.codec = codec;
+  }
+
+
+  @Override
+  public Version version() {
+    return Version.unknownVersion();
+  }
+
+
+  @Override
+  protected void _handleEOF() {
+    // EOF is never unexpected as the input is always complete
+  }
+
+
+  private JsonNumber number() throws IOException {
+    if (_currToken != JsonToken.VALUE_NUMBER_INT && _currToken != JsonToken.VALUE_NUMBER_FLOAT) {
+      _reportError("Current token (" + _currToken + ") not numeric, can not use numeric value accessors");
+    }
+    return (JsonNumber) current;
+  }
+
+
+  private JsonToken start(JsonValue value) {
+    current = value;
+    context.advance();
+    switch (value.getValueType()) {
+      case OBJECT:
+        context = new Context(context, JsonStreamContext.TYPE_OBJECT, null, value.asJsonObject().entrySet().iterator());
+        return JsonToken.START_OBJECT;
+      case ARRAY:
+        context = new Context(context, JsonStreamContext.TYPE_ARRAY, value.asJsonArray().iterator(), null);
+        return JsonToken.START_ARRAY;
+      case STRING:
+        return JsonToken.VALUE_STRING;
+      case NUMBER:
+        return ((JsonNumber) value).isIntegral() ? JsonToken.VALUE_NUMBER_INT : JsonToken.VALUE_NUMBER_FLOAT;
+      case TRUE:
+        return JsonToken.VALUE_TRUE;
+      case FALSE:
+        return JsonToken.VALUE_FALSE;
+      default:
+        return JsonToken.VALUE_NULL;
+    }
+  }
+
+}
@@ -0,0 +1,242 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+package io.setl.verafied.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.Set;
+import javax.json.JsonArray;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import io.setl.verafied.CredentialConstants;
+
+/**
+ * A JSON object which is held as its UTF-8 encoded text, and only parsed when its content is first accessed. This allows large objects which are often not
+ * inspected to be held cheaply.
+ *
+ * <p>Serializing this object does not cause it to be retained in parsed form.
+ *
+ * @author agent on 19/10/2026.
+ */
+@JsonSerialize(using = LazyJsonObject.Serializer.class)
+public class LazyJsonObject extends AbstractMap<String, JsonValue> implements JsonObject {
+
+  /** Serializer which avoids retaining the parsed form. */
+  static class Serializer extends StdSerializer<LazyJsonObject> {
+
+    private static final long serialVersionUID = 1L;
+
+
+    Serializer() {
+      super(LazyJsonObject.class);
+    }
+
+
+    @Override
+    public void serialize(LazyJsonObject value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+      JsonObject object = value.materialised;
+      if (object == null) {
+        object = value.parse();
+      }
+      provider.findValueSerializer(JsonObject.class).serialize(object, gen, provider);
+    }
+
+  }
+
+
+  /** The UTF-8 encoded JSON. */
+  private final byte[] json;
+
+  /** The parsed form, if it has been created. */
+  private volatile JsonObject materialised;
+
+
+  /**
+   * New instance.
+   *
+   * @param json the UTF-8 encoded JSON, which must be a JSON object. It is not validated until it is parsed.
+   */
+  public LazyJsonObject(byte[] json) {
+    this.json = json.clone();
+  }
+
+
+  @Override
+  public boolean containsKey(Object key) {
+    return materialise().containsKey(key);
+  }
+
+
+  @Override
+  public Set<Entry<String, JsonValue>> entrySet() {
+    return materialise().entrySet();
+  }
+
+
+  @Override
+  public boolean equals(Object o) {
+    return materialise().equals(o);
+  }
+
+
+  @Override
+  public JsonValue get(Object key) {
+    return materialise().get(key);
+  }
+
+
+  @Override
+  public boolean getBoolean(String name) {
+    return materialise().getBoolean(name);
+  }
+
+
+  @Override
+  public boolean getBoolean(String name, boolean defaultValue) {
+    return materialise().getBoolean(name, defaultValue);
+  }
+
+
+  /**
+   * Get the UTF-8 encoded JSON this was created from.
+   *
+   * @return the JSON
+   */
+  public byte[] getBytes() {
+    return json.clone();
+  }
+
+
+  @Override
+  public int getInt(String name) {
+    return materialise().getInt(name);
+  }
+
+
+  @Override
+  public int getInt(String name, int defaultValue) {
+    return materialise().getInt(name, defaultValue);
+  }
+
+
+  @Override
+  public JsonArray getJsonArray(String name) {
+    return materialise().getJsonArray(name);
+  }
+
+
+  @Override
+  public JsonNumber getJsonNumber(String name) {
+    return materialise().getJsonNumber(name);
+  }
+
+
+  @Override
+  public JsonObject getJsonObject(String name) {
+    return materialise().getJsonObject(name);
+  }
+
+
+  @Override
+  public JsonString getJsonString(String name) {
+    return materialise().getJsonString(name);
+  }
+
+
+  @Override
+  public String getString(String name) {
+    return materialise().getString(name);
+  }
+
+
+  @Override
+  public String getString(String name, String defaultValue) {
+    return materialise().getString(name, defaultValue);
+  }
+
+
+  @Override
+  public ValueType getValueType() {
+    return ValueType.OBJECT;
+  }
+
+
+  @Override
+  public int hashCode() {
+    return materialise().hashCode();
+  }
+
+
+  @Override
+  public boolean isNull(String name) {
+    return materialise().isNull(name);
+  }
+
+
+  /**
+   * Has the JSON been parsed and retained?.
+   *
+   * @return true if the parsed form is held
+   */
+  public boolean isMaterialised() {
+    return materialised != null;
+  }
+
+
+  @Override
+  public int size() {
+    return materialise().size();
+  }
+
+
+  @Override
+  public String toString() {
+    return materialise().toString();
+  }
+
+
+  private JsonObject materialise() {
+    JsonObject object = materialised;
+    if (object == null) {
+      object = parse();
+      materialised = object;
+    }
+    return object;
+  }
+
+
+  private JsonObject parse() {
+    try (JsonReader reader = CredentialConstants.JSON_PROVIDER.createReader(new ByteArrayInputStream(json))) {
+      return reader.readObject();
+    }
+  }
+
+}
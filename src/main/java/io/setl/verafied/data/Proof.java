@@ -23,6 +23,7 @@ package io.setl.verafied.data;
 import java.net.URI;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Collections;
 import java.util.Map;
 import java.util.TreeMap;
 import javax.validation.constraints.NotEmpty;
@@ -31,6 +32,7 @@ import com.fasterxml.jackson.annotation.JsonAnyGetter;
 import com.fasterxml.jackson.annotation.JsonAnySetter;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonFormat.Shape;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -39,7 +41,11 @@ import io.setl.verafied.did.validate.DidUrl;
 import io.setl.verafied.did.validate.DidUrl.Has;
 
 /**
- * A representation of a cryptographic proof.
+ * A representation of a cryptographic proof. The common "jws", "salt", "challenge", and "domain" properties are held in their own fields, and any other
+ * properties in a map which is never modified in place, so that copying a proof does not copy its properties.
+ *
+ * <p>A proof may be immutable, in which case any attempt to change it throws an <code>UnsupportedOperationException</code>. Documents hold their proofs in
+ * immutable form so that they can be read without being copied.
  *
  * @author Simon Greatrix on 03/10/2020.
  */
@@ -48,10 +54,31 @@ import io.setl.verafied.did.validate.DidUrl.Has;
 )
 public class Proof {
 
+  private static final String CHALLENGE = "challenge";
+
+  private static final String DOMAIN = "domain";
+
+  private static final String JWS = "jws";
+
+  private static final String SALT = "salt";
+
+
+  /** Does this reject all changes?. */
   @Schema(
       hidden = true
   )
-  private final Map<String, Object> properties = new TreeMap<>();
+  private final boolean immutable;
+
+  @Schema(
+      hidden = true
+  )
+  private Map<String, Object> others = Map.of();
+
+  @Schema(
+      description = "A value supplied by the verifier, which binds the proof to a single request so that it cannot be replayed."
+  )
+  @JsonInclude(Include.NON_NULL)
+  private String challenge;
 
   @Schema(
       description = "The time the proof was generated."
@@ -60,6 +87,24 @@ public class Proof {
   @JsonInclude(Include.NON_NULL)
   private Instant created = Instant.now().truncatedTo(ChronoUnit.SECONDS);
 
+  @Schema(
+      description = "The domain of the verifier for which the proof was created."
+  )
+  @JsonInclude(Include.NON_NULL)
+  private String domain;
+
+  @Schema(
+      description = "The JSON Web Signature with a detached payload which is the signature value of this proof."
+  )
+  @JsonInclude(Include.NON_NULL)
+  private String jws;
+
+  @Schema(
+      description = "A random value which ensures that the same document signed twice has different signatures."
+  )
+  @JsonInclude(Include.NON_NULL)
+  private String salt;
+
   @Schema(
       description = "The identifier for the type of cryptographic proof."
   )
@@ -73,22 +118,43 @@ public class Proof {
 
 
   public Proof() {
+    immutable = false;
   }
 
 
   /**
-   * Create a copy.
+   * Create a mutable copy.
    *
    * @param toCopy the instance to copy
    */
   public Proof(Proof toCopy) {
-    properties.putAll(toCopy.properties);
+    this(toCopy, false);
+  }
+
+
+  private Proof(Proof toCopy, boolean immutable) {
+    this.immutable = immutable;
+    others = toCopy.others;
+    challenge = toCopy.challenge;
     created = toCopy.created;
+    domain = toCopy.domain;
+    jws = toCopy.jws;
+    salt = toCopy.salt;
     type = toCopy.type;
     verificationMethod = toCopy.verificationMethod;
   }
 
 
+  /**
+   * Get an immutable form of this proof.
+   *
+   * @return this, if this is immutable, otherwise an immutable copy
+   */
+  public Proof asImmutable() {
+    return immutable ? this : new Proof(this, true);
+  }
+
+
   /**
    * Get a value from this proof's properties, if it is of the correct type.
    *
@@ -99,7 +165,19 @@ public class Proof {
    * @return the value, or null if missing or wrong type
    */
   public <T> T get(Class<? extends T> type, String key) {
-    Object o = properties.get(key);
+    Object o;
+    if (JWS.equals(key) && jws != null) {
+      o = jws;
+    } else if (SALT.equals(key) && salt != null) {
+      o = salt;
+    } else if (CHALLENGE.equals(key) && challenge != null) {
+      o = challenge;
+    } else if (DOMAIN.equals(key) && domain != null) {
+      o = domain;
+    } else {
+      o = others.get(key);
+    }
+
     // doesn't exist
     if (o == null) {
       return null;
@@ -115,14 +193,63 @@ public class Proof {
   }
 
 
+  public String getChallenge() {
+    return challenge;
+  }
+
+
   public Instant getCreated() {
     return created;
   }
 
 
+  public String getDomain() {
+    return domain;
+  }
+
+
+  public String getJws() {
+    return jws;
+  }
+
+
+  /**
+   * Get the properties of this proof which are not held in their own fields. The returned map is unmodifiable and is not affected by later changes to this.
+   *
+   * @return the other properties
+   */
   @JsonAnyGetter
+  Map<String, Object> getOtherProperties() {
+    return others;
+  }
+
+
+  /**
+   * Get all the properties of this proof, apart from the created time, type, and verification method.
+   *
+   * @return the properties
+   */
+  @JsonIgnore
   public Map<String, Object> getProperties() {
-    return Map.copyOf(properties);
+    TreeMap<String, Object> map = new TreeMap<>(others);
+    if (jws != null) {
+      map.put(JWS, jws);
+    }
+    if (salt != null) {
+      map.put(SALT, salt);
+    }
+    if (challenge != null) {
+      map.put(CHALLENGE, challenge);
+    }
+    if (domain != null) {
+      map.put(DOMAIN, domain);
+    }
+    return Collections.unmodifiableMap(map);
+  }
+
+
+  public String getSalt() {
+    return salt;
   }
 
 
@@ -138,29 +265,124 @@ public class Proof {
   }
 
 
+  /**
+   * Is this proof immutable?.
+   *
+   * @return true if this rejects all changes
+   */
+  @JsonIgnore
+  public boolean isImmutable() {
+    return immutable;
+  }
+
+
+  /**
+   * Remove a property from this proof.
+   *
+   * @param key the property's name
+   */
   public void remove(String key) {
-    properties.remove(key);
+    checkMutable();
+    if (JWS.equals(key)) {
+      jws = null;
+    } else if (SALT.equals(key)) {
+      salt = null;
+    } else if (CHALLENGE.equals(key)) {
+      challenge = null;
+    } else if (DOMAIN.equals(key)) {
+      domain = null;
+    }
+    if (others.containsKey(key)) {
+      TreeMap<String, Object> map = new TreeMap<>(others);
+      map.remove(key);
+      others = map.isEmpty() ? Map.of() : Collections.unmodifiableMap(map);
+    }
   }
 
 
+  /**
+   * Set a property on this proof.
+   *
+   * @param key   the property's name
+   * @param value the property's value
+   */
   @JsonAnySetter
   public void set(String key, Object value) {
-    properties.put(key, value);
+    checkMutable();
+    if (JWS.equals(key) && value instanceof String) {
+      remove(key);
+      jws = (String) value;
+      return;
+    }
+    if (SALT.equals(key) && value instanceof String) {
+      remove(key);
+      salt = (String) value;
+      return;
+    }
+    if (CHALLENGE.equals(key) && value instanceof String) {
+      remove(key);
+      challenge = (String) value;
+      return;
+    }
+    if (DOMAIN.equals(key) && value instanceof String) {
+      remove(key);
+      domain = (String) value;
+      return;
+    }
+
+    remove(key);
+    TreeMap<String, Object> map = new TreeMap<>(others);
+    map.put(key, value);
+    others = Collections.unmodifiableMap(map);
+  }
+
+
+  public void setChallenge(String challenge) {
+    checkMutable();
+    this.challenge = challenge;
   }
 
 
   public void setCreated(Instant created) {
+    checkMutable();
     this.created = created;
   }
 
 
+  public void setDomain(String domain) {
+    checkMutable();
+    this.domain = domain;
+  }
+
+
+  public void setJws(String jws) {
+    checkMutable();
+    this.jws = jws;
+  }
+
+
+  public void setSalt(String salt) {
+    checkMutable();
+    this.salt = salt;
+  }
+
+
   public void setType(String type) {
+    checkMutable();
     this.type = type;
   }
 
 
   public void setVerificationMethod(URI verificationMethod) {
+    checkMutable();
     this.verificationMethod = verificationMethod;
   }
 
+
+  private void checkMutable() {
+    if (immutable) {
+      throw new UnsupportedOperationException("Proof is immutable");
+    }
+  }
+
 }
@@ -20,16 +20,23 @@
 
 package io.setl.verafied.data;
 
+import java.util.List;
 import javax.json.JsonObject;
 import javax.validation.Valid;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import io.setl.verafied.did.KeyUsage;
+
 /**
  * An interface that indicates the object can have a standard proof attached to it.
  *
+ * <p>An implementation must hold both a proof and a proof set. The proof set accessors are abstract, so an implementation written before proof sets were
+ * supported must now add both of them. This is a breaking change to the interface.
+ *
  * @author Simon Greatrix on 27/10/2020.
  */
 public interface Provable {
@@ -43,18 +50,31 @@ public interface Provable {
 
 
   /**
-   * A utility method to call within setters when this should be immutable if a proof is attached. If a proof is non-null, then this method will throw an
-   * <code>IllegalStateException</code>
+   * A utility method to call within setters when this should be immutable if a proof is attached. If a proof is non-null, or the proof set is not empty, then
+   * this method will throw an <code>IllegalStateException</code>
    *
    * @throws IllegalStateException if this has a non-null proof
    */
   default void checkNotProven() {
-    if (getProof() != null) {
+    if (getImmutableProof() != null || !getProofSet().isEmpty()) {
       throw new IllegalStateException("Cannot change data when a proof is attached");
     }
   }
 
 
+  /**
+   * Get the "proof" element of this in immutable form, if it has been set. Unlike {@link #getProof()}, an implementation need not copy the proof, so this
+   * should be preferred when the proof is only to be read.
+   *
+   * @return the proof, or null
+   */
+  @JsonIgnore
+  default Proof getImmutableProof() {
+    Proof proof = getProof();
+    return proof != null ? proof.asImmutable() : null;
+  }
+
+
   /**
    * Get the "proof" element of this, if it has been set.
    *
@@ -66,6 +86,27 @@ public interface Provable {
   Proof getProof();
 
 
+  /**
+   * Get the verification relationship which a verification method must have with its DID to prove this.
+   *
+   * @return the relationship, or null if any verification method in the DID is acceptable
+   */
+  @JsonIgnore
+  default KeyUsage getProofPurpose() {
+    return null;
+  }
+
+
+  /**
+   * Get the "proofSet" element of this. A proof set contains several independent proofs over the same document, such as when a document is co-signed.
+   *
+   * @return the proof set, which may be empty but is never null
+   */
+  @JsonProperty("proofSet")
+  @JsonInclude(Include.NON_EMPTY)
+  List<@Valid Proof> getProofSet();
+
+
   /**
    * Set the "proof" element of this which contains the signature. It is recommended that an object with a non-null proof be immutable.
    *
@@ -73,4 +114,13 @@ public interface Provable {
    */
   void setProof(Proof proof);
 
+
+  /**
+   * Set the "proofSet" element of this. It is recommended that an object with a non-empty proof set be immutable. The proofs set here must then be returned by
+   * {@link #getProofSet()}.
+   *
+   * @param proofSet the proofs
+   */
+  void setProofSet(List<Proof> proofSet);
+
 }
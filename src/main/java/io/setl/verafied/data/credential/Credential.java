@@ -23,8 +23,10 @@ package io.setl.verafied.data.credential;
 import java.net.URI;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 import javax.json.JsonObject;
 import javax.json.JsonValue;
@@ -42,6 +44,7 @@ import io.setl.verafied.CredentialConstants;
 import io.setl.verafied.data.JsonConvert;
 import io.setl.verafied.data.Proof;
 import io.setl.verafied.data.Provable;
+import io.setl.verafied.did.KeyUsage;
 import io.setl.verafied.did.validate.DidUri;
 
 /**
@@ -82,6 +85,9 @@ public class Credential implements Provable {
   @JsonInclude(Include.NON_NULL)
   private Proof proof;
 
+  /** Additional independent proofs associated with this. */
+  private List<Proof> proofSet = List.of();
+
   /** The types present in the credentials. */
   private Set<String> type = MINIMAL_TYPE;
 
@@ -178,6 +184,32 @@ public class Credential implements Provable {
   }
 
 
+  @Override
+  public Proof getImmutableProof() {
+    return proof;
+  }
+
+
+  @Override
+  public KeyUsage getProofPurpose() {
+    return KeyUsage.ASSERTION;
+  }
+
+
+  @Schema(
+      description = "Additional independent proofs over this, such as when it is co-signed."
+  )
+  @Override
+  public List<Proof> getProofSet() {
+    if (proofSet.isEmpty()) {
+      return List.of();
+    }
+    ArrayList<Proof> list = new ArrayList<>(proofSet.size());
+    proofSet.forEach(p -> list.add(new Proof(p)));
+    return list;
+  }
+
+
   @Schema(
       description = "An unordered set of type definitions which must be URIs or mappable to URIs via the context. "
           + "These define the data type of the credential subjects."
@@ -215,6 +247,16 @@ public class Credential implements Provable {
   }
 
 
+  /**
+   * Set the credential subject whilst reading a credential, which may already have a proof.
+   *
+   * @param credentialSubject the information
+   */
+  void initCredentialSubject(JsonObject credentialSubject) {
+    this.credentialSubject = credentialSubject;
+  }
+
+
   /**
    * Set this credential's expiration date.
    *
@@ -250,7 +292,19 @@ public class Credential implements Provable {
 
 
   public void setProof(Proof proof) {
-    this.proof = proof != null ? new Proof(proof) : null;
+    this.proof = proof != null ? proof.asImmutable() : null;
+  }
+
+
+  @Override
+  public void setProofSet(List<Proof> newProofSet) {
+    if (newProofSet == null || newProofSet.isEmpty()) {
+      proofSet = List.of();
+      return;
+    }
+    ArrayList<Proof> list = new ArrayList<>(newProofSet.size());
+    newProofSet.forEach(p -> list.add(p.asImmutable()));
+    proofSet = list;
   }
 
 
@@ -29,10 +29,16 @@ import java.util.Map;
 
 import io.setl.verafied.CredentialConstants;
 import io.setl.verafied.UnacceptableDocumentException;
+import io.setl.verafied.data.Proof;
 import io.setl.verafied.data.TypedKeyPair;
 import io.setl.verafied.did.DidStoreException;
+import io.setl.verafied.proof.CanonicalDocument;
+import io.setl.verafied.proof.ParsedDocument;
 import io.setl.verafied.proof.ProofContext;
 import io.setl.verafied.proof.ProvableApi;
+import io.setl.verafied.proof.VerificationCache;
+import io.setl.verafied.proof.VerificationPipeline;
+import io.setl.verafied.proof.VerificationStage.Cost;
 import io.setl.verafied.proof.VerifyContext;
 import io.setl.verafied.revocation.RevocationChecker;
 
@@ -71,6 +77,28 @@ public class CredentialApi {
   }
 
 
+  /**
+   * Create a verification pipeline which performs the same checks as {@link #verify(Credential, VerifyContext, RevocationChecker)}. Further stages, such as
+   * a trusted issuer check, may be added to the returned pipeline.
+   *
+   * @param pipeline        the pipeline to add the standard stages to
+   * @param revocationStore the revocation checker (optional)
+   *
+   * @return the new pipeline
+   */
+  public static VerificationPipeline<Credential> createPipeline(VerificationPipeline<Credential> pipeline, RevocationChecker revocationStore) {
+    VerificationPipeline<Credential> output = pipeline
+        .with("type", Cost.LOCAL, (c, x) -> verifyType(c))
+        .with("dates", Cost.LOCAL, (c, x) -> verifyDates(c));
+    if (revocationStore != null) {
+      output = output.with("status", Cost.IO, (c, x) -> verifyStatus(c, revocationStore));
+    }
+    return output
+        .with("did", Cost.IO, CredentialApi::resolveMethod)
+        .with("proof", Cost.CRYPTO, CredentialApi::verifyProof);
+  }
+
+
   /**
    * Verify if this is a valid credential. This checks the following:
    * <ol>
@@ -90,6 +118,82 @@ public class CredentialApi {
   }
 
 
+  /**
+   * Verify if this is a valid credential, consulting a cache of previously verified proofs. The same checks as
+   * {@link #verify(Credential, VerifyContext, RevocationChecker)} are performed, but if the cache shows this exact credential and proof has already been
+   * verified, the DID is not fetched and the signature is not checked. Revocation is always checked. A successful verification is added to the cache and
+   * held no longer than the credential's expiration date.
+   *
+   * @param credential      the credential
+   * @param context         the verification context
+   * @param revocationStore the revocation checker (optional)
+   * @param cache           the verification cache
+   */
+  public static void verify(Credential credential, VerifyContext context, RevocationChecker revocationStore, VerificationCache cache)
+      throws DidStoreException, UnacceptableDocumentException {
+    verifyType(credential);
+    verifyDates(credential);
+    verifyStatus(credential, revocationStore);
+    context.setProofPurpose(credential.getProofPurpose());
+    ProvableApi.verifyProof(
+        credential.getImmutableProof(), CanonicalDocument.of(credential), CREDENTIAL, credential.getId(), context,
+        cache, credential.getExpirationDate()
+    );
+  }
+
+
+  /**
+   * Verify if this is a valid credential, using the credential's previously calculated canonical form. This allows the same credential to be verified in
+   * many contexts whilst only being canonicalised once. The same checks as {@link #verify(Credential, VerifyContext, RevocationChecker)} are performed, and
+   * the canonical form must have the credential's ID and proof.
+   *
+   * @param credential      the credential
+   * @param document        the canonical form of the credential
+   * @param context         the verification context
+   * @param revocationStore the revocation checker (optional)
+   */
+  public static void verify(Credential credential, CanonicalDocument document, VerifyContext context, RevocationChecker revocationStore)
+      throws DidStoreException, UnacceptableDocumentException {
+    verifyType(credential);
+    verifyDates(credential);
+    verifyStatus(credential, revocationStore);
+    ProvableApi.verifyCanonicalForm(credential.getImmutableProof(), document, CREDENTIAL, credential.getId());
+    context.setProofPurpose(credential.getProofPurpose());
+    ProvableApi.verifyProof(credential.getImmutableProof(), document, CREDENTIAL, credential.getId(), context);
+  }
+
+
+  /**
+   * Verify if this is a valid credential, using the canonical form retained from the JSON it was parsed from if available. The same checks as
+   * {@link #verify(Credential, VerifyContext, RevocationChecker)} are performed.
+   *
+   * @param parsed          the parsed credential
+   * @param context         the verification context
+   * @param revocationStore the revocation checker (optional)
+   */
+  public static void verify(ParsedDocument<Credential> parsed, VerifyContext context, RevocationChecker revocationStore)
+      throws DidStoreException, UnacceptableDocumentException {
+    Credential credential = parsed.getDocument();
+    verifyType(credential);
+    verifyDates(credential);
+    verifyStatus(credential, revocationStore);
+    context.setProofPurpose(credential.getProofPurpose());
+    ProvableApi.verifyProof(credential.getImmutableProof(), parsed, CREDENTIAL, credential.getId(), context);
+  }
+
+
+  /**
+   * Resolve the verification method of this credential's proof, so that the signature can be checked without fetching a DID.
+   */
+  private static void resolveMethod(Credential credential, VerifyContext verifyContext) throws DidStoreException, UnacceptableDocumentException {
+    Proof proof = credential.getImmutableProof();
+    // A missing proof is reported when the signature is checked
+    if (proof != null) {
+      verifyContext.resolveVerificationMethod(proof, credential.getProofPurpose());
+    }
+  }
+
+
   /**
    * Verify that the issuance date is in the past and the expiration date is in the future.
    *
@@ -124,7 +228,8 @@ public class CredentialApi {
    * Verify that the cryptographic proof for this is correct.
    */
   private static void verifyProof(Credential credential, VerifyContext verifyContext) throws DidStoreException, UnacceptableDocumentException {
-    ProvableApi.verifyProof(credential.getProof(), credential, CREDENTIAL, credential.getId(), verifyContext);
+    verifyContext.setProofPurpose(credential.getProofPurpose());
+    ProvableApi.verifyProof(credential.getImmutableProof(), credential, CREDENTIAL, credential.getId(), verifyContext);
   }
 
 
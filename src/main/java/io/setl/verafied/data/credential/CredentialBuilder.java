@@ -23,6 +23,7 @@ package io.setl.verafied.data.credential;
 import java.net.URI;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 import java.util.Set;
 import javax.json.JsonObject;
 import javax.json.JsonValue;
@@ -57,6 +58,8 @@ public final class CredentialBuilder {
 
   private Proof proof;
 
+  private List<Proof> proofSet = List.of();
+
   private Set<String> type = Credential.MINIMAL_TYPE;
 
 
@@ -88,6 +91,7 @@ public final class CredentialBuilder {
 
     // Proof must be set last
     credential.setProof(proof);
+    credential.setProofSet(proofSet);
 
     return credential;
   }
@@ -142,6 +146,12 @@ public final class CredentialBuilder {
   }
 
 
+  public CredentialBuilder withProofSet(List<Proof> proofSet) {
+    this.proofSet = proofSet;
+    return this;
+  }
+
+
   public CredentialBuilder withType(Set<String> type) {
     this.type = type;
     return this;
@@ -0,0 +1,121 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+package io.setl.verafied.data.credential;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import io.setl.verafied.data.JsonConvert;
+import io.setl.verafied.data.LazyJsonObject;
+import io.setl.verafied.proof.CanonicalDetector;
+import io.setl.verafied.proof.ParsedDocument;
+
+/**
+ * Parsing of credentials where the credential subject is not parsed until it is used. Many verifiers only need the issuer, type, dates and status to make a
+ * decision, whereas the subject may be large. A lazily parsed subject is held as its original UTF-8 text, which is skipped over without being decoded.
+ *
+ * @author agent on 19/10/2026.
+ */
+public class CredentialParser {
+
+  private static final String CREDENTIAL_SUBJECT = "credentialSubject";
+
+
+  /**
+   * Parse a credential, retaining its canonical form if the JSON is already canonical.
+   *
+   * @param json        the UTF-8 encoded JSON
+   * @param lazySubject if true, the parsing of the credential subject is deferred until it is accessed
+   *
+   * @return the parsed credential
+   *
+   * @throws IOException if the JSON is invalid or does not represent a credential
+   */
+  public static ParsedDocument<Credential> parse(byte[] json, boolean lazySubject) throws IOException {
+    try (CanonicalDetector detector = new CanonicalDetector(json)) {
+      Credential credential = lazySubject ? parseLazily(json, detector) : JsonConvert.getReader(Credential.class).readValue(detector);
+      return new ParsedDocument<>(credential, detector.getRetained());
+    }
+  }
+
+
+  /**
+   * Parse a credential, deferring the parsing of its credential subject until it is accessed.
+   *
+   * @param json the UTF-8 encoded JSON
+   *
+   * @return the credential
+   *
+   * @throws IOException if the JSON is invalid or does not represent a credential
+   */
+  public static Credential parseLazily(byte[] json) throws IOException {
+    try (JsonParser parser = JsonConvert.OBJECT_MAPPER.getFactory().createParser(json)) {
+      return parseLazily(json, parser);
+    }
+  }
+
+
+  private static Credential parseLazily(byte[] json, JsonParser parser) throws IOException {
+    LazyJsonObject subject = null;
+    Credential credential;
+    if (parser.nextToken() != JsonToken.START_OBJECT) {
+      throw JsonMappingException.from(parser, "Credential must be a JSON object");
+    }
+
+    // Copy everything except the subject to a buffer
+    TokenBuffer buffer = new TokenBuffer(parser);
+    buffer.writeStartObject();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      if (CREDENTIAL_SUBJECT.equals(name) && token == JsonToken.START_OBJECT) {
+        int start = (int) parser.getTokenLocation().getByteOffset();
+        parser.skipChildren();
+        int end = (int) parser.getCurrentLocation().getByteOffset();
+        subject = new LazyJsonObject(Arrays.copyOfRange(json, start, end));
+      } else {
+        buffer.writeFieldName(name);
+        buffer.copyCurrentStructure(parser);
+      }
+    }
+    buffer.writeEndObject();
+
+    try (JsonParser bufferParser = buffer.asParser()) {
+      credential = JsonConvert.getReader(Credential.class).readValue(bufferParser);
+    }
+
+    if (subject != null) {
+      credential.initCredentialSubject(subject);
+    }
+    return credential;
+  }
+
+
+  private CredentialParser() {
+    // Hidden as this is a utility class
+  }
+
+}
@@ -0,0 +1,463 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+
+package io.setl.verafied.data.credential;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.json.JsonObject;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+
+/**
+ * An in-memory store of credentials, indexed by issuer, type, expiration date, and credential subject ID, so that the credentials for a presentation can be
+ * selected without examining every credential held.
+ *
+ * <p>A query is answered by starting from its most selective index, and checking only the credentials found there against the query's other criteria.
+ *
+ * <p>Credentials are indexed when they are added. A credential should be proven before it is added, as a proven credential cannot be changed. Changes to an
+ * unproven credential after it is added are not reflected in the indexes.
+ *
+ * @author agent on 19/10/2026.
+ */
+public class CredentialWallet {
+
+  /**
+   * Criteria for selecting credentials. A credential must match every criterion which has been set.
+   */
+  public static class Query {
+
+    /** The acceptable issuers, or null for any issuer. */
+    private Set<URI> issuers;
+
+    /** The maximum number of credentials to select. */
+    private int limit = Integer.MAX_VALUE;
+
+    /** The required credential subject ID, or null for any subject. */
+    private URI subject;
+
+    /** The types the credential must have. */
+    private Set<String> types = Set.of();
+
+    /** The time at which the credential must be valid, or null for any time. */
+    private Instant validAt;
+
+
+    /**
+     * Require the credential to have been issued by one of the specified issuers.
+     *
+     * @param issuers the acceptable issuers
+     *
+     * @return this
+     */
+    public Query withIssuers(Collection<URI> issuers) {
+      this.issuers = Set.copyOf(issuers);
+      return this;
+    }
+
+
+    /**
+     * Limit the number of credentials selected.
+     *
+     * @param limit the maximum number of credentials
+     *
+     * @return this
+     */
+    public Query withLimit(int limit) {
+      if (limit < 1) {
+        throw new IllegalArgumentException("Limit must be positive, not " + limit);
+      }
+      this.limit = limit;
+      return this;
+    }
+
+
+    /**
+     * Require the credential's subject to have the specified ID.
+     *
+     * @param subject the subject's ID
+     *
+     * @return this
+     */
+    public Query withSubject(URI subject) {
+      this.subject = subject;
+      return this;
+    }
+
+
+    /**
+     * Require the credential to have all the specified types.
+     *
+     * @param types the required types
+     *
+     * @return this
+     */
+    public Query withTypes(Collection<String> types) {
+      this.types = Set.copyOf(types);
+      return this;
+    }
+
+
+    /**
+     * Require the credential to have been issued and not to have expired at the specified time.
+     *
+     * @param validAt the time
+     *
+     * @return this
+     */
+    public Query withValidAt(Instant validAt) {
+      this.validAt = validAt;
+      return this;
+    }
+
+
+    private boolean matches(Entry entry) {
+      if (issuers != null && !issuers.contains(entry.issuer)) {
+        return false;
+      }
+      if (subject != null && !subject.equals(entry.subject)) {
+        return false;
+      }
+      if (!entry.types.containsAll(types)) {
+        return false;
+      }
+      if (validAt != null) {
+        if (entry.issued != null && entry.issued.isAfter(validAt)) {
+          return false;
+        }
+        return entry.expires == null || !entry.expires.isBefore(validAt);
+      }
+      return true;
+    }
+
+  }
+
+
+
+  /** A held credential and the values it is indexed by. */
+  private static class Entry {
+
+    /** The credential. */
+    final Credential credential;
+
+    /** The expiration date, or null if it does not expire. */
+    final Instant expires;
+
+    /** The credential's ID. */
+    final URI id;
+
+    /** The issuance date. */
+    final Instant issued;
+
+    /** The issuer. */
+    final URI issuer;
+
+    /** The credential subject's ID, or null if it has none. */
+    final URI subject;
+
+    /** The credential's types. */
+    final Set<String> types;
+
+
+    Entry(Credential credential) {
+      this.credential = credential;
+      id = credential.getId();
+      expires = credential.getExpirationDate();
+      issued = credential.getIssuanceDate();
+      issuer = credential.getIssuer();
+      subject = subjectId(credential.getCredentialSubject());
+      types = Set.copyOf(credential.getType());
+    }
+
+  }
+
+
+  private static <K> void index(Map<K, Set<Entry>> index, K key, Entry entry) {
+    if (key != null) {
+      index.computeIfAbsent(key, k -> new HashSet<>()).add(entry);
+    }
+  }
+
+
+  private static URI subjectId(JsonObject credentialSubject) {
+    JsonValue value = credentialSubject != null ? credentialSubject.get("id") : null;
+    if (!(value instanceof JsonString)) {
+      return null;
+    }
+    try {
+      return new URI(((JsonString) value).getString());
+    } catch (URISyntaxException e) {
+      // Not a valid URI, so cannot be selected by subject
+      return null;
+    }
+  }
+
+
+  private static <K> void unindex(Map<K, Set<Entry>> index, K key, Entry entry) {
+    if (key != null) {
+      Set<Entry> set = index.get(key);
+      if (set != null && set.remove(entry) && set.isEmpty()) {
+        index.remove(key);
+      }
+    }
+  }
+
+
+  /** Index by expiration date. */
+  private final NavigableMap<Instant, Set<Entry>> byExpiry = new TreeMap<>();
+
+  /** Credentials by ID. */
+  private final Map<URI, Entry> byId = new HashMap<>();
+
+  /** Index by issuer. */
+  private final Map<URI, Set<Entry>> byIssuer = new HashMap<>();
+
+  /** Index by credential subject ID. */
+  private final Map<URI, Set<Entry>> bySubject = new HashMap<>();
+
+  /** Index by type. */
+  private final Map<String, Set<Entry>> byType = new HashMap<>();
+
+  /** Lock which protects the indexes. */
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /** Credentials which do not expire. */
+  private final Set<Entry> neverExpires = new HashSet<>();
+
+
+  /**
+   * Add a credential to this wallet, replacing any credential with the same ID.
+   *
+   * @param credential the credential, which must have an ID
+   */
+  public void add(Credential credential) {
+    if (credential.getId() == null) {
+      throw new IllegalArgumentException("Credential must have an ID");
+    }
+    Entry entry = new Entry(credential);
+    lock.writeLock().lock();
+    try {
+      Entry old = byId.put(entry.id, entry);
+      if (old != null) {
+        unindex(old);
+      }
+      index(byIssuer, entry.issuer, entry);
+      index(bySubject, entry.subject, entry);
+      for (String type : entry.types) {
+        index(byType, type, entry);
+      }
+      if (entry.expires != null) {
+        index(byExpiry, entry.expires, entry);
+      } else {
+        neverExpires.add(entry);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+
+  /**
+   * Get a credential by its ID.
+   *
+   * @param id the credential's ID
+   *
+   * @return the credential, or null if it is not held
+   */
+  public Credential get(URI id) {
+    lock.readLock().lock();
+    try {
+      Entry entry = byId.get(id);
+      return entry != null ? entry.credential : null;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+
+  /**
+   * Select the credentials which match a query, for example to pass to {@link io.setl.verafied.data.presentation.PresentationBuilder}.
+   *
+   * @param query the query
+   *
+   * @return the matching credentials, in no particular order
+   */
+  public List<Credential> query(Query query) {
+    lock.readLock().lock();
+    try {
+      List<Credential> selected = new ArrayList<>();
+      for (Collection<Entry> candidates : candidates(query)) {
+        for (Entry entry : candidates) {
+          if (query.matches(entry)) {
+            selected.add(entry.credential);
+            if (selected.size() >= query.limit) {
+              return selected;
+            }
+          }
+        }
+      }
+      return selected;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+
+  /**
+   * Remove a credential from this wallet.
+   *
+   * @param id the credential's ID
+   *
+   * @return the removed credential, or null if it was not held
+   */
+  public Credential remove(URI id) {
+    lock.writeLock().lock();
+    try {
+      Entry entry = byId.remove(id);
+      if (entry == null) {
+        return null;
+      }
+      unindex(entry);
+      return entry.credential;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+
+  /**
+   * Remove every credential which had expired before the specified time.
+   *
+   * @param time the time
+   *
+   * @return the number of credentials removed
+   */
+  public int removeExpired(Instant time) {
+    lock.writeLock().lock();
+    try {
+      List<Entry> expired = new ArrayList<>();
+      byExpiry.headMap(time, false).values().forEach(expired::addAll);
+      for (Entry entry : expired) {
+        byId.remove(entry.id);
+        unindex(entry);
+      }
+      return expired.size();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+
+  /**
+   * Get the number of credentials held.
+   *
+   * @return the number of credentials
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return byId.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+
+  /**
+   * Find the smallest collection of credentials which must contain every match for a query. It is returned as a list of disjoint parts.
+   */
+  private List<Collection<Entry>> candidates(Query query) {
+    List<Collection<Entry>> best = List.of(byId.values());
+    int bestSize = byId.size();
+    boolean isSelective = false;
+
+    if (query.subject != null) {
+      Set<Entry> set = bySubject.getOrDefault(query.subject, Set.of());
+      if (set.size() < bestSize) {
+        best = List.of(set);
+        bestSize = set.size();
+        isSelective = true;
+      }
+    }
+
+    for (String type : query.types) {
+      Set<Entry> set = byType.getOrDefault(type, Set.of());
+      if (set.size() < bestSize) {
+        best = List.of(set);
+        bestSize = set.size();
+        isSelective = true;
+      }
+    }
+
+    if (query.issuers != null) {
+      // Each credential has one issuer, so the parts are disjoint
+      List<Collection<Entry>> parts = new ArrayList<>();
+      int size = 0;
+      for (URI issuer : query.issuers) {
+        Set<Entry> set = byIssuer.get(issuer);
+        if (set != null) {
+          parts.add(set);
+          size += set.size();
+        }
+      }
+      if (size < bestSize) {
+        best = parts;
+        isSelective = true;
+      }
+    }
+
+    if (query.validAt != null && !isSelective) {
+      // Nothing more selective, so skip the credentials which have expired. Each credential has one expiration date, so the parts are disjoint.
+      List<Collection<Entry>> parts = new ArrayList<>(byExpiry.tailMap(query.validAt, true).values());
+      parts.add(neverExpires);
+      best = parts;
+    }
+
+    return best;
+  }
+
+
+  private void unindex(Entry entry) {
+    unindex(byIssuer, entry.issuer, entry);
+    unindex(bySubject, entry.subject, entry);
+    for (String type : entry.types) {
+      unindex(byType, type, entry);
+    }
+    if (entry.expires != null) {
+      unindex(byExpiry, entry.expires, entry);
+    } else {
+      neverExpires.remove(entry);
+    }
+  }
+
+}
@@ -0,0 +1,106 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+package io.setl.verafied.data.jwk;
+
+import static io.setl.verafied.CredentialConstants.logSafe;
+
+import java.security.InvalidKeyException;
+import java.security.PrivateKey;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA384Digest;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.signers.DSADigestSigner;
+import org.bouncycastle.crypto.signers.ECDSASigner;
+import org.bouncycastle.crypto.signers.HMacDSAKCalculator;
+import org.bouncycastle.crypto.signers.StandardDSAEncoding;
+import org.bouncycastle.jcajce.provider.asymmetric.util.ECUtil;
+
+/**
+ * Deterministic ECDSA signatures as specified in RFC 6979. The signature nonce is derived from the private key and the message, so no random numbers are
+ * required and signing the same bytes with the same key always produces the same signature. The signatures are DER encoded, exactly as produced by the
+ * standard JCA signatures for the ECDSA algorithms, and are verified in the normal way.
+ *
+ * @author agent on 18/10/2026.
+ */
+public class DeterministicEcdsa {
+
+  /**
+   * Test if an algorithm can be used with deterministic signing.
+   *
+   * @param algorithm the algorithm
+   *
+   * @return true if deterministic signing is supported
+   */
+  public static boolean isSupported(SigningAlgorithm algorithm) {
+    switch (algorithm) {
+      case ES256:
+      case ES256K:
+      case ES384:
+      case ES512:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+
+  private static Digest newDigest(SigningAlgorithm algorithm) {
+    switch (algorithm) {
+      case ES256:
+      case ES256K:
+        return new SHA256Digest();
+      case ES384:
+        return new SHA384Digest();
+      case ES512:
+        return new SHA512Digest();
+      default:
+        throw new IllegalArgumentException("Deterministic signing is not supported for " + logSafe(algorithm.getJwkName()));
+    }
+  }
+
+
+  /**
+   * Sign data deterministically.
+   *
+   * @param algorithm  the ECDSA algorithm
+   * @param privateKey the private key
+   * @param data       the data to sign
+   *
+   * @return the DER encoded signature
+   *
+   * @throws InvalidKeyException if the private key is not an elliptic curve key
+   */
+  public static byte[] sign(SigningAlgorithm algorithm, PrivateKey privateKey, byte[] data) throws InvalidKeyException {
+    ECDSASigner ecdsa = new ECDSASigner(new HMacDSAKCalculator(newDigest(algorithm)));
+    DSADigestSigner signer = new DSADigestSigner(ecdsa, newDigest(algorithm), StandardDSAEncoding.INSTANCE);
+    signer.init(true, ECUtil.generatePrivateKeyParameter(privateKey));
+    signer.update(data, 0, data.length);
+    return signer.generateSignature();
+  }
+
+
+  private DeterministicEcdsa() {
+    // Hidden as this is a utility class
+  }
+
+}
@@ -0,0 +1,204 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+package io.setl.verafied.data.jwk;
+
+import java.security.KeyPair;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of pre-generated key pairs. Generating a key pair for the large RSA algorithms can take from seconds to minutes, so this pool holds a configurable
+ * number of ready key pairs for each algorithm and refills itself using background threads whenever a key pair is taken.
+ *
+ * <p>Each key pair is handed out at most once. If no key pair is ready, one is generated on the calling thread.
+ *
+ * @author agent on 18/10/2026.
+ */
+public class KeyPairPool implements AutoCloseable {
+
+  /** The ready key pairs for an algorithm, and the number of key pairs which are either ready or being generated. */
+  private static class Slot {
+
+    final AtomicInteger pending = new AtomicInteger();
+
+    final BlockingQueue<KeyPair> ready = new LinkedBlockingQueue<>();
+
+    final int target;
+
+
+    Slot(int target) {
+      this.target = target;
+    }
+
+  }
+
+
+  /** The background generators. */
+  private final ExecutorService executor;
+
+  /** The key pairs for each algorithm. */
+  private final Map<SigningAlgorithm, Slot> slots = new EnumMap<>(SigningAlgorithm.class);
+
+
+  /**
+   * New instance. The pool starts filling immediately.
+   *
+   * @param targets the number of key pairs to hold ready for each algorithm
+   * @param threads the number of background threads used to generate key pairs
+   */
+  public KeyPairPool(Map<SigningAlgorithm, Integer> targets, int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Number of threads must be positive, not " + threads);
+    }
+    for (Entry<SigningAlgorithm, Integer> e : targets.entrySet()) {
+      if (e.getKey() == SigningAlgorithm.NONE) {
+        throw new IllegalArgumentException("Cannot generate keys for the NONE algorithm");
+      }
+      int target = e.getValue();
+      if (target < 0) {
+        throw new IllegalArgumentException("Number of key pairs for " + e.getKey() + " must not be negative");
+      }
+      slots.put(e.getKey(), new Slot(target));
+    }
+
+    AtomicInteger threadCount = new AtomicInteger();
+    executor = Executors.newFixedThreadPool(threads, r -> {
+      Thread thread = new Thread(r, "key-pair-pool-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MIN_PRIORITY);
+      return thread;
+    });
+
+    slots.forEach(this::topUp);
+  }
+
+
+  /**
+   * Stop generating key pairs. Key pairs already generated remain available.
+   */
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+
+
+  /**
+   * Get the number of key pairs that are ready to be taken for an algorithm.
+   *
+   * @param algorithm the algorithm
+   *
+   * @return the number of ready key pairs
+   */
+  public int getReady(SigningAlgorithm algorithm) {
+    Slot slot = slots.get(algorithm);
+    return slot != null ? slot.ready.size() : 0;
+  }
+
+
+  /**
+   * Take a key pair for an algorithm. If no key pair is ready, one is generated on the calling thread.
+   *
+   * @param algorithm the algorithm
+   *
+   * @return the key pair
+   */
+  public KeyPair take(SigningAlgorithm algorithm) {
+    Slot slot = slots.get(algorithm);
+    if (slot == null) {
+      return algorithm.createKeyPair();
+    }
+    KeyPair keyPair = slot.ready.poll();
+    return taken(algorithm, slot, keyPair);
+  }
+
+
+  /**
+   * Take a key pair for an algorithm, waiting up to the specified time for a background thread to generate one if none is ready. If none is ready when the
+   * time expires, one is generated on the calling thread.
+   *
+   * @param algorithm the algorithm
+   * @param wait      the maximum time to wait
+   *
+   * @return the key pair
+   *
+   * @throws InterruptedException if interrupted whilst waiting
+   */
+  public KeyPair take(SigningAlgorithm algorithm, Duration wait) throws InterruptedException {
+    Slot slot = slots.get(algorithm);
+    if (slot == null) {
+      return algorithm.createKeyPair();
+    }
+    KeyPair keyPair = slot.ready.poll(wait.toNanos(), TimeUnit.NANOSECONDS);
+    return taken(algorithm, slot, keyPair);
+  }
+
+
+  private void generate(SigningAlgorithm algorithm, Slot slot) {
+    try {
+      slot.ready.add(algorithm.createKeyPair());
+    } catch (RuntimeException | Error e) {
+      slot.pending.decrementAndGet();
+      throw e;
+    }
+  }
+
+
+  private KeyPair taken(SigningAlgorithm algorithm, Slot slot, KeyPair keyPair) {
+    if (keyPair != null) {
+      slot.pending.decrementAndGet();
+      topUp(algorithm, slot);
+      return keyPair;
+    }
+
+    // Nothing ready, so make sure refills are underway and generate one here.
+    topUp(algorithm, slot);
+    return algorithm.createKeyPair();
+  }
+
+
+  private void topUp(SigningAlgorithm algorithm, Slot slot) {
+    while (true) {
+      int pending = slot.pending.get();
+      if (pending >= slot.target || executor.isShutdown()) {
+        return;
+      }
+      if (slot.pending.compareAndSet(pending, pending + 1)) {
+        try {
+          executor.execute(() -> generate(algorithm, slot));
+        } catch (RejectedExecutionException e) {
+          // pool has been closed
+          slot.pending.decrementAndGet();
+          return;
+        }
+      }
+    }
+  }
+
+}
@@ -21,6 +21,7 @@
 package io.setl.verafied.data.presentation;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -42,6 +43,7 @@ import io.setl.verafied.data.JsonConvert;
 import io.setl.verafied.data.Proof;
 import io.setl.verafied.data.Provable;
 import io.setl.verafied.data.credential.Credential;
+import io.setl.verafied.did.KeyUsage;
 import io.setl.verafied.did.validate.DidUri;
 
 /**
@@ -70,6 +72,9 @@ public class Presentation implements Provable {
   /** The cryptographic proof associated with this. */
   private Proof proof;
 
+  /** Additional independent proofs associated with this. */
+  private List<Proof> proofSet = List.of();
+
   /** The types present in the credentials. */
   private Set<String> type = Set.of(CredentialConstants.VERIFIABLE_PRESENTATION_TYPE);
 
@@ -121,6 +126,32 @@ public class Presentation implements Provable {
   }
 
 
+  @Override
+  public Proof getImmutableProof() {
+    return proof;
+  }
+
+
+  @Override
+  public KeyUsage getProofPurpose() {
+    return KeyUsage.AUTHENTICATION;
+  }
+
+
+  @Schema(
+      description = "Additional independent proofs over this, such as when it is co-signed."
+  )
+  @Override
+  public List<Proof> getProofSet() {
+    if (proofSet.isEmpty()) {
+      return List.of();
+    }
+    ArrayList<Proof> list = new ArrayList<>(proofSet.size());
+    proofSet.forEach(p -> list.add(new Proof(p)));
+    return list;
+  }
+
+
   @Schema(
       description = "An unordered set of type definitions which must be URIs or mappable to URIs via the context. "
           + "These define the data type of the credential subjects. The type 'VerifiableCredential' will be automatically added if it is not included.",
@@ -135,7 +166,8 @@ public class Presentation implements Provable {
       description = "The credentials being presented"
   )
   public List<Credential> getVerifiableCredential() {
-    return List.copyOf(verifiableCredential);
+    // Already an immutable copy, so it can be shared
+    return verifiableCredential;
   }
 
 
@@ -181,7 +213,19 @@ public class Presentation implements Provable {
 
 
   public void setProof(Proof proof) {
-    this.proof = proof != null ? new Proof(proof) : null;
+    this.proof = proof != null ? proof.asImmutable() : null;
+  }
+
+
+  @Override
+  public void setProofSet(List<Proof> newProofSet) {
+    if (newProofSet == null || newProofSet.isEmpty()) {
+      proofSet = List.of();
+      return;
+    }
+    ArrayList<Proof> list = new ArrayList<>(newProofSet.size());
+    newProofSet.forEach(p -> list.add(p.asImmutable()));
+    proofSet = list;
   }
 
 
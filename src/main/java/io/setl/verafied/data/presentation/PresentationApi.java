@@ -20,14 +20,24 @@
 
 package io.setl.verafied.data.presentation;
 
+import static io.setl.verafied.UnacceptableDocumentException.mapOf;
+
 import java.security.GeneralSecurityException;
+import java.time.Instant;
 
 import io.setl.verafied.CredentialConstants;
 import io.setl.verafied.UnacceptableDocumentException;
+import io.setl.verafied.data.Proof;
 import io.setl.verafied.data.TypedKeyPair;
 import io.setl.verafied.did.DidStoreException;
+import io.setl.verafied.proof.CanonicalDocument;
+import io.setl.verafied.proof.ParsedDocument;
 import io.setl.verafied.proof.ProofContext;
 import io.setl.verafied.proof.ProvableApi;
+import io.setl.verafied.proof.ReplayCache;
+import io.setl.verafied.proof.VerificationCache;
+import io.setl.verafied.proof.VerificationPipeline;
+import io.setl.verafied.proof.VerificationStage.Cost;
 import io.setl.verafied.proof.VerifyContext;
 
 /**
@@ -60,9 +70,58 @@ public class PresentationApi {
   }
 
 
+  /**
+   * Attach a proof to a presentation which binds it to a verifier's request.
+   *
+   * @param proofContext the proof context
+   * @param presentation the presentation to attach a proof to
+   * @param keyPair      the key pair to sign the credential with
+   * @param challenge    the challenge issued by the verifier
+   * @param domain       the verifier's domain, or null
+   *
+   * @throws GeneralSecurityException if a cryptographic failure occurs
+   */
+  public static void prove(
+      ProofContext proofContext,
+      Presentation presentation,
+      TypedKeyPair keyPair,
+      String challenge,
+      String domain
+  ) throws GeneralSecurityException, UnacceptableDocumentException {
+    Proof proof = presentation.getProof();
+    if (proof == null) {
+      proof = new Proof();
+    }
+    proof.setChallenge(challenge);
+    proof.setDomain(domain);
+    presentation.setProof(proof);
+    prove(proofContext, presentation, keyPair);
+  }
+
+
+  /**
+   * Create a verification pipeline which performs the same checks as {@link #verify(Presentation, VerifyContext)}. Further stages, such as a replay check,
+   * may be added to the returned pipeline.
+   *
+   * @param pipeline the pipeline to add the standard stages to
+   *
+   * @return the new pipeline
+   */
+  public static VerificationPipeline<Presentation> createPipeline(VerificationPipeline<Presentation> pipeline) {
+    return pipeline
+        .with("type", Cost.LOCAL, (p, x) -> verifyType(p))
+        .with("binding", Cost.LOCAL, PresentationApi::verifyBinding)
+        .with("did", Cost.IO, PresentationApi::resolveMethod)
+        .with("proof", Cost.CRYPTO, PresentationApi::verifyProof);
+  }
+
+
   /**
    * Verify the signature on a presentation. Does not verify the embedded credentials.
    *
+   * <p>If the context specifies a challenge or domain, the proof must contain them. If the context has a replay cache, the proof's challenge must not have
+   * been used before, and is recorded as used.
+   *
    * @param presentation  the presentation
    * @param verifyContext the context for the signature verification
    *
@@ -71,10 +130,92 @@ public class PresentationApi {
    */
   public static void verify(Presentation presentation, VerifyContext verifyContext) throws DidStoreException, UnacceptableDocumentException {
     verifyType(presentation);
+    verifyBinding(presentation, verifyContext);
     verifyProof(presentation, verifyContext);
   }
 
 
+  /**
+   * Verify the signature on a presentation, consulting a cache of previously verified proofs. If the cache shows this exact presentation and proof has
+   * already been verified, the DID is not fetched and the signature is not checked. Does not verify the embedded credentials.
+   *
+   * @param presentation  the presentation
+   * @param verifyContext the context for the signature verification
+   * @param cache         the verification cache
+   *
+   * @throws UnacceptableDocumentException if the document does not verify
+   * @throws DidStoreException             if the signing DID cannot be retrieved
+   */
+  public static void verify(Presentation presentation, VerifyContext verifyContext, VerificationCache cache)
+      throws DidStoreException, UnacceptableDocumentException {
+    verifyType(presentation);
+    verifyBinding(presentation, verifyContext);
+    verifyContext.setProofPurpose(presentation.getProofPurpose());
+    ProvableApi.verifyProof(
+        presentation.getImmutableProof(), CanonicalDocument.of(presentation), PRESENTATION, presentation.getId(), verifyContext,
+        cache, null
+    );
+    verifyReplay(presentation, verifyContext);
+  }
+
+
+  /**
+   * Verify the signature on a presentation, using the presentation's previously calculated canonical form, which must have the presentation's ID and proof.
+   * Does not verify the embedded credentials.
+   *
+   * @param presentation  the presentation
+   * @param document      the canonical form of the presentation
+   * @param verifyContext the context for the signature verification
+   *
+   * @throws UnacceptableDocumentException if the document does not verify
+   * @throws DidStoreException             if the signing DID cannot be retrieved
+   */
+  public static void verify(Presentation presentation, CanonicalDocument document, VerifyContext verifyContext)
+      throws DidStoreException, UnacceptableDocumentException {
+    verifyType(presentation);
+    verifyBinding(presentation, verifyContext);
+    ProvableApi.verifyCanonicalForm(presentation.getImmutableProof(), document, PRESENTATION, presentation.getId());
+    verifyContext.setProofPurpose(presentation.getProofPurpose());
+    ProvableApi.verifyProof(presentation.getImmutableProof(), document, PRESENTATION, presentation.getId(), verifyContext);
+    verifyReplay(presentation, verifyContext);
+  }
+
+
+  /**
+   * Verify the signature on a presentation, using the canonical form retained from the JSON it was parsed from if available. Does not verify the embedded
+   * credentials.
+   *
+   * @param parsed        the parsed presentation
+   * @param verifyContext the context for the signature verification
+   *
+   * @throws UnacceptableDocumentException if the document does not verify
+   * @throws DidStoreException             if the signing DID cannot be retrieved
+   */
+  public static void verify(ParsedDocument<Presentation> parsed, VerifyContext verifyContext) throws DidStoreException, UnacceptableDocumentException {
+    Presentation presentation = parsed.getDocument();
+    verifyType(presentation);
+    verifyBinding(presentation, verifyContext);
+    verifyContext.setProofPurpose(presentation.getProofPurpose());
+    ProvableApi.verifyProof(presentation.getImmutableProof(), parsed, PRESENTATION, presentation.getId(), verifyContext);
+    verifyReplay(presentation, verifyContext);
+  }
+
+
+  /**
+   * Resolve the verification method of a presentation's proof, so that the signature can be checked without fetching a DID.
+   *
+   * @param presentation  the presentation
+   * @param verifyContext the context for the signature verification
+   */
+  private static void resolveMethod(Presentation presentation, VerifyContext verifyContext) throws DidStoreException, UnacceptableDocumentException {
+    Proof proof = presentation.getImmutableProof();
+    // A missing proof is reported when the signature is checked
+    if (proof != null) {
+      verifyContext.resolveVerificationMethod(proof, presentation.getProofPurpose());
+    }
+  }
+
+
   /**
    * Verify the signature on a presentation. Does not verify the embedded credentials.
    *
@@ -82,14 +223,76 @@ public class PresentationApi {
    * @param verifyContext the context for the signature verification
    */
   private static void verifyProof(Presentation presentation, VerifyContext verifyContext) throws DidStoreException, UnacceptableDocumentException {
-    ProvableApi.verifyProof(presentation.getProof(), presentation, PRESENTATION, presentation.getId(), verifyContext);
+    verifyContext.setProofPurpose(presentation.getProofPurpose());
+    ProvableApi.verifyProof(presentation.getImmutableProof(), presentation, PRESENTATION, presentation.getId(), verifyContext);
+    verifyReplay(presentation, verifyContext);
+  }
+
+
+  /**
+   * Verify that the presentation's proof contains the challenge and domain required by the context. If the context has a replay cache, the proof must contain
+   * a challenge and have been created within the cache's window. This only inspects the proof, so it should be done before the signature is checked.
+   */
+  static void verifyBinding(Presentation presentation, VerifyContext verifyContext) throws UnacceptableDocumentException {
+    Proof proof = presentation.getImmutableProof();
+    if (proof == null) {
+      // Reported when the proof is verified
+      return;
+    }
+
+    String challenge = verifyContext.getChallenge();
+    if (challenge != null && !challenge.equals(proof.getChallenge())) {
+      throw new UnacceptableDocumentException("presentation_wrong_challenge", "Presentation proof does not contain the required challenge",
+          mapOf("id", presentation.getId(), "challenge", proof.getChallenge())
+      );
+    }
+    String domain = verifyContext.getDomain();
+    if (domain != null && !domain.equals(proof.getDomain())) {
+      throw new UnacceptableDocumentException("presentation_wrong_domain", "Presentation proof does not contain the required domain",
+          mapOf("id", presentation.getId(), "domain", proof.getDomain())
+      );
+    }
+
+    ReplayCache replayCache = verifyContext.getReplayCache();
+    if (replayCache != null) {
+      if (proof.getChallenge() == null) {
+        throw new UnacceptableDocumentException("presentation_no_challenge", "Presentation proof does not contain a challenge",
+            mapOf("id", presentation.getId())
+        );
+      }
+      Instant created = proof.getCreated();
+      if (created == null || !replayCache.isCurrent(created)) {
+        throw new UnacceptableDocumentException("presentation_proof_expired", "Presentation proof was not created recently enough to be checked for replay",
+            mapOf("id", presentation.getId(), "created", created)
+        );
+      }
+    }
+  }
+
+
+  /**
+   * Record the presentation's challenge as used, if the context has a replay cache. This must only be done after the signature has been checked.
+   */
+  static void verifyReplay(Presentation presentation, VerifyContext verifyContext) throws UnacceptableDocumentException {
+    ReplayCache replayCache = verifyContext.getReplayCache();
+    if (replayCache == null) {
+      return;
+    }
+    // The challenge and creation time were checked by verifyBinding
+    Proof proof = presentation.getImmutableProof();
+    String challenge = proof.getChallenge();
+    if (challenge == null || proof.getCreated() == null || !replayCache.register(challenge, proof.getCreated())) {
+      throw new UnacceptableDocumentException("presentation_replayed", "Presentation proof's challenge has already been used",
+          mapOf("id", presentation.getId(), "challenge", challenge)
+      );
+    }
   }
 
 
   /**
    * Verify that this credential correctly declares its type as "VerifiablePresentation" and has the W3C context.
    */
-  private static void verifyType(Presentation presentation) throws UnacceptableDocumentException {
+  static void verifyType(Presentation presentation) throws UnacceptableDocumentException {
     ProvableApi.verifyContext(presentation.getContext(), PRESENTATION, presentation.getId());
     ProvableApi.verifyType(presentation.getType(), PRESENTATION, presentation.getId(), CredentialConstants.VERIFIABLE_PRESENTATION_TYPE);
   }
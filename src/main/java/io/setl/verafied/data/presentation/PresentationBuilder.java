@@ -48,6 +48,8 @@ public final class PresentationBuilder {
 
   private Proof proof;
 
+  private List<Proof> proofSet = List.of();
+
   private Set<String> type = Set.of(CredentialConstants.VERIFIABLE_PRESENTATION_TYPE);
 
   private List<Credential> verifiableCredential = List.of();
@@ -68,6 +70,7 @@ public final class PresentationBuilder {
 
     // Set proof last
     presentation.setProof(proof);
+    presentation.setProofSet(proofSet);
 
     return presentation;
   }
@@ -98,6 +101,12 @@ public final class PresentationBuilder {
   }
 
 
+  public PresentationBuilder withProofSet(List<Proof> proofSet) {
+    this.proofSet = proofSet;
+    return this;
+  }
+
+
   public PresentationBuilder withType(Set<String> type) {
     this.type = type;
     return this;
@@ -0,0 +1,327 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+package io.setl.verafied.data.presentation;
+
+import static io.setl.verafied.CredentialConstants.logSafe;
+import static io.setl.verafied.UnacceptableDocumentException.mapOf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Signature;
+import java.util.Map.Entry;
+import javax.json.JsonObject;
+import javax.json.JsonValue;
+import javax.json.JsonWriter;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import io.setl.json.CJObject;
+import io.setl.verafied.CredentialConstants;
+import io.setl.verafied.UnacceptableDocumentException;
+import io.setl.verafied.data.JsonConvert;
+import io.setl.verafied.data.credential.Credential;
+import io.setl.verafied.did.DidStoreException;
+import io.setl.verafied.proof.CanonicalDocument;
+import io.setl.verafied.proof.CanonicalJsonWithJws;
+import io.setl.verafied.proof.VerifyContext;
+
+/**
+ * Incremental parsing and verification of presentations which carry too many credentials to hold in memory at once. Each embedded credential is parsed,
+ * passed to a handler and released in turn, whilst the presentation's canonical form is fed to the signature verifier as it is produced.
+ *
+ * <p>The canonical form places "verifiableCredential" after all the other members of a presentation. If the presentation's proof precedes its credentials,
+ * as it does in canonical form and as written by this library, the credentials are fed straight to the verifier. Otherwise, the canonical form of each
+ * credential is buffered until the proof is found. Though the parsed credentials are still released, this requires memory proportional to the size of the
+ * presentation.
+ *
+ * @author agent on 19/10/2026.
+ */
+public class PresentationParser {
+
+  /** Handler for the credentials in a presentation. */
+  @FunctionalInterface
+  public interface CredentialHandler {
+
+    /**
+     * Handle the next credential in a presentation. Note that the presentation's proof has not been verified when this is called.
+     *
+     * @param credential the credential
+     *
+     * @throws UnacceptableDocumentException if the credential is unacceptable, which also stops the parsing of the presentation
+     * @throws DidStoreException             if a DID required to verify the credential cannot be retrieved
+     */
+    void accept(Credential credential) throws DidStoreException, UnacceptableDocumentException;
+
+  }
+
+
+  /** The canonical form of a presentation, split around its credentials. */
+  private static class Frame {
+
+    /** The canonical bytes which precede the first credential. */
+    final byte[] prefix;
+
+    /** The canonical bytes which follow the last credential. */
+    final byte[] suffix;
+
+
+    Frame(Presentation presentation) {
+      CJObject before = new CJObject();
+      CJObject after = new CJObject();
+      for (Entry<String, JsonValue> e : ((JsonObject) JsonConvert.toJson(presentation)).entrySet()) {
+        String key = e.getKey();
+        if (!key.equals(VERIFIABLE_CREDENTIAL)) {
+          (key.compareTo(VERIFIABLE_CREDENTIAL) < 0 ? before : after).put(key, e.getValue());
+        }
+      }
+
+      // "{before," + "\"verifiableCredential\":["
+      byte[] bytes = CanonicalDocument.of(before).getBytes();
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      buffer.write(bytes, 0, bytes.length - 1);
+      if (!before.isEmpty()) {
+        buffer.write(',');
+      }
+      buffer.writeBytes(ARRAY_START);
+      prefix = buffer.toByteArray();
+
+      // "]" + ",after}"
+      bytes = CanonicalDocument.of(after).getBytes();
+      buffer.reset();
+      buffer.write(']');
+      if (!after.isEmpty()) {
+        buffer.write(',');
+        buffer.write(bytes, 1, bytes.length - 1);
+      } else {
+        buffer.write('}');
+      }
+      suffix = buffer.toByteArray();
+    }
+
+  }
+
+
+  /** State of a single parse. */
+  private static class Parse {
+
+    final VerifyContext context;
+
+    final CredentialHandler handler;
+
+    /** The members of the presentation other than its credentials. */
+    final CJObject header = new CJObject();
+
+    /** Buffer for the canonical credentials, if they precede the proof. */
+    ByteArrayOutputStream buffered;
+
+    /** Number of credentials processed. */
+    int count = 0;
+
+    /** The canonical form, once the proof is known. */
+    Frame frame;
+
+    /** The presentation, without its credentials, once the proof is known. */
+    Presentation presentation;
+
+    /** The signature verifier, once the proof is known. */
+    Signature signature;
+
+
+    Parse(VerifyContext context, CredentialHandler handler) {
+      this.context = context;
+      this.handler = handler;
+    }
+
+
+    void addCredential(Credential credential) throws DidStoreException, UnacceptableDocumentException {
+      byte[] bytes = canonical((JsonObject) JsonConvert.toJson(credential));
+      if (count > 0) {
+        update(COMMA);
+      }
+      update(bytes);
+      count++;
+      handler.accept(credential);
+    }
+
+
+    void finish() throws IOException, DidStoreException, UnacceptableDocumentException {
+      if (signature == null) {
+        start();
+        update(buffered.toByteArray());
+        buffered = null;
+      }
+      update(frame.suffix);
+      context.verify(signature);
+      PresentationApi.verifyReplay(presentation, context);
+    }
+
+
+    void start() throws IOException, DidStoreException, UnacceptableDocumentException {
+      presentation = JsonConvert.toInstance(header, Presentation.class);
+      PresentationApi.verifyType(presentation);
+      if (presentation.getImmutableProof() == null) {
+        String message = String.format("%s %s has not been proved", PRESENTATION, logSafe(String.valueOf(presentation.getId())));
+        throw new UnacceptableDocumentException("document_no_proof", message, mapOf(DOCUMENT_TYPE, PRESENTATION, "id", presentation.getId()));
+      }
+
+      PresentationApi.verifyBinding(presentation, context);
+
+      frame = new Frame(presentation);
+      context.setProofPurpose(presentation.getProofPurpose());
+      try {
+        signature = new CanonicalJsonWithJws().startVerify(context, presentation.getImmutableProof());
+      } catch (GeneralSecurityException e) {
+        throw proofError(e);
+      }
+      update(frame.prefix);
+    }
+
+
+    void update(byte[] bytes) throws UnacceptableDocumentException {
+      if (signature == null) {
+        buffered.writeBytes(bytes);
+        return;
+      }
+      try {
+        signature.update(bytes);
+      } catch (GeneralSecurityException e) {
+        throw proofError(e);
+      }
+    }
+
+
+    private UnacceptableDocumentException proofError(GeneralSecurityException e) {
+      Object id = header.containsKey("id") ? header.get("id") : null;
+      String message = String.format("%s %s proof did not verify", PRESENTATION, logSafe(String.valueOf(id)));
+      return new UnacceptableDocumentException(
+          "document_proof_error", message,
+          mapOf(DOCUMENT_TYPE, PRESENTATION, "id", id, "errorMessage", e.toString()), e
+      );
+    }
+
+  }
+
+
+
+  private static final byte[] ARRAY_START = "\"verifiableCredential\":[".getBytes(StandardCharsets.UTF_8);
+
+  private static final byte[] COMMA = {','};
+
+  private static final String DOCUMENT_TYPE = "documentType";
+
+  private static final String PRESENTATION = "Presentation";
+
+  private static final String PROOF = "proof";
+
+  private static final String PROOF_SET = "proofSet";
+
+  private static final String VERIFIABLE_CREDENTIAL = "verifiableCredential";
+
+
+  private static byte[] canonical(JsonObject json) {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    try (JsonWriter jsonWriter = CredentialConstants.JSON_PROVIDER.createWriter(buffer)) {
+      jsonWriter.write(new CJObject(json));
+    }
+    return buffer.toByteArray();
+  }
+
+
+  /**
+   * Parse and verify a presentation, passing each of its credentials to a handler as it is read. The credentials are not retained. The presentation's proof
+   * can only be verified once every credential has been read, so a handler should not act upon a credential until this method has returned normally.
+   *
+   * @param input   the UTF-8 encoded JSON of the presentation
+   * @param context the context for the signature verification
+   * @param handler the handler for the embedded credentials
+   *
+   * @return the verified presentation, without its credentials
+   *
+   * @throws IOException                   if the JSON is invalid or does not represent a presentation
+   * @throws UnacceptableDocumentException if the presentation does not verify, or the handler rejects a credential
+   * @throws DidStoreException             if a required DID cannot be retrieved
+   */
+  public static Presentation parse(InputStream input, VerifyContext context, CredentialHandler handler)
+      throws IOException, DidStoreException, UnacceptableDocumentException {
+    Parse parse = new Parse(context, handler);
+    ObjectReader valueReader = JsonConvert.getReader(JsonValue.class);
+    ObjectReader credentialReader = JsonConvert.getReader(Credential.class);
+    boolean seenCredentials = false;
+
+    try (JsonParser parser = JsonConvert.OBJECT_MAPPER.getFactory().createParser(input)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw JsonMappingException.from(parser, "Presentation must be a JSON object");
+      }
+
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.getCurrentName();
+        JsonToken token = parser.nextToken();
+
+        if (!VERIFIABLE_CREDENTIAL.equals(name)) {
+          if (parse.signature != null && !PROOF_SET.equals(name)) {
+            // The canonical form has already been fed to the verifier
+            throw new UnacceptableDocumentException("presentation_not_streamable", "Presentation member follows its credentials",
+                mapOf(DOCUMENT_TYPE, PRESENTATION, "id", parse.presentation.getId(), "member", name)
+            );
+          }
+          parse.header.put(name, (JsonValue) valueReader.readValue(parser));
+          continue;
+        }
+
+        if (token != JsonToken.START_ARRAY || seenCredentials) {
+          throw JsonMappingException.from(parser, "Presentation must contain a single array of credentials");
+        }
+        seenCredentials = true;
+        if (parse.header.containsKey(PROOF)) {
+          parse.start();
+        } else {
+          parse.buffered = new ByteArrayOutputStream();
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+          parse.addCredential(credentialReader.readValue(parser));
+        }
+        if (parser.currentToken() != JsonToken.END_ARRAY) {
+          throw JsonMappingException.from(parser, "Presentation's credentials must be JSON objects");
+        }
+      }
+    }
+
+    if (!seenCredentials) {
+      parse.buffered = new ByteArrayOutputStream();
+    }
+    parse.finish();
+
+    // Include any proof set that followed the credentials
+    return JsonConvert.toInstance(parse.header, Presentation.class);
+  }
+
+
+  private PresentationParser() {
+    // Hidden as this is a utility class
+  }
+
+}
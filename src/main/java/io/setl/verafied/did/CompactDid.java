@@ -0,0 +1,500 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+package io.setl.verafied.did;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Base64.Decoder;
+import java.util.Base64.Encoder;
+import java.util.List;
+
+import io.setl.verafied.data.jwk.PublicKeyJwk;
+import io.setl.verafied.data.jwk.PublicKeyJwkEc;
+import io.setl.verafied.data.jwk.PublicKeyJwkOkp;
+import io.setl.verafied.data.jwk.PublicKeyJwkRsa;
+
+/**
+ * A compact, immutable form of a DID document, for holding large numbers of documents in memory. Compared to a <code>DecentralizedIdentifier</code>:
+ *
+ * <ul>
+ *   <li>The DID and other shared strings are interned, and a verification method's ID is held as a fragment of the DID.</li>
+ *   <li>The verification relationships are held as indexes into the verification methods, rather than as URIs.</li>
+ *   <li>Public keys are held as raw bytes, rather than as Base64 strings.</li>
+ *   <li>Lists are held as arrays, and empty lists are shared.</li>
+ * </ul>
+ *
+ * <p>{@link #toDocument()} recreates an equal document. A verification method whose key cannot be reproduced exactly from its raw bytes is held in its
+ * original form.
+ *
+ * @author agent on 19/10/2026.
+ */
+public final class CompactDid {
+
+  /** The Base64 variants in which keys may be encoded. The first is the one this library produces. */
+  private static final Encoder[] ENCODERS = {
+      Base64.getUrlEncoder(),
+      Base64.getUrlEncoder().withoutPadding(),
+      Base64.getEncoder(),
+      Base64.getEncoder().withoutPadding()
+  };
+
+  /** The decoder for each encoder. */
+  private static final Decoder[] DECODERS = {Base64.getUrlDecoder(), Base64.getUrlDecoder(), Base64.getDecoder(), Base64.getDecoder()};
+
+  /** Key type code for an elliptic curve key. */
+  private static final byte KEY_EC = 1;
+
+  /** Key type code for an octet key pair. */
+  private static final byte KEY_OKP = 2;
+
+  /** Key type code for an RSA key. */
+  private static final byte KEY_RSA = 3;
+
+  /** Shared empty reference list. */
+  private static final int[] NO_REFERENCES = new int[0];
+
+  /** Shared empty string list. */
+  private static final String[] NO_STRINGS = new String[0];
+
+  /** The relationships, in the order of <code>KeyUsage</code>. */
+  private static final KeyUsage[] USAGES = KeyUsage.values();
+
+
+  /** A verification method. */
+  private static final class Method {
+
+    /** The controllers, or null if the only controller is the DID itself. */
+    final String[] controller;
+
+    /** The elliptic curve name, for EC and OKP keys. */
+    final String curve;
+
+    /** The Base64 variant of the key's components. */
+    final byte encoding;
+
+    /** The method ID's fragment, or the full ID if it is not a fragment of the DID. */
+    final String id;
+
+    /** True if the ID is a fragment of the DID. */
+    final boolean isFragment;
+
+    /** The key's first component: X for EC and OKP keys, the modulus for RSA keys. */
+    final byte[] keyA;
+
+    /** The key's second component: Y for EC keys, the exponent for RSA keys. */
+    final byte[] keyB;
+
+    /** The key ID, or null if it is the same as the method ID. */
+    final String keyId;
+
+    /** The key type, or zero if there is no key. */
+    final byte keyType;
+
+    /** The method in its original form, if it could not be compacted. */
+    final VerificationMethod original;
+
+    /** The method's type. */
+    final String type;
+
+    /** The key's use. */
+    final String use;
+
+
+    Method(String did, VerificationMethod method) {
+      String methodId = method.getId() != null ? method.getId().toString() : null;
+      isFragment = did != null && methodId != null && methodId.startsWith(did) && methodId.length() > did.length() && methodId.charAt(did.length()) == '#';
+      id = isFragment ? methodId.substring(did.length() + 1) : intern(methodId);
+      controller = compactController(did, method.getController());
+      type = intern(method.getType());
+
+      PublicKeyJwk jwk = method.getPublicKeyJwk();
+      String[] components;
+      if (jwk == null) {
+        keyType = 0;
+        curve = null;
+        components = NO_STRINGS;
+      } else if (jwk.getClass() == PublicKeyJwkEc.class) {
+        keyType = KEY_EC;
+        curve = intern(((PublicKeyJwkEc) jwk).getCurve());
+        components = new String[]{((PublicKeyJwkEc) jwk).getX(), ((PublicKeyJwkEc) jwk).getY()};
+      } else if (jwk.getClass() == PublicKeyJwkOkp.class) {
+        keyType = KEY_OKP;
+        curve = intern(((PublicKeyJwkOkp) jwk).getCurve());
+        components = new String[]{((PublicKeyJwkOkp) jwk).getX()};
+      } else if (jwk.getClass() == PublicKeyJwkRsa.class) {
+        keyType = KEY_RSA;
+        curve = null;
+        components = new String[]{((PublicKeyJwkRsa) jwk).getModulus(), ((PublicKeyJwkRsa) jwk).getExponent()};
+      } else {
+        keyType = -1;
+        curve = null;
+        components = null;
+      }
+
+      if (jwk != null) {
+        String kid = jwk.getKeyId() != null ? jwk.getKeyId().toString() : null;
+        keyId = (kid != null && kid.equals(methodId)) ? null : intern(kid);
+        use = intern(jwk.getUse());
+      } else {
+        keyId = null;
+        use = null;
+      }
+
+      int variant = components != null ? variant(components) : -1;
+      if (variant == -1) {
+        // The key cannot be reproduced from raw bytes
+        encoding = -1;
+        keyA = null;
+        keyB = null;
+        original = method;
+      } else {
+        encoding = (byte) variant;
+        keyA = components.length > 0 ? decode(variant, components[0]) : null;
+        keyB = components.length > 1 ? decode(variant, components[1]) : null;
+        original = null;
+      }
+    }
+
+
+    String getId(String did) {
+      return isFragment ? did + "#" + id : id;
+    }
+
+
+    boolean hasId(String did, String methodId) {
+      if (isFragment) {
+        return methodId.length() == did.length() + 1 + id.length() && methodId.startsWith(did) && methodId.charAt(did.length()) == '#'
+            && methodId.endsWith(id);
+      }
+      return methodId.equals(id);
+    }
+
+
+    VerificationMethod toMethod(String did) {
+      if (original != null) {
+        return original.copy();
+      }
+      String methodId = getId(did);
+      VerificationMethod method = new VerificationMethod();
+      method.setId(methodId != null ? URI.create(methodId) : null);
+      method.setController(expandController(did, controller));
+
+      if (keyType != 0) {
+        Encoder encoder = ENCODERS[encoding];
+        PublicKeyJwk jwk;
+        switch (keyType) {
+          case KEY_EC:
+            PublicKeyJwkEc ec = new PublicKeyJwkEc();
+            ec.setCurve(curve);
+            ec.setX(encode(encoder, keyA));
+            ec.setY(encode(encoder, keyB));
+            jwk = ec;
+            break;
+          case KEY_OKP:
+            PublicKeyJwkOkp okp = new PublicKeyJwkOkp();
+            okp.setCurve(curve);
+            okp.setX(encode(encoder, keyA));
+            jwk = okp;
+            break;
+          default:
+            PublicKeyJwkRsa rsa = new PublicKeyJwkRsa();
+            rsa.setModulus(encode(encoder, keyA));
+            rsa.setExponent(encode(encoder, keyB));
+            jwk = rsa;
+            break;
+        }
+        String kid = keyId != null ? keyId : methodId;
+        jwk.setKeyId(kid != null ? URI.create(kid) : null);
+        jwk.setUse(use);
+        method.setPublicKeyJwk(jwk);
+      }
+
+      // Setting the key also sets the type, so the type is set last
+      method.setType(type);
+      return method;
+    }
+
+  }
+
+
+  private static String[] compactController(String did, List<URI> controller) {
+    if (controller.size() == 1 && controller.get(0).toString().equals(did)) {
+      return null;
+    }
+    return toStrings(controller);
+  }
+
+
+  private static byte[] decode(int variant, String component) {
+    return component != null ? DECODERS[variant].decode(component) : null;
+  }
+
+
+  private static String encode(Encoder encoder, byte[] bytes) {
+    return bytes != null ? encoder.encodeToString(bytes) : null;
+  }
+
+
+  private static List<URI> expandController(String did, String[] controller) {
+    if (controller == null) {
+      return List.of(URI.create(did));
+    }
+    return toUris(controller);
+  }
+
+
+  private static String intern(String value) {
+    return value != null ? value.intern() : null;
+  }
+
+
+  /**
+   * Create the compact form of a document.
+   *
+   * @param document the document
+   *
+   * @return the compact form
+   */
+  public static CompactDid of(DecentralizedIdentifier document) {
+    return new CompactDid(document);
+  }
+
+
+  private static String[] toStrings(List<URI> uris) {
+    if (uris.isEmpty()) {
+      return NO_STRINGS;
+    }
+    String[] strings = new String[uris.size()];
+    for (int i = 0; i < strings.length; i++) {
+      strings[i] = intern(uris.get(i).toString());
+    }
+    return strings;
+  }
+
+
+  private static List<URI> toUris(String[] strings) {
+    List<URI> uris = new ArrayList<>(strings.length);
+    for (String s : strings) {
+      uris.add(URI.create(s));
+    }
+    return uris;
+  }
+
+
+  /**
+   * Find the Base64 variant which reproduces all the components exactly.
+   *
+   * @param components the components
+   *
+   * @return the index of the variant, or -1 if there is none
+   */
+  private static int variant(String[] components) {
+    for (int v = 0; v < ENCODERS.length; v++) {
+      if (isVariant(v, components)) {
+        return v;
+      }
+    }
+    return -1;
+  }
+
+
+  private static boolean isVariant(int v, String[] components) {
+    for (String component : components) {
+      if (component == null) {
+        continue;
+      }
+      try {
+        if (!ENCODERS[v].encodeToString(DECODERS[v].decode(component)).equals(component)) {
+          return false;
+        }
+      } catch (IllegalArgumentException e) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+
+  /** The controllers, or null if the only controller is the DID itself. */
+  private final String[] controller;
+
+  /** When the document was created. */
+  private final Instant created;
+
+  /** The references in the verification relationships which are not to this document's verification methods. */
+  private final String[] external;
+
+  /** The DID. */
+  private final String id;
+
+  /** The verification methods. */
+  private final Method[] methods;
+
+  /**
+   * The verification relationships, in the order of <code>KeyUsage</code>. A non-negative value is an index into the methods. A negative value
+   * <code>-(i+1)</code> is an index into the external references.
+   */
+  private final int[][] relationships;
+
+  /** When the document was updated. */
+  private final Instant updated;
+
+
+  private CompactDid(DecentralizedIdentifier document) {
+    id = intern(document.getId() != null ? document.getId().toString() : null);
+    created = document.getCreated();
+    updated = document.getUpdated();
+    controller = compactController(id, document.getController());
+
+    List<VerificationMethod> methodList = document.getVerificationMethod();
+    methods = new Method[methodList.size()];
+    for (int i = 0; i < methods.length; i++) {
+      methods[i] = new Method(id, methodList.get(i));
+    }
+
+    List<String> externalList = new ArrayList<>();
+    relationships = new int[USAGES.length][];
+    for (KeyUsage usage : USAGES) {
+      List<URI> references = getReferences(document, usage);
+      int[] indexes = references.isEmpty() ? NO_REFERENCES : new int[references.size()];
+      for (int i = 0; i < indexes.length; i++) {
+        String reference = references.get(i).toString();
+        int index = indexOf(reference);
+        if (index == -1) {
+          index = externalList.indexOf(reference);
+          if (index == -1) {
+            index = externalList.size();
+            externalList.add(intern(reference));
+          }
+          index = -(index + 1);
+        }
+        indexes[i] = index;
+      }
+      relationships[usage.ordinal()] = indexes;
+    }
+    external = externalList.isEmpty() ? NO_STRINGS : externalList.toArray(NO_STRINGS);
+  }
+
+
+  /**
+   * Find a verification method in this document, without recreating the whole document.
+   *
+   * @param methodId the method's ID
+   *
+   * @return the method, or null if it is not in this document
+   */
+  public VerificationMethod findVerificationMethod(URI methodId) {
+    int index = indexOf(methodId.toString());
+    return index != -1 ? methods[index].toMethod(id) : null;
+  }
+
+
+  public DidId getDidId() {
+    return id != null ? new DidId(URI.create(id)) : null;
+  }
+
+
+  /**
+   * Test if a verification method has a given relationship with this document's DID.
+   *
+   * @param usage    the relationship
+   * @param methodId the method's ID
+   *
+   * @return true if the method has the relationship
+   */
+  public boolean hasRelationship(KeyUsage usage, URI methodId) {
+    String reference = methodId.toString();
+    for (int index : relationships[usage.ordinal()]) {
+      String other = index >= 0 ? methods[index].getId(id) : external[-(index + 1)];
+      if (reference.equals(other)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+
+  /**
+   * Recreate the document.
+   *
+   * @return a new document, equal to the one this was created from
+   */
+  public DecentralizedIdentifier toDocument() {
+    DecentralizedIdentifier document = new DecentralizedIdentifier();
+    document.setId(id != null ? URI.create(id) : null);
+    document.setController(controller != null ? toUris(controller) : List.of(URI.create(id)));
+    document.setCreated(created);
+    if (updated != null) {
+      document.setUpdated(updated);
+    }
+
+    List<VerificationMethod> methodList = new ArrayList<>(methods.length);
+    for (Method m : methods) {
+      methodList.add(m.toMethod(id));
+    }
+    document.setVerificationMethod(methodList);
+
+    document.setAssertionMethod(toReferences(KeyUsage.ASSERTION));
+    document.setAuthentication(toReferences(KeyUsage.AUTHENTICATION));
+    document.setCapabilityDelegation(toReferences(KeyUsage.CAPABILITY_DELEGATION));
+    document.setCapabilityInvocation(toReferences(KeyUsage.CAPABILITY_INVOCATION));
+    return document;
+  }
+
+
+  private List<URI> getReferences(DecentralizedIdentifier document, KeyUsage usage) {
+    switch (usage) {
+      case ASSERTION:
+        return document.getAssertionMethod();
+      case AUTHENTICATION:
+        return document.getAuthentication();
+      case CAPABILITY_DELEGATION:
+        return document.getCapabilityDelegation();
+      case CAPABILITY_INVOCATION:
+        return document.getCapabilityInvocation();
+      default:
+        throw new IllegalArgumentException("Unknown key usage: " + usage);
+    }
+  }
+
+
+  private int indexOf(String methodId) {
+    for (int i = 0; i < methods.length; i++) {
+      if (methods[i].id != null && methods[i].hasId(id, methodId)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+
+  private List<URI> toReferences(KeyUsage usage) {
+    int[] indexes = relationships[usage.ordinal()];
+    List<URI> references = new ArrayList<>(indexes.length);
+    for (int index : indexes) {
+      references.add(URI.create(index >= 0 ? methods[index].getId(id) : external[-(index + 1)]));
+    }
+    return references;
+  }
+
+}
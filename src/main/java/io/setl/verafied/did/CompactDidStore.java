@@ -0,0 +1,58 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+package io.setl.verafied.did;
+
+/**
+ * A DID store which can supply the compact form of a document. Verification uses the compact form to recreate only the verification method it needs.
+ *
+ * @author agent on 19/10/2026.
+ */
+public interface CompactDidStore extends DidStore {
+
+  @Override
+  default DecentralizedIdentifier fetch(DidId didId) throws DidStoreException {
+    CompactDid compact = fetchCompact(didId);
+    return compact != null ? compact.toDocument() : null;
+  }
+
+
+  /**
+   * Fetch the compact form of a Decentralized Identifier document from storage. If the document cannot be found, return null.
+   *
+   * @param didId the document's ID
+   *
+   * @return the compact form, or null
+   *
+   * @throws DidStoreException if the storage mechanism fails
+   */
+  CompactDid fetchCompact(DidId didId) throws DidStoreException;
+
+
+  /**
+   * Can this store supply the compact form of a document? A store which forwards to another store can only do so if the other store can.
+   *
+   * @return true if {@link #fetchCompact(DidId)} is supported
+   */
+  default boolean isCompactAvailable() {
+    return true;
+  }
+
+}
@@ -0,0 +1,307 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+
+package io.setl.verafied.did;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import io.setl.verafied.BoundedCache;
+import io.setl.verafied.CredentialConstants;
+import io.setl.verafied.did.validate.DidUrlValidator;
+
+/**
+ * Resolves the chain of controllers of a DID. A DID's controllers are listed in its document's <code>controller</code> property, and each controller may in
+ * turn be controlled by other DIDs. A DID which is reachable by following these links controls the original DID.
+ *
+ * <p>Each level of the chain is fetched in parallel. A DID is only visited once, so cycles are harmless, and controllers more than the maximum depth away are
+ * not followed. Resolved chains are remembered for a fixed time, so repeated verifications do not repeat the fetches. When the maximum number of chains is
+ * remembered, the least recently used chain is forgotten. When registered with a {@link DidChangeBus}, a change to any document in a chain causes the chain
+ * to be resolved again. A chain which was being resolved when one of its documents changed is not remembered, as it may have been built from the old
+ * document.
+ *
+ * @author agent on 19/10/2026.
+ */
+public class ControllerResolver implements DidChangeListener {
+
+  /** A resolved chain. */
+  private static class Chain {
+
+    /** The controllers. */
+    final Set<DidId> controllers;
+
+    /** When the chain expires. */
+    final Instant expires;
+
+    /** The DIDs whose documents were fetched to resolve the chain. */
+    final Set<DidId> fetched;
+
+
+    Chain(Set<DidId> controllers, Set<DidId> fetched, Instant expires) {
+      this.controllers = controllers;
+      this.fetched = fetched;
+      this.expires = expires;
+    }
+
+  }
+
+
+  /** A resolution in progress. */
+  private static class Loading {
+
+    /** The DIDs whose documents have been, or are being, fetched. */
+    final Set<DidId> fetched = ConcurrentHashMap.newKeySet();
+
+    /** Has one of the fetched documents changed?. */
+    volatile boolean changed;
+
+  }
+
+
+  /** The resolved chains. */
+  private final BoundedCache<DidId, Chain> chains;
+
+  /** Executor for parallel fetches. */
+  private final Executor executor;
+
+  /** The resolutions in progress. */
+  private final Set<Loading> loading = ConcurrentHashMap.newKeySet();
+
+  /** The maximum depth of a chain. */
+  private final int maxDepth;
+
+  /** The store from which documents are fetched. */
+  private final DidStore store;
+
+  /** How long a resolved chain is remembered. */
+  private final Duration timeToLive;
+
+
+  /**
+   * New instance.
+   *
+   * @param store      the store from which documents are fetched
+   * @param maxDepth   the maximum number of links to follow from a DID to its controllers
+   * @param timeToLive how long a resolved chain is remembered
+   * @param maxSize    the maximum number of chains to remember
+   * @param executor   the executor for parallel fetches
+   */
+  public ControllerResolver(DidStore store, int maxDepth, Duration timeToLive, int maxSize, Executor executor) {
+    if (maxDepth < 1) {
+      throw new IllegalArgumentException("Maximum depth must be positive, not " + maxDepth);
+    }
+    if (timeToLive.isNegative() || timeToLive.isZero()) {
+      throw new IllegalArgumentException("Time to live must be positive, not " + timeToLive);
+    }
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("Maximum size must be positive, not " + maxSize);
+    }
+    this.store = Objects.requireNonNull(store);
+    this.executor = Objects.requireNonNull(executor);
+    this.maxDepth = maxDepth;
+    this.timeToLive = timeToLive;
+    chains = new BoundedCache<>(maxSize);
+  }
+
+
+  public DidStore getStore() {
+    return store;
+  }
+
+
+  /**
+   * Forget the resolved chain of a DID, and every chain which passes through it.
+   *
+   * @param didId the DID's ID
+   */
+  public void invalidate(DidId didId) {
+    DidId id = didId.withoutFragment();
+
+    // Mark resolutions in progress first, so that one which has already stored its chain will see the mark and remove it
+    for (Loading inProgress : loading) {
+      if (inProgress.fetched.contains(id)) {
+        inProgress.changed = true;
+      }
+    }
+    chains.removeIf(chain -> chain.fetched.contains(id));
+  }
+
+
+  /**
+   * Test if one DID controls another, either directly or through a chain of controllers.
+   *
+   * @param controller the possible controller
+   * @param didId      the controlled DID
+   *
+   * @return true if the controller is in the DID's chain of controllers
+   *
+   * @throws DidStoreException if a document in the chain could not be fetched
+   */
+  public boolean isController(DidId controller, DidId didId) throws DidStoreException {
+    return resolve(didId).contains(controller.withoutFragment());
+  }
+
+
+  @Override
+  public void onChange(DidChange change) {
+    invalidate(change.getDidId());
+  }
+
+
+  /**
+   * Resolve the chain of controllers of a DID. A DID which is not found has no controllers.
+   *
+   * @param didId the DID's ID
+   *
+   * @return the controllers, excluding the DID itself
+   *
+   * @throws DidStoreException if a document in the chain could not be fetched
+   */
+  public Set<DidId> resolve(DidId didId) throws DidStoreException {
+    DidId root = didId.withoutFragment();
+    Instant now = CredentialConstants.getClock().instant();
+    Chain chain = chains.get(root);
+    if (chain != null && now.isBefore(chain.expires)) {
+      return chain.controllers;
+    }
+
+    Loading inProgress = new Loading();
+    loading.add(inProgress);
+    try {
+      chain = load(root, now, inProgress.fetched);
+      chains.put(root, chain);
+      if (inProgress.changed) {
+        // A document changed after it was fetched, so the chain may be out of date
+        chains.remove(root, chain);
+      }
+    } finally {
+      loading.remove(inProgress);
+    }
+    return chain.controllers;
+  }
+
+
+  /**
+   * Get the number of remembered chains, including any which have expired but not yet been removed.
+   *
+   * @return the number of chains
+   */
+  public int size() {
+    return chains.size();
+  }
+
+
+  private CompletableFuture<DecentralizedIdentifier> fetchAsync(DidId didId) {
+    try {
+      return CompletableFuture.supplyAsync(() -> {
+        try {
+          return store.fetch(didId);
+        } catch (DidStoreException e) {
+          throw new CompletionException(e);
+        }
+      }, executor);
+    } catch (RejectedExecutionException e) {
+      // Fetch on this thread instead
+      CompletableFuture<DecentralizedIdentifier> future = new CompletableFuture<>();
+      try {
+        future.complete(store.fetch(didId));
+      } catch (DidStoreException | RuntimeException e2) {
+        future.completeExceptionally(e2);
+      }
+      return future;
+    }
+  }
+
+
+  private List<DecentralizedIdentifier> fetchAll(List<DidId> ids) throws DidStoreException {
+    if (ids.size() == 1) {
+      // Nothing to do in parallel
+      return Collections.singletonList(store.fetch(ids.get(0)));
+    }
+
+    List<CompletableFuture<DecentralizedIdentifier>> futures = new ArrayList<>(ids.size());
+    for (DidId id : ids) {
+      futures.add(fetchAsync(id));
+    }
+    List<DecentralizedIdentifier> documents = new ArrayList<>(ids.size());
+    for (CompletableFuture<DecentralizedIdentifier> future : futures) {
+      try {
+        documents.add(future.join());
+      } catch (CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof DidStoreException) {
+          throw (DidStoreException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        throw e;
+      }
+    }
+    return documents;
+  }
+
+
+  private Chain load(DidId root, Instant now, Set<DidId> fetched) throws DidStoreException {
+    Set<DidId> visited = new HashSet<>();
+    visited.add(root);
+    Set<DidId> controllers = new HashSet<>();
+    List<DidId> level = List.of(root);
+
+    for (int depth = 0; depth < maxDepth && !level.isEmpty(); depth++) {
+      // Recorded before fetching, so that a change published during the fetch is seen
+      fetched.addAll(level);
+      List<DidId> next = new ArrayList<>();
+      for (DecentralizedIdentifier document : fetchAll(level)) {
+        if (document == null) {
+          continue;
+        }
+        for (URI uri : document.getController()) {
+          if (!DidUrlValidator.isValid(uri)) {
+            // Not a DID, so it cannot be followed
+            continue;
+          }
+          DidId controller = new DidId(uri).withoutFragment();
+          if (visited.add(controller)) {
+            controllers.add(controller);
+            next.add(controller);
+          }
+        }
+      }
+      level = next;
+    }
+
+    return new Chain(Collections.unmodifiableSet(controllers), new HashSet<>(fetched), now.plus(timeToLive));
+  }
+
+}
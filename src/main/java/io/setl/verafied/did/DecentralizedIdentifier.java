@@ -25,7 +25,9 @@ import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.json.Json;
 import javax.json.JsonArray;
@@ -57,6 +59,13 @@ public class DecentralizedIdentifier {
   }
 
 
+  private static void indexUsage(Map<URI, Integer> index, List<URI> methods, KeyUsage usage) {
+    for (URI method : methods) {
+      index.merge(method, 1 << usage.ordinal(), (a, b) -> a | b);
+    }
+  }
+
+
   private static void removeMethod(List<URI> list, JsonPatchBuilder builder, String path, URI method) {
     int i = list.indexOf(method);
     if (i == -1) {
@@ -100,6 +109,12 @@ public class DecentralizedIdentifier {
   /** The time at which this identifier was updated. */
   private Instant updated;
 
+  /**
+   * Lazily initialised map of verification method to the bit set of its verification relationships, by ordinal of <code>KeyUsage</code>. Cleared after each
+   * change to the relationships, so that an index built concurrently from the old relationships is not kept.
+   */
+  private volatile Map<URI, Integer> usageIndex = null;
+
 
   /**
    * Add an assertion method to this.
@@ -109,6 +124,7 @@ public class DecentralizedIdentifier {
    */
   public void addAssertionMethod(JsonPatchBuilder builder, URI method) {
     addMethod(assertionMethod, builder, "/assertionMethod/-", method);
+    usageIndex = null;
   }
 
 
@@ -120,6 +136,7 @@ public class DecentralizedIdentifier {
    */
   public void addAuthentication(JsonPatchBuilder builder, URI method) {
     addMethod(authentication, builder, "/authentication/-", method);
+    usageIndex = null;
   }
 
 
@@ -131,6 +148,7 @@ public class DecentralizedIdentifier {
    */
   public void addCapabilityDelegation(JsonPatchBuilder builder, URI method) {
     addMethod(capabilityDelegation, builder, "/capabilityDelegation/-", method);
+    usageIndex = null;
   }
 
 
@@ -142,6 +160,7 @@ public class DecentralizedIdentifier {
    */
   public void addCapabilityInvocation(JsonPatchBuilder builder, URI method) {
     addMethod(capabilityInvocation, builder, "/capabilityInvocation/-", method);
+    usageIndex = null;
   }
 
 
@@ -303,6 +322,30 @@ public class DecentralizedIdentifier {
   }
 
 
+  /**
+   * Test if a verification method has a given relationship with this identifier, and hence may be used for the corresponding proof purpose. The
+   * relationships are indexed on first use, so the test does not scan the relationship lists.
+   *
+   * @param method the verification method's ID
+   * @param usage  the relationship
+   *
+   * @return true if the method has the relationship
+   */
+  public boolean hasUsage(URI method, KeyUsage usage) {
+    Map<URI, Integer> index = usageIndex;
+    if (index == null) {
+      index = new HashMap<>();
+      indexUsage(index, assertionMethod, KeyUsage.ASSERTION);
+      indexUsage(index, authentication, KeyUsage.AUTHENTICATION);
+      indexUsage(index, capabilityDelegation, KeyUsage.CAPABILITY_DELEGATION);
+      indexUsage(index, capabilityInvocation, KeyUsage.CAPABILITY_INVOCATION);
+      usageIndex = index;
+    }
+    Integer bits = index.get(method);
+    return bits != null && (bits & (1 << usage.ordinal())) != 0;
+  }
+
+
   /**
    * Remove an assertion method from this.
    *
@@ -311,6 +354,7 @@ public class DecentralizedIdentifier {
    */
   public void removeAssertionMethod(JsonPatchBuilder builder, URI method) {
     removeMethod(assertionMethod, builder, "/assertionMethod/", method);
+    usageIndex = null;
   }
 
 
@@ -322,6 +366,7 @@ public class DecentralizedIdentifier {
    */
   public void removeAuthentication(JsonPatchBuilder builder, URI method) {
     removeMethod(authentication, builder, "/authentication/", method);
+    usageIndex = null;
   }
 
 
@@ -333,6 +378,7 @@ public class DecentralizedIdentifier {
    */
   public void removeCapabilityDelegation(JsonPatchBuilder builder, URI method) {
     removeMethod(capabilityDelegation, builder, "/capabilityDelegation/", method);
+    usageIndex = null;
   }
 
 
@@ -344,6 +390,7 @@ public class DecentralizedIdentifier {
    */
   public void removeCapabilityInvocation(JsonPatchBuilder builder, URI method) {
     removeMethod(capabilityInvocation, builder, "/capabilityInvocation/", method);
+    usageIndex = null;
   }
 
 
@@ -389,24 +436,28 @@ public class DecentralizedIdentifier {
   public void setAssertionMethod(List<URI> assertionMethod) {
     this.assertionMethod.clear();
     this.assertionMethod.addAll(assertionMethod);
+    usageIndex = null;
   }
 
 
   public void setAuthentication(List<URI> authentication) {
     this.authentication.clear();
     this.authentication.addAll(authentication);
+    usageIndex = null;
   }
 
 
   public void setCapabilityDelegation(List<URI> capabilityDelegation) {
     this.capabilityDelegation.clear();
     this.capabilityDelegation.addAll(capabilityDelegation);
+    usageIndex = null;
   }
 
 
   public void setCapabilityInvocation(List<URI> capabilityInvocation) {
     this.capabilityInvocation.clear();
     this.capabilityInvocation.addAll(capabilityInvocation);
+    usageIndex = null;
   }
 
 
@@ -0,0 +1,225 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+
+package io.setl.verafied.did;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonPatch;
+import javax.json.JsonPatchBuilder;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import io.setl.verafied.data.JsonConvert;
+
+/**
+ * A change to a Decentralized Identifier document, described by the RFC 6902 JSON patch produced by the document's mutators. A cache may either apply the
+ * patch to its copy of the document, or use the verification methods it revokes to invalidate exactly the entries which depend on them.
+ *
+ * <p>A change without a patch indicates the document was replaced or deleted, so every cached use of it must be invalidated.
+ *
+ * @author agent on 19/10/2026.
+ */
+public class DidChange {
+
+  /** Paths of the members of the verification relationships lists. */
+  private static final Pattern RELATIONSHIP = Pattern.compile("/(assertionMethod|authentication|capabilityDelegation|capabilityInvocation)/\\d+");
+
+  /** Paths of verification method IDs. */
+  private static final Pattern METHOD_ID = Pattern.compile("/verificationMethod/\\d+/id");
+
+  /** Paths which affect the verification methods or relationships, including the whole document. */
+  private static final Pattern KEY_PATH = Pattern.compile(
+      "(/(verificationMethod|assertionMethod|authentication|"
+          + "capabilityDelegation|capabilityInvocation)(/.*)?)?"
+  );
+
+
+  /**
+   * Create a change from the patch built whilst updating a document.
+   *
+   * @param document the updated document
+   * @param builder  the builder passed to the document's mutators
+   *
+   * @return the change
+   */
+  public static DidChange of(DecentralizedIdentifier document, JsonPatchBuilder builder) {
+    return new DidChange(document.getDidId(), builder.build());
+  }
+
+
+  /** The changed DID, without a fragment. */
+  private final DidId didId;
+
+  /** The patch, or null if the document was replaced or deleted. */
+  private final JsonPatch patch;
+
+  /** The verification methods removed from the document or from any of its verification relationships. */
+  private final Set<URI> revokedMethods;
+
+  /** True if the revoked methods cannot be determined from the patch. */
+  private final boolean revokesAll;
+
+
+  /**
+   * New instance.
+   *
+   * @param didId the changed DID
+   * @param patch the patch to the DID's document, or null if the document was replaced or deleted
+   */
+  public DidChange(DidId didId, JsonPatch patch) {
+    this.didId = didId.getFragment() != null ? didId.withoutFragment() : didId;
+    this.patch = patch;
+
+    if (patch == null) {
+      revokedMethods = Set.of();
+      revokesAll = true;
+      return;
+    }
+
+    // The document's mutators always test a value before removing it, so the test identifies what was removed.
+    Set<URI> revoked = new HashSet<>();
+    boolean all = false;
+    String testPath = null;
+    JsonValue testValue = null;
+    for (JsonValue value : patch.toJsonArray()) {
+      JsonObject operation = value.asJsonObject();
+      String op = operation.getString("op", "");
+      String path = operation.getString("path", "");
+      switch (op) {
+        case "test":
+          testPath = path;
+          testValue = operation.get("value");
+          continue;
+        case "remove":
+          if (testValue instanceof JsonString && (
+              (RELATIONSHIP.matcher(path).matches() && path.equals(testPath))
+                  || (METHOD_ID.matcher(testPath).matches() && testPath.equals(path + "/id")))) {
+            revoked.add(URI.create(((JsonString) testValue).getString()));
+          } else if (KEY_PATH.matcher(path).matches()) {
+            all = true;
+          }
+          break;
+        case "add":
+          // Adding a method or relationship does not revoke anything, but adding the whole document replaces it
+          all |= path.isEmpty();
+          break;
+        default:
+          if (KEY_PATH.matcher(path).matches() || (operation.containsKey("from") && KEY_PATH.matcher(operation.getString("from", "")).matches())) {
+            all = true;
+          }
+          break;
+      }
+      testPath = null;
+      testValue = null;
+    }
+    revokedMethods = Collections.unmodifiableSet(revoked);
+    revokesAll = all;
+  }
+
+
+  /**
+   * Apply this change to a copy of the document. The original document is not modified.
+   *
+   * @param document the document before the change
+   *
+   * @return the document after the change
+   *
+   * @throws IllegalStateException if this change has no patch
+   * @throws JsonException         if the patch cannot be applied to the document
+   */
+  public DecentralizedIdentifier apply(DecentralizedIdentifier document) {
+    if (patch == null) {
+      throw new IllegalStateException("Document was replaced, so no patch is available");
+    }
+    try {
+      return JsonConvert.toInstance(patch.apply((JsonObject) JsonConvert.toJson(document)), DecentralizedIdentifier.class);
+    } catch (JsonProcessingException e) {
+      throw new JsonException("Patched document is not valid", e);
+    }
+  }
+
+
+  public DidId getDidId() {
+    return didId;
+  }
+
+
+  public JsonPatch getPatch() {
+    return patch;
+  }
+
+
+  /**
+   * Get the verification methods which this change removes from the document or from any of its verification relationships. Any proof verified using one of
+   * these methods may no longer be valid.
+   *
+   * @return the revoked methods
+   */
+  public Set<URI> getRevokedMethods() {
+    return revokedMethods;
+  }
+
+
+  /**
+   * Is this a replacement of the document?.
+   *
+   * @return true if there is no patch
+   */
+  public boolean isReplacement() {
+    return patch == null;
+  }
+
+
+  /**
+   * Test if a verification method may be revoked by this change.
+   *
+   * @param method the verification method
+   *
+   * @return true if the method is revoked, or this change affects the document's verification methods in a way which cannot be analysed precisely
+   */
+  public boolean isRevoked(URI method) {
+    if (revokesAll) {
+      return method == null || Objects.equals(new DidId(method).withoutFragment(), didId);
+    }
+    return revokedMethods.contains(method);
+  }
+
+
+  /**
+   * Does this change revoke all the document's verification methods? This is so if the document was replaced, or it was patched in a way which cannot be
+   * analysed precisely.
+   *
+   * @return true if every verification method should be considered revoked
+   */
+  public boolean revokesAll() {
+    return revokesAll;
+  }
+
+}
@@ -0,0 +1,83 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+
+package io.setl.verafied.did;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Distributes changes to Decentralized Identifier documents to the caches which depend on them. Changes are delivered synchronously, so when
+ * {@link #publish(DidChange)} returns, every cache has applied the change. In particular, a removed key can no longer be used to verify a document.
+ *
+ * @author agent on 19/10/2026.
+ */
+public class DidChangeBus {
+
+  /** The registered listeners. */
+  private final List<DidChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+
+  /**
+   * Register a listener. A listener which is registered more than once receives each change more than once.
+   *
+   * @param listener the listener
+   */
+  public void addListener(DidChangeListener listener) {
+    listeners.add(listener);
+  }
+
+
+  /**
+   * Publish a change to all the registered listeners. If a listener fails, the change is still delivered to the other listeners and the first failure is
+   * then thrown.
+   *
+   * @param change the change
+   */
+  public void publish(DidChange change) {
+    RuntimeException failure = null;
+    for (DidChangeListener listener : listeners) {
+      try {
+        listener.onChange(change);
+      } catch (RuntimeException e) {
+        if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+
+  /**
+   * Remove a listener.
+   *
+   * @param listener the listener
+   */
+  public void removeListener(DidChangeListener listener) {
+    listeners.remove(listener);
+  }
+
+}
@@ -0,0 +1,39 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+
+package io.setl.verafied.did;
+
+/**
+ * A listener for changes to Decentralized Identifier documents.
+ *
+ * @author agent on 19/10/2026.
+ */
+@FunctionalInterface
+public interface DidChangeListener {
+
+  /**
+   * Notification that a document has changed. This is invoked on the publisher's thread, so it should return promptly.
+   *
+   * @param change the change
+   */
+  void onChange(DidChange change);
+
+}
@@ -0,0 +1,620 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+package io.setl.verafied.did;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import io.setl.verafied.data.JsonConvert;
+
+/**
+ * A reference DID store which persists the history of every document as an append-only log of events. A new or replaced document is logged in full, and a
+ * change is logged as the JSON patch produced by the document's mutators, so a change costs storage in proportion to its size rather than to the size of
+ * the document.
+ *
+ * <p>Every so many events, the current state of all documents is written to a snapshot, which records how much of the log it includes. On opening, the
+ * snapshot is loaded and only the remainder of the log is replayed. The log and the snapshot are read through memory-mapped windows, as they are only ever
+ * read sequentially.
+ *
+ * <p>The snapshot is written in the background, directly from the live documents, so writes are not held up whilst it is written. Each document records the
+ * position in the log of the event which produced it, so when the log is replayed over the snapshot, the events which the snapshot already includes are
+ * skipped.
+ *
+ * <p>Each record in the log and snapshot is a length, a CRC-32 checksum and a UTF-8 JSON object, of at most 64 MiB. An event or document which would not fit
+ * in a record is rejected before it is logged. A record at the end of the log which is incomplete or fails its checksum is the result of an interrupted
+ * write, and is discarded. An invalid record elsewhere means the log is corrupt, and the store cannot be opened. The log is not forced to disk after every
+ * write, so the most recent events may be lost if the operating system fails, but not if only this process does.
+ *
+ * <p>Writes are serialised. Reads do not block and see the state after the most recent completed write. As documents are held as JSON,
+ * {@link #fetchRaw(DidId)} supplies the JSON without creating the whole document.
+ *
+ * @author agent on 19/10/2026.
+ */
+public class EventSourcedDidStore implements RawDidStore, Closeable {
+
+  /** A document's JSON, and the position in the log of the event which produced it. */
+  private static class Version {
+
+    /** The document's JSON. */
+    final JsonObject json;
+
+    /** The position of the event. */
+    final long position;
+
+
+    Version(JsonObject json, long position) {
+      this.json = json;
+      this.position = position;
+    }
+
+  }
+
+
+  /** Allowance for the ID and position which accompany a document in a snapshot record. */
+  private static final int ENTRY_OVERHEAD = 64;
+
+  /** Name of the log file. */
+  private static final String LOG_FILE = "did.log";
+
+  /** Size of the record header: the length and the checksum. */
+  private static final int RECORD_HEADER = 8;
+
+  /** Name of the snapshot file. */
+  private static final String SNAPSHOT_FILE = "did.snapshot";
+
+  /** Size of the snapshot header: the positions in the log at which the snapshot was started and finished. */
+  private static final int SNAPSHOT_HEADER = 16;
+
+  /** Size of the memory-mapped window through which the log is read. */
+  private static final int WINDOW = 64 * 1024 * 1024;
+
+  /** Maximum size of a single record, which must fit in a window. */
+  private static final int MAX_RECORD = WINDOW - RECORD_HEADER;
+
+
+  /**
+   * Check that a document will fit in a snapshot record, so that a snapshot can always be written.
+   */
+  private static void checkSize(DidId id, JsonObject json) throws IOException {
+    long size = json.toString().getBytes(UTF_8).length + id.getUri().toString().getBytes(UTF_8).length + ENTRY_OVERHEAD;
+    if (size > MAX_RECORD) {
+      throw new IOException("Document for " + id + " exceeds the maximum record size of " + MAX_RECORD);
+    }
+  }
+
+
+  private static JsonObject decode(ByteBuffer buffer, int length) throws IOException {
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    try (JsonReader reader = Json.createReader(new StringReader(new String(bytes, UTF_8)))) {
+      return reader.readObject();
+    } catch (JsonException e) {
+      throw new IOException("Invalid record", e);
+    }
+  }
+
+
+  private static ByteBuffer encode(JsonObject event) throws IOException {
+    byte[] bytes = event.toString().getBytes(UTF_8);
+    if (bytes.length > MAX_RECORD) {
+      // A larger record could not be read back
+      throw new IOException("Record of " + bytes.length + " bytes exceeds the maximum of " + MAX_RECORD);
+    }
+    CRC32 crc = new CRC32();
+    crc.update(bytes);
+    ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER + bytes.length);
+    buffer.putInt(bytes.length).putInt((int) crc.getValue()).put(bytes).flip();
+    return buffer;
+  }
+
+
+  /**
+   * Read the next record from a buffer, if it is complete and valid.
+   *
+   * @param buffer the buffer, positioned at the start of a record
+   *
+   * @return the record, or null if the record is incomplete or invalid. If null, the buffer's position is unchanged.
+   */
+  private static JsonObject readRecord(ByteBuffer buffer) throws IOException {
+    if (buffer.remaining() < RECORD_HEADER) {
+      return null;
+    }
+    int start = buffer.position();
+    int length = buffer.getInt(start);
+    int checksum = buffer.getInt(start + 4);
+    // The smallest valid record is "{}"
+    if (length < 2 || length > MAX_RECORD || buffer.remaining() - RECORD_HEADER < length) {
+      return null;
+    }
+
+    ByteBuffer payload = buffer.duplicate();
+    payload.position(start + RECORD_HEADER).limit(start + RECORD_HEADER + length);
+    CRC32 crc = new CRC32();
+    crc.update(payload);
+    if ((int) crc.getValue() != checksum) {
+      return null;
+    }
+
+    buffer.position(start + RECORD_HEADER);
+    return decode(buffer, length);
+  }
+
+
+  /** The current version of every document. */
+  private final ConcurrentMap<DidId, Version> documents = new ConcurrentHashMap<>();
+
+  /** The directory holding the log and snapshot. */
+  private final Path directory;
+
+  /** Executor for background snapshots. */
+  private final Executor executor;
+
+  /** The log, open for appending. */
+  private final FileChannel log;
+
+  /** Lock which serialises the writing of snapshots. */
+  private final Object snapshotLock = new Object();
+
+  /** Is a background snapshot scheduled or in progress?. */
+  private final AtomicBoolean snapshotPending = new AtomicBoolean();
+
+  /** Number of events after which a snapshot is taken. */
+  private final int snapshotInterval;
+
+  /** Position in the log before which every event has been applied to the documents. */
+  private volatile long appliedPosition;
+
+  /** Position in the log after the most recently written event. */
+  private volatile long loggedPosition;
+
+  /** Position in the log included in the most recent snapshot. Guarded by the snapshot lock. */
+  private long snapshotPosition;
+
+  /** Number of events logged since the last snapshot was started. */
+  private int sinceSnapshot;
+
+
+  /**
+   * Open or create a store.
+   *
+   * @param directory        the directory holding the log and snapshot
+   * @param snapshotInterval the number of events after which a new snapshot is taken
+   * @param executor         the executor for background snapshots
+   *
+   * @throws IOException if the store cannot be read
+   */
+  public EventSourcedDidStore(Path directory, int snapshotInterval, Executor executor) throws IOException {
+    if (snapshotInterval < 1) {
+      throw new IllegalArgumentException("Snapshot interval must be positive, not " + snapshotInterval);
+    }
+    this.directory = directory;
+    this.snapshotInterval = snapshotInterval;
+    this.executor = Objects.requireNonNull(executor);
+    Files.createDirectories(directory);
+
+    long[] header = readSnapshot();
+    snapshotPosition = header[0];
+    log = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    long end = replay(header[0], header[1]);
+    if (end < log.size()) {
+      // Discard an interrupted write
+      log.truncate(end);
+    }
+    log.position(end);
+    appliedPosition = end;
+    loggedPosition = end;
+  }
+
+
+  @Override
+  public synchronized void close() throws IOException {
+    // A background snapshot cannot force the log once it is closed
+    log.force(false);
+    log.close();
+  }
+
+
+  /**
+   * Remove a document.
+   *
+   * @param didId the document's ID
+   *
+   * @throws IOException if the event cannot be logged
+   */
+  public synchronized void delete(DidId didId) throws IOException {
+    DidId id = didId.withoutFragment();
+    if (!documents.containsKey(id)) {
+      return;
+    }
+    append(Json.createObjectBuilder().add("op", "delete").add("id", id.getUri().toString()).build());
+    documents.remove(id);
+    logged();
+  }
+
+
+  @Override
+  public DecentralizedIdentifier fetch(DidId didId) throws DidStoreException {
+    Version version = documents.get(didId);
+    if (version == null) {
+      return null;
+    }
+    try {
+      return JsonConvert.toInstance(version.json, DecentralizedIdentifier.class);
+    } catch (JsonProcessingException e) {
+      throw new DidStoreException("Stored document for " + didId + " is invalid", e);
+    }
+  }
+
+
+  @Override
+  public byte[] fetchRaw(DidId didId) {
+    Version version = documents.get(didId);
+    return version != null ? version.json.toString().getBytes(UTF_8) : null;
+  }
+
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+
+  /**
+   * Create or replace a document.
+   *
+   * @param document the document
+   *
+   * @throws IOException if the event cannot be logged, or the document is too large to be logged
+   */
+  public synchronized void put(DecentralizedIdentifier document) throws IOException {
+    DidId id = document.getDidId();
+    JsonObject json = (JsonObject) JsonConvert.toJson(document);
+    checkSize(id, json);
+    long position = log.position();
+    append(Json.createObjectBuilder().add("op", "put").add("id", id.getUri().toString()).add("value", json).build());
+    documents.put(id, new Version(json, position));
+    logged();
+  }
+
+
+  /**
+   * Get the number of documents held.
+   *
+   * @return the number of documents
+   */
+  public int size() {
+    return documents.size();
+  }
+
+
+  /**
+   * Write a snapshot of the current state, so that the log need only be replayed from this point when the store is next opened. The snapshot is written on
+   * the calling thread, and writes may continue whilst it is written.
+   *
+   * @throws IOException if the snapshot cannot be written
+   */
+  public void snapshot() throws IOException {
+    writeSnapshot(appliedPosition);
+  }
+
+
+  /**
+   * Apply a change to a document. If the change is a replacement, the document must be provided with {@link #put(DecentralizedIdentifier)} instead.
+   *
+   * @param change the change
+   *
+   * @return the changed document
+   *
+   * @throws DidStoreException if the document does not exist, or the change cannot be applied to it
+   * @throws IOException       if the event cannot be logged, or the changed document is too large to be logged
+   */
+  public synchronized DecentralizedIdentifier update(DidChange change) throws DidStoreException, IOException {
+    if (change.isReplacement()) {
+      throw new IllegalArgumentException("A replacement must be stored as a complete document");
+    }
+    DidId id = change.getDidId();
+    Version version = documents.get(id);
+    if (version == null) {
+      throw new DidStoreException("Document for " + id + " does not exist");
+    }
+
+    JsonObject patched;
+    DecentralizedIdentifier document;
+    try {
+      patched = change.getPatch().apply(version.json);
+      document = JsonConvert.toInstance(patched, DecentralizedIdentifier.class);
+    } catch (JsonException | JsonProcessingException e) {
+      throw new DidStoreException("Change cannot be applied to " + id, e);
+    }
+
+    checkSize(id, patched);
+    long position = log.position();
+    append(Json.createObjectBuilder().add("op", "patch").add("id", id.getUri().toString()).add("value", change.getPatch().toJsonArray()).build());
+    documents.put(id, new Version(patched, position));
+    logged();
+    return document;
+  }
+
+
+  private void append(JsonObject event) throws IOException {
+    // The size is checked before anything is written, so an oversized event is never acknowledged
+    writeFully(log, encode(event));
+    loggedPosition = log.position();
+  }
+
+
+  /**
+   * Apply an event from the log.
+   *
+   * @param event      the event
+   * @param position   the event's position in the log
+   * @param overlapEnd the position in the log at which the snapshot was finished. Events before this may already be included in the snapshot.
+   */
+  private void apply(JsonObject event, long position, long overlapEnd) throws IOException {
+    DidId id = new DidId(URI.create(event.getString("id")));
+    Version current = documents.get(id);
+    if (current != null && position <= current.position) {
+      // The snapshot already includes this event
+      return;
+    }
+
+    JsonValue value = event.get("value");
+    switch (event.getString("op")) {
+      case "put":
+        documents.put(id, new Version(value.asJsonObject(), position));
+        break;
+      case "patch":
+        if (current == null) {
+          if (position < overlapEnd) {
+            // The document was deleted whilst the snapshot was written, and the deletion follows
+            break;
+          }
+          throw new IOException("Log patches missing document " + id);
+        }
+        documents.put(id, new Version(Json.createPatch(value.asJsonArray()).apply(current.json), position));
+        break;
+      case "delete":
+        documents.remove(id);
+        break;
+      default:
+        throw new IOException("Unknown event type: " + event.getString("op"));
+    }
+  }
+
+
+  /**
+   * Record that an event has been logged and applied, and start a background snapshot if one is due.
+   */
+  private void logged() {
+    appliedPosition = loggedPosition;
+    sinceSnapshot++;
+    if (sinceSnapshot < snapshotInterval || !snapshotPending.compareAndSet(false, true)) {
+      // Not due, or the previous snapshot is still being written
+      return;
+    }
+    long position = appliedPosition;
+    sinceSnapshot = 0;
+    try {
+      executor.execute(() -> {
+        try {
+          writeSnapshot(position);
+        } catch (IOException e) {
+          // The event is logged, so a failed snapshot only lengthens the replay. It will be retried after the next interval.
+        } finally {
+          snapshotPending.set(false);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      snapshotPending.set(false);
+    }
+  }
+
+
+  /**
+   * Load the snapshot, if there is one.
+   *
+   * @return the positions in the log at which the snapshot was started and finished
+   */
+  private long[] readSnapshot() throws IOException {
+    Path path = directory.resolve(SNAPSHOT_FILE);
+    if (!Files.exists(path)) {
+      return new long[2];
+    }
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < SNAPSHOT_HEADER) {
+        throw new IOException("Snapshot is corrupt as it has no header");
+      }
+      ByteBuffer header = channel.map(MapMode.READ_ONLY, 0, SNAPSHOT_HEADER);
+      long[] positions = {header.getLong(), header.getLong()};
+
+      // As with the log, every valid record fits in a window
+      long offset = SNAPSHOT_HEADER;
+      while (offset < size) {
+        MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, offset, Math.min(size - offset, WINDOW));
+        JsonObject entry;
+        while ((entry = readRecord(buffer)) != null) {
+          Version version = new Version(entry.getJsonObject("value"), entry.getJsonNumber("position").longValue());
+          documents.put(new DidId(URI.create(entry.getString("id"))), version);
+        }
+        if (buffer.position() == 0) {
+          // The snapshot was written to a temporary file and moved into place, so it cannot be incomplete
+          throw new IOException("Snapshot is corrupt at offset " + offset);
+        }
+        offset += buffer.position();
+      }
+      return positions;
+    }
+  }
+
+
+  /**
+   * Replay the log from a given position.
+   *
+   * @param start      the position to start from
+   * @param overlapEnd the position at which the snapshot was finished
+   *
+   * @return the position after the last valid record
+   */
+  private long replay(long start, long overlapEnd) throws IOException {
+    long size = log.size();
+    long position = start;
+    while (position < size) {
+      long windowSize = Math.min(size - position, WINDOW);
+      MappedByteBuffer buffer = log.map(MapMode.READ_ONLY, position, windowSize);
+      int consumed = 0;
+      JsonObject event;
+      while ((event = readRecord(buffer)) != null) {
+        try {
+          apply(event, position + consumed, overlapEnd);
+        } catch (JsonException e) {
+          throw new IOException("Log cannot be replayed at offset " + (position + consumed), e);
+        }
+        consumed = buffer.position();
+      }
+      if (consumed == 0) {
+        // The record at this position is incomplete or invalid. This is only acceptable at the end of the log.
+        checkTail(buffer, position);
+        break;
+      }
+      position += consumed;
+    }
+    return position;
+  }
+
+
+  /**
+   * Check that an invalid record is the result of an interrupted write. Such a record extends to the end of the log, or is followed only by zeros.
+   *
+   * @param buffer   the window containing the record, positioned at its start
+   * @param position the record's position in the log
+   *
+   * @throws IOException if the record is followed by other data
+   */
+  private void checkTail(ByteBuffer buffer, long position) throws IOException {
+    long size = log.size();
+    if (buffer.remaining() < RECORD_HEADER) {
+      // An incomplete header, which is always at the end of the log
+      return;
+    }
+    long end = position + RECORD_HEADER + (buffer.getInt(buffer.position()) & 0xffffffffL);
+    if (end >= size) {
+      // The record was not completely written
+      return;
+    }
+
+    // Some file systems extend a file with zeros before the data is written
+    ByteBuffer rest = buffer.duplicate();
+    while (rest.hasRemaining()) {
+      if (rest.get() != 0) {
+        throw new IOException("Log is corrupt at offset " + position);
+      }
+    }
+    if (position + buffer.remaining() < size) {
+      throw new IOException("Log is corrupt at offset " + position);
+    }
+  }
+
+
+  /**
+   * Write a snapshot. Every event before the start position has been applied to the documents. Events after it may be applied whilst the snapshot is
+   * written, and are included or not according to when each document is reached.
+   *
+   * @param start the position in the log from which replay must start
+   */
+  private void writeSnapshot(long start) throws IOException {
+    synchronized (snapshotLock) {
+      if (start <= snapshotPosition) {
+        // A snapshot which includes at least as much of the log has already been written
+        return;
+      }
+
+      Path temp = Files.createTempFile(directory, "snapshot", ".tmp");
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+        // The header is written last, when the end of the overlap with the log is known
+        channel.position(SNAPSHOT_HEADER);
+        for (Map.Entry<DidId, Version> e : documents.entrySet()) {
+          Version version = e.getValue();
+          writeFully(channel, encode(Json.createObjectBuilder()
+              .add("id", e.getKey().getUri().toString())
+              .add("position", version.position)
+              .add("value", version.json)
+              .build()));
+        }
+
+        // Every event included is before this position, and must not be lost from the log
+        long end = loggedPosition;
+        try {
+          log.force(false);
+        } catch (ClosedChannelException e) {
+          // The log was forced when it was closed
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER).putLong(start).putLong(end);
+        header.flip();
+        while (header.hasRemaining()) {
+          channel.write(header, header.position());
+        }
+        channel.force(true);
+      } catch (IOException e) {
+        Files.deleteIfExists(temp);
+        throw e;
+      }
+      Files.move(temp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      snapshotPosition = start;
+    }
+  }
+
+
+  private void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+}
@@ -0,0 +1,331 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+package io.setl.verafied.did;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import io.setl.verafied.BoundedCache;
+import io.setl.verafied.CredentialConstants;
+
+/**
+ * A DID store which protects another store from floods of lookups for DIDs that do not exist. Such lookups are typically the most expensive kind, as the
+ * backing store cannot answer them from a cache. Three controls are applied:
+ *
+ * <ol>
+ *   <li>A DID which was not found is remembered, and further lookups of it are answered without consulting the backing store. When the maximum number of
+ *   such DIDs is remembered, the least recently used is forgotten.</li>
+ *   <li>Each DID method has a token bucket. A token is only taken when a lookup finds that a DID does not exist, so the bucket is only drained by lookups of
+ *   DIDs which do not exist. When the bucket is empty, lookups for that method are rejected until it refills, except for DIDs which were recently found.
+ *   Hence a flood of lookups for DIDs which do not exist does not prevent the use of DIDs which do.</li>
+ *   <li>The number of concurrent lookups in the backing store is capped. A lookup which cannot start within the allowed wait is rejected.</li>
+ * </ol>
+ *
+ * <p>A DID which was not found is forgotten when a change to it is published, as the change indicates it now exists.
+ *
+ * <p>If the backing store can supply the compact form or the original JSON of a document, so can this store, subject to the same controls.
+ *
+ * <p>A rejected lookup throws a <code>DidStoreException</code>, so the document being verified is treated as not verifiable at this time, rather than as
+ * invalid.
+ *
+ * @author agent on 19/10/2026.
+ */
+public class GuardedDidStore implements CompactDidStore, RawDidStore, DidChangeListener {
+
+  /** A token bucket. */
+  private static class Bucket {
+
+    /** Maximum number of tokens. */
+    private final double capacity;
+
+    /** Tokens added per millisecond. */
+    private final double rate;
+
+    /** Time in milliseconds at which tokens were last added. */
+    private long lastRefill;
+
+    /** Number of tokens currently available. */
+    private double tokens;
+
+
+    Bucket(double capacity, double rate, long now) {
+      this.capacity = capacity;
+      this.rate = rate;
+      tokens = capacity;
+      lastRefill = now;
+    }
+
+
+    synchronized void charge() {
+      // Concurrent misses may overdraw the bucket, and the debt is repaid as it refills
+      tokens--;
+    }
+
+
+    synchronized boolean hasToken(long now) {
+      if (now > lastRefill) {
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * rate);
+        lastRefill = now;
+      }
+      return tokens >= 1;
+    }
+
+  }
+
+
+  /** A lookup in the backing store. */
+  private interface Lookup<T> {
+
+    T fetch(DidId didId) throws DidStoreException;
+
+  }
+
+
+  /** Maximum number of DID methods with their own bucket. Methods seen after this many share a bucket, so random method names cannot exhaust memory. */
+  private static final int MAX_METHODS = 64;
+
+
+  /** The backing store. */
+  private final DidStore backing;
+
+  /** Token buckets by DID method. */
+  private final ConcurrentMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+  /** Permits for concurrent lookups in the backing store. */
+  private final Semaphore fetchPermits;
+
+  /** Maximum time to wait for a lookup to start. */
+  private final Duration fetchWait;
+
+  /** Map of DIDs which were recently found to when that result expires. */
+  private final BoundedCache<DidId, Instant> found;
+
+  /** Maximum number of tokens in each bucket. */
+  private final int missBurst;
+
+  /** Tokens added to each bucket per second. */
+  private final double missRate;
+
+  /** Map of DIDs which were not found to when that result expires. */
+  private final BoundedCache<DidId, Instant> negatives;
+
+  /** How long a DID which was, or was not, found is remembered. */
+  private final Duration negativeTimeToLive;
+
+  /** The bucket shared by methods once the limit on distinct methods is reached. */
+  private final Bucket overflow;
+
+
+  /**
+   * New instance.
+   *
+   * @param backing              the backing store
+   * @param negativeTimeToLive   how long a DID which was, or was not, found is remembered
+   * @param negativeMaxSize      the maximum number of DIDs which were not found to remember, and of DIDs which were found
+   * @param missRate             the sustained rate per second of lookups for DIDs which do not exist allowed for each DID method
+   * @param missBurst            the maximum number of lookups for DIDs which do not exist allowed in a burst for each DID method
+   * @param maxConcurrentFetches the maximum number of concurrent lookups in the backing store
+   * @param fetchWait            the maximum time to wait for a lookup in the backing store to start
+   */
+  public GuardedDidStore(
+      DidStore backing, Duration negativeTimeToLive, int negativeMaxSize, double missRate, int missBurst, int maxConcurrentFetches,
+      Duration fetchWait
+  ) {
+    if (negativeTimeToLive.isNegative() || negativeTimeToLive.isZero()) {
+      throw new IllegalArgumentException("Negative time to live must be positive, not " + negativeTimeToLive);
+    }
+    if (negativeMaxSize < 1) {
+      throw new IllegalArgumentException("Negative maximum size must be positive, not " + negativeMaxSize);
+    }
+    if (!(missRate > 0)) {
+      throw new IllegalArgumentException("Miss rate must be positive, not " + missRate);
+    }
+    if (missBurst < 1) {
+      throw new IllegalArgumentException("Miss burst must be positive, not " + missBurst);
+    }
+    if (maxConcurrentFetches < 1) {
+      throw new IllegalArgumentException("Maximum concurrent fetches must be positive, not " + maxConcurrentFetches);
+    }
+    if (fetchWait.isNegative()) {
+      throw new IllegalArgumentException("Fetch wait must not be negative, not " + fetchWait);
+    }
+    this.backing = Objects.requireNonNull(backing);
+    this.negativeTimeToLive = negativeTimeToLive;
+    negatives = new BoundedCache<>(negativeMaxSize);
+    found = new BoundedCache<>(negativeMaxSize);
+    this.missRate = missRate;
+    this.missBurst = missBurst;
+    this.fetchWait = fetchWait;
+    fetchPermits = new Semaphore(maxConcurrentFetches);
+    overflow = newBucket();
+  }
+
+
+  @Override
+  public DecentralizedIdentifier fetch(DidId didId) throws DidStoreException {
+    return guard(didId, backing::fetch);
+  }
+
+
+  @Override
+  public CompactDid fetchCompact(DidId didId) throws DidStoreException {
+    if (isCompactAvailable()) {
+      return guard(didId, ((CompactDidStore) backing)::fetchCompact);
+    }
+    DecentralizedIdentifier did = fetch(didId);
+    return did != null ? CompactDid.of(did) : null;
+  }
+
+
+  @Override
+  public byte[] fetchRaw(DidId didId) throws DidStoreException {
+    if (isRawAvailable()) {
+      return guard(didId, ((RawDidStore) backing)::fetchRaw);
+    }
+    return RawDidStore.toRaw(didId, fetch(didId));
+  }
+
+
+  /**
+   * Forget that a DID was not found. This should be called when a DID is created, so that it can be found immediately.
+   *
+   * @param didId the DID's ID
+   */
+  public void forget(DidId didId) {
+    negatives.remove(didId);
+  }
+
+
+  public DidStore getBacking() {
+    return backing;
+  }
+
+
+  /**
+   * Get the number of DIDs remembered as not found, including any which have expired but not yet been removed.
+   *
+   * @return the number of remembered DIDs
+   */
+  public int getNegativeSize() {
+    return negatives.size();
+  }
+
+
+  @Override
+  public boolean isCompactAvailable() {
+    return backing instanceof CompactDidStore && ((CompactDidStore) backing).isCompactAvailable();
+  }
+
+
+  @Override
+  public boolean isRawAvailable() {
+    return backing instanceof RawDidStore && ((RawDidStore) backing).isRawAvailable();
+  }
+
+
+  @Override
+  public void onChange(DidChange change) {
+    forget(change.getDidId());
+  }
+
+
+  /**
+   * Remove all expired entries from the remembered DIDs.
+   */
+  public void purge() {
+    Instant now = CredentialConstants.getClock().instant();
+    negatives.removeIf(e -> !e.isAfter(now));
+    found.removeIf(e -> !e.isAfter(now));
+  }
+
+
+  private <T> T fetchFromBacking(DidId didId, Lookup<T> lookup) throws DidStoreException {
+    try {
+      if (!fetchPermits.tryAcquire(fetchWait.toNanos(), TimeUnit.NANOSECONDS)) {
+        throw new DidStoreException("Too many concurrent DID lookups");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DidStoreException("Interrupted whilst waiting to look up DID", e);
+    }
+    try {
+      return lookup.fetch(didId);
+    } finally {
+      fetchPermits.release();
+    }
+  }
+
+
+  private Bucket getBucket(String method) {
+    Bucket bucket = buckets.get(method);
+    if (bucket != null) {
+      return bucket;
+    }
+    if (buckets.size() >= MAX_METHODS) {
+      return overflow;
+    }
+    return buckets.computeIfAbsent(method, m -> newBucket());
+  }
+
+
+  private <T> T guard(DidId didId, Lookup<T> lookup) throws DidStoreException {
+    // Is this known to not exist?
+    Instant expiry = negatives.get(didId);
+    if (expiry != null) {
+      if (expiry.isAfter(CredentialConstants.getClock().instant())) {
+        return null;
+      }
+      negatives.remove(didId, expiry);
+    }
+
+    Bucket bucket = getBucket(didId.getMethod());
+    if (!isRecentlyFound(didId) && !bucket.hasToken(CredentialConstants.getClock().millis())) {
+      throw new DidStoreException("Too many lookups of unknown DIDs for method \"" + didId.getMethod() + "\"");
+    }
+
+    T result = fetchFromBacking(didId, lookup);
+    Instant rememberUntil = CredentialConstants.getClock().instant().plus(negativeTimeToLive);
+    if (result != null) {
+      found.put(didId, rememberUntil);
+    } else {
+      bucket.charge();
+      negatives.put(didId, rememberUntil);
+    }
+    return result;
+  }
+
+
+  private boolean isRecentlyFound(DidId didId) {
+    Instant expiry = found.get(didId);
+    return expiry != null && expiry.isAfter(CredentialConstants.getClock().instant());
+  }
+
+
+  private Bucket newBucket() {
+    return new Bucket(missBurst, missRate / 1000.0, CredentialConstants.getClock().millis());
+  }
+
+}
@@ -0,0 +1,210 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+package io.setl.verafied.did;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+
+import io.setl.verafied.data.JsonConvert;
+
+/**
+ * A DID document which has been scanned but not parsed. The scan records the DID, an index of the verification relationships, and the position of each
+ * verification method in the original UTF-8 text. A verification method is only parsed when it is requested, so verifying a proof requires parsing just the
+ * one method which the proof references, however large the document is.
+ *
+ * @author agent on 19/10/2026.
+ */
+public class LazyDidDocument {
+
+  /** The names of the verification relationship lists. */
+  private static final Map<String, KeyUsage> RELATIONSHIPS = Map.of(
+      "assertionMethod", KeyUsage.ASSERTION,
+      "authentication", KeyUsage.AUTHENTICATION,
+      "capabilityDelegation", KeyUsage.CAPABILITY_DELEGATION,
+      "capabilityInvocation", KeyUsage.CAPABILITY_INVOCATION
+  );
+
+
+  /**
+   * Scan a DID document.
+   *
+   * @param json the UTF-8 encoded JSON
+   *
+   * @return the scanned document
+   *
+   * @throws IOException if the JSON is invalid
+   */
+  public static LazyDidDocument scan(byte[] json) throws IOException {
+    return new LazyDidDocument(json);
+  }
+
+
+  /** The document's ID. */
+  private final URI id;
+
+  /** The UTF-8 encoded JSON. */
+  private final byte[] json;
+
+  /** Map of verification method ID to the start and end offsets of the method in the JSON. */
+  private final Map<String, int[]> methods = new HashMap<>();
+
+  /** Map of verification method ID to the bit set of its verification relationships, by ordinal of <code>KeyUsage</code>. */
+  private final Map<String, Integer> usages = new HashMap<>();
+
+
+  private LazyDidDocument(byte[] json) throws IOException {
+    this.json = json;
+    String documentId = null;
+    try (JsonParser parser = JsonConvert.OBJECT_MAPPER.getFactory().createParser(json)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw JsonMappingException.from(parser, "DID document must be a JSON object");
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.getCurrentName();
+        JsonToken token = parser.nextToken();
+        KeyUsage usage = RELATIONSHIPS.get(name);
+        if ("id".equals(name) && token == JsonToken.VALUE_STRING) {
+          documentId = parser.getText();
+        } else if ("verificationMethod".equals(name) && token == JsonToken.START_ARRAY) {
+          scanMethods(parser);
+        } else if (usage != null && token == JsonToken.START_ARRAY) {
+          scanReferences(parser, usage);
+        } else {
+          parser.skipChildren();
+        }
+      }
+    }
+    if (documentId == null) {
+      throw new IOException("DID document does not have an ID");
+    }
+    id = URI.create(documentId);
+  }
+
+
+  /**
+   * Find and parse a verification method.
+   *
+   * @param methodId the method's ID
+   *
+   * @return the method, or null if it is not in this document
+   *
+   * @throws IOException if the method cannot be parsed
+   */
+  public VerificationMethod findVerificationMethod(URI methodId) throws IOException {
+    int[] range = methods.get(methodId.toString());
+    if (range == null) {
+      return null;
+    }
+    return JsonConvert.getReader(VerificationMethod.class).readValue(json, range[0], range[1] - range[0]);
+  }
+
+
+  public DidId getDidId() {
+    return new DidId(id);
+  }
+
+
+  public URI getId() {
+    return id;
+  }
+
+
+  /**
+   * Get the IDs of the verification methods in this document.
+   *
+   * @return the IDs
+   */
+  public Set<String> getVerificationMethodIds() {
+    return Collections.unmodifiableSet(methods.keySet());
+  }
+
+
+  /**
+   * Test if a verification method has a given relationship with this document's DID.
+   *
+   * @param usage    the relationship
+   * @param methodId the method's ID
+   *
+   * @return true if the method has the relationship
+   */
+  public boolean hasRelationship(KeyUsage usage, URI methodId) {
+    Integer bits = usages.get(methodId.toString());
+    return bits != null && (bits & (1 << usage.ordinal())) != 0;
+  }
+
+
+  /**
+   * Parse the whole document.
+   *
+   * @return the document
+   *
+   * @throws IOException if the document cannot be parsed
+   */
+  public DecentralizedIdentifier toDocument() throws IOException {
+    return JsonConvert.getReader(DecentralizedIdentifier.class).readValue(json);
+  }
+
+
+  private void scanMethods(JsonParser parser) throws IOException {
+    while (parser.nextToken() != JsonToken.END_ARRAY) {
+      if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+        parser.skipChildren();
+        continue;
+      }
+      int start = (int) parser.getTokenLocation().getByteOffset();
+      String methodId = null;
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.getCurrentName();
+        if (parser.nextToken() == JsonToken.VALUE_STRING && "id".equals(name)) {
+          methodId = parser.getText();
+        } else {
+          parser.skipChildren();
+        }
+      }
+      int end = (int) parser.getCurrentLocation().getByteOffset();
+
+      // As when searching a parsed document, the first method with a given ID is used
+      if (methodId != null) {
+        methods.putIfAbsent(methodId, new int[]{start, end});
+      }
+    }
+  }
+
+
+  private void scanReferences(JsonParser parser, KeyUsage usage) throws IOException {
+    while (parser.nextToken() != JsonToken.END_ARRAY) {
+      if (parser.getCurrentToken() == JsonToken.VALUE_STRING) {
+        usages.merge(parser.getText(), 1 << usage.ordinal(), (a, b) -> a | b);
+      } else {
+        parser.skipChildren();
+      }
+    }
+  }
+
+}
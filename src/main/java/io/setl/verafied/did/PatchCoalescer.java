@@ -0,0 +1,196 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+package io.setl.verafied.did;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonPatch;
+import javax.json.JsonPatchBuilder;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+import javax.json.JsonValue.ValueType;
+
+import io.setl.verafied.data.JsonConvert;
+
+/**
+ * Reduces a batch of mutations to a DID document to a minimal patch. The document's mutators record one or more operations per call, and remove list
+ * elements by index, so a batch such as a key rotation produces a long patch in which each operation copies the list it changes. Applying such a patch is
+ * quadratic in the size of the document.
+ *
+ * <p>The coalesced patch is derived by comparing the document before the batch with the document after it, so it contains at most one operation per changed
+ * member, except for lists. A list with few changes is patched by removing elements from the highest index down, each preceded by a test of what is removed,
+ * and then appending new elements. This preserves the information a {@link DidChange} needs to identify revoked verification methods. A list with more
+ * changes is replaced in a single operation.
+ *
+ * @author agent on 19/10/2026.
+ */
+public class PatchCoalescer {
+
+  /** The default maximum number of element changes to a list before it is replaced. */
+  public static final int DEFAULT_MAX_ELEMENT_CHANGES = 8;
+
+
+  /**
+   * Escape a member name for use in a JSON pointer.
+   *
+   * @param name the name
+   *
+   * @return the escaped name
+   */
+  private static String escape(String name) {
+    return name.replace("~", "~0").replace("/", "~1");
+  }
+
+
+  /**
+   * Get a test value for a list element. Verification methods are identified by their ID, other elements by their value.
+   *
+   * @param element the element
+   *
+   * @return the ID if the element is an object with one, otherwise null
+   */
+  private static JsonString idOf(JsonValue element) {
+    if (element.getValueType() == ValueType.OBJECT) {
+      JsonValue id = element.asJsonObject().get("id");
+      if (id != null && id.getValueType() == ValueType.STRING) {
+        return (JsonString) id;
+      }
+    }
+    return null;
+  }
+
+
+  /** Maximum number of element changes to a list before the list is replaced. */
+  private final int maxElementChanges;
+
+
+  /**
+   * New instance using the default maximum number of element changes.
+   */
+  public PatchCoalescer() {
+    this(DEFAULT_MAX_ELEMENT_CHANGES);
+  }
+
+
+  /**
+   * New instance.
+   *
+   * @param maxElementChanges the maximum number of elements removed or added to a list before the list is replaced in a single operation
+   */
+  public PatchCoalescer(int maxElementChanges) {
+    if (maxElementChanges < 0) {
+      throw new IllegalArgumentException("Maximum element changes must not be negative, not " + maxElementChanges);
+    }
+    this.maxElementChanges = maxElementChanges;
+  }
+
+
+  /**
+   * Create a minimal patch which transforms one JSON form of a DID document into another.
+   *
+   * @param before the document before the mutations
+   * @param after  the document after the mutations
+   *
+   * @return the patch
+   */
+  public JsonPatch coalesce(JsonObject before, JsonObject after) {
+    JsonPatchBuilder builder = Json.createPatchBuilder();
+    Set<String> names = new TreeSet<>(before.keySet());
+    names.addAll(after.keySet());
+    for (String name : names) {
+      JsonValue oldValue = before.get(name);
+      JsonValue newValue = after.get(name);
+      String path = "/" + escape(name);
+      if (newValue == null) {
+        builder.remove(path);
+      } else if (oldValue == null) {
+        builder.add(path, newValue);
+      } else if (!oldValue.equals(newValue)) {
+        if (oldValue.getValueType() == ValueType.ARRAY && newValue.getValueType() == ValueType.ARRAY) {
+          coalesceList(builder, path, oldValue.asJsonArray(), newValue.asJsonArray());
+        } else {
+          builder.replace(path, newValue);
+        }
+      }
+    }
+    return builder.build();
+  }
+
+
+  /**
+   * Create a change from a document's JSON form before a batch of mutations and the document after them. The patch built during the mutations is not needed.
+   *
+   * @param before the JSON form of the document before the mutations
+   * @param after  the document after the mutations
+   *
+   * @return the change, with a minimal patch
+   */
+  public DidChange coalesce(JsonObject before, DecentralizedIdentifier after) {
+    return new DidChange(after.getDidId(), coalesce(before, (JsonObject) JsonConvert.toJson(after)));
+  }
+
+
+  public int getMaxElementChanges() {
+    return maxElementChanges;
+  }
+
+
+  private void coalesceList(JsonPatchBuilder builder, String path, JsonArray oldList, JsonArray newList) {
+    // The retained elements are a prefix of the new list, and the remainder of the new list is appended.
+    List<Integer> removed = new ArrayList<>();
+    int retained = 0;
+    for (int i = 0; i < oldList.size(); i++) {
+      if (retained < newList.size() && oldList.get(i).equals(newList.get(retained))) {
+        retained++;
+      } else {
+        removed.add(i);
+      }
+    }
+    int added = newList.size() - retained;
+
+    if (removed.size() + added > maxElementChanges) {
+      builder.replace(path, newList);
+      return;
+    }
+
+    for (int r = removed.size() - 1; r >= 0; r--) {
+      int index = removed.get(r);
+      JsonValue element = oldList.get(index);
+      String elementPath = path + "/" + index;
+      JsonString id = idOf(element);
+      if (id != null) {
+        builder.test(elementPath + "/id", id);
+      } else {
+        builder.test(elementPath, element);
+      }
+      builder.remove(elementPath);
+    }
+    for (int i = retained; i < newList.size(); i++) {
+      builder.add(path + "/-", newList.get(i));
+    }
+  }
+
+}
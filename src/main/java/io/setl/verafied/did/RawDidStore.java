@@ -0,0 +1,93 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+package io.setl.verafied.did;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import io.setl.verafied.data.JsonConvert;
+
+/**
+ * A DID store which can supply the original JSON of a document. Verification uses the JSON to parse only the verification method it needs.
+ *
+ * @author agent on 19/10/2026.
+ */
+public interface RawDidStore extends DidStore {
+
+  /**
+   * Convert a document to the UTF-8 encoded JSON which {@link #fetchRaw(DidId)} returns, for a store which does not hold the original JSON.
+   *
+   * @param didId    the document's ID
+   * @param document the document, or null
+   *
+   * @return the JSON, or null if the document is null
+   *
+   * @throws DidStoreException if the document cannot be converted
+   */
+  static byte[] toRaw(DidId didId, DecentralizedIdentifier document) throws DidStoreException {
+    if (document == null) {
+      return null;
+    }
+    try {
+      return JsonConvert.OBJECT_MAPPER.writeValueAsBytes(document);
+    } catch (JsonProcessingException e) {
+      throw new DidStoreException("Document for " + didId + " cannot be converted to JSON", e);
+    }
+  }
+
+
+  @Override
+  default DecentralizedIdentifier fetch(DidId didId) throws DidStoreException {
+    byte[] json = fetchRaw(didId);
+    if (json == null) {
+      return null;
+    }
+    try {
+      return JsonConvert.getReader(DecentralizedIdentifier.class).readValue(json);
+    } catch (IOException e) {
+      throw new DidStoreException("Stored document for " + didId + " is invalid", e);
+    }
+  }
+
+
+  /**
+   * Fetch the UTF-8 encoded JSON of a Decentralized Identifier document from storage. If the document cannot be found, return null.
+   *
+   * @param didId the document's ID
+   *
+   * @return the JSON, or null
+   *
+   * @throws DidStoreException if the storage mechanism fails
+   */
+  byte[] fetchRaw(DidId didId) throws DidStoreException;
+
+
+  /**
+   * Can this store supply the original JSON of a document? A store which forwards to another store can only do so if the other store can.
+   *
+   * @return true if {@link #fetchRaw(DidId)} returns the original JSON
+   */
+  default boolean isRawAvailable() {
+    return true;
+  }
+
+}
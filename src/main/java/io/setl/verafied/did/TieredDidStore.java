@@ -0,0 +1,393 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+package io.setl.verafied.did;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.json.JsonException;
+
+import io.setl.verafied.BoundedCache;
+import io.setl.verafied.CredentialConstants;
+import io.setl.verafied.data.JsonConvert;
+
+/**
+ * A DID store which caches documents from an authoritative store in two tiers: a bounded in-memory tier, and an optional on-disk tier which survives
+ * restarts. A cached document is valid for a fixed time after it was fetched.
+ *
+ * <p>The in-memory tier holds documents in their {@link CompactDid} form, so a large number of documents can be held. When it is full, the least recently
+ * used document is evicted from it. Each fetch returns a new copy of the document, so callers cannot modify the cached copy. Verification uses
+ * {@link #fetchCompact(DidId)}, which returns the cached form itself, so only the verification method which a proof references is recreated.
+ *
+ * <p>If the authoritative store can supply the original JSON of a document, {@link #fetchRaw(DidId)} fetches it from that store. The original JSON is not
+ * cached.
+ *
+ * <p>A document which is requested when it is close to expiry is returned from the cache, and is refreshed from the authoritative store in the background.
+ * Hence, a frequently used document is never fetched whilst a verification waits. Calling {@link #refreshExpiring()} periodically extends this to documents
+ * which are used less often.
+ *
+ * <p>When registered with a {@link DidChangeBus}, a published change is applied to the cached document, so the change takes effect immediately without
+ * re-fetching the document. If the change cannot be applied, the document is removed from the cache.
+ *
+ * <p>A document which was not found is not cached. A {@link GuardedDidStore} may be used in front of this store to limit lookups of unknown DIDs.
+ *
+ * @author agent on 19/10/2026.
+ */
+public class TieredDidStore implements CompactDidStore, RawDidStore, DidChangeListener {
+
+  /** A cached document. */
+  private static class Entry {
+
+    /** The document. */
+    final CompactDid document;
+
+    /** When the document expires. */
+    final Instant expires;
+
+    /** When the document should be refreshed. */
+    final Instant refreshAt;
+
+    /** Is a refresh in progress?. */
+    final AtomicBoolean refreshing = new AtomicBoolean();
+
+
+    Entry(CompactDid document, Instant expires, Instant refreshAt) {
+      this.document = document;
+      this.expires = expires;
+      this.refreshAt = refreshAt;
+    }
+
+  }
+
+
+  /** The authoritative store. */
+  private final DidStore backing;
+
+  /** The directory of the on-disk tier, or null if there is no on-disk tier. */
+  private final Path directory;
+
+  /** Executor for background refreshes. */
+  private final Executor executor;
+
+  /** The in-memory tier. When it is full, the least recently used document is evicted, but remains available from the disk tier. */
+  private final BoundedCache<DidId, Entry> hot;
+
+  /** How long before expiry a document should be refreshed. */
+  private final Duration refreshAhead;
+
+  /** How long a document is valid for after it is fetched. */
+  private final Duration timeToLive;
+
+
+  /**
+   * New instance.
+   *
+   * @param backing      the authoritative store
+   * @param directory    the directory of the on-disk tier, or null for no on-disk tier
+   * @param timeToLive   how long a document is valid for after it is fetched
+   * @param refreshAhead how long before expiry a document should be refreshed in the background
+   * @param maxSize      the maximum number of documents in the in-memory tier
+   * @param executor     the executor for background refreshes
+   *
+   * @throws IOException if the directory cannot be created
+   */
+  public TieredDidStore(DidStore backing, Path directory, Duration timeToLive, Duration refreshAhead, int maxSize, Executor executor) throws IOException {
+    if (timeToLive.isNegative() || timeToLive.isZero()) {
+      throw new IllegalArgumentException("Time to live must be positive, not " + timeToLive);
+    }
+    if (refreshAhead.isNegative() || refreshAhead.compareTo(timeToLive) >= 0) {
+      throw new IllegalArgumentException("Refresh ahead must be less than the time to live, not " + refreshAhead);
+    }
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("Maximum size must be positive, not " + maxSize);
+    }
+    this.backing = Objects.requireNonNull(backing);
+    this.executor = Objects.requireNonNull(executor);
+    this.timeToLive = timeToLive;
+    this.refreshAhead = refreshAhead;
+    hot = new BoundedCache<>(maxSize);
+    this.directory = directory;
+    if (directory != null) {
+      Files.createDirectories(directory);
+    }
+  }
+
+
+  @Override
+  public DecentralizedIdentifier fetch(DidId didId) throws DidStoreException {
+    Entry entry = findCached(didId);
+    if (entry != null) {
+      return entry.document.toDocument();
+    }
+
+    // Not cached, or expired
+    return load(didId);
+  }
+
+
+  @Override
+  public CompactDid fetchCompact(DidId didId) throws DidStoreException {
+    Entry entry = findCached(didId);
+    if (entry == null) {
+      // Not cached, or expired
+      entry = store(didId, backing.fetch(didId));
+    }
+    return entry != null ? entry.document : null;
+  }
+
+
+  @Override
+  public byte[] fetchRaw(DidId didId) throws DidStoreException {
+    if (isRawAvailable()) {
+      return ((RawDidStore) backing).fetchRaw(didId);
+    }
+    return RawDidStore.toRaw(didId, fetch(didId));
+  }
+
+
+  public DidStore getBacking() {
+    return backing;
+  }
+
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+
+  /**
+   * Remove a document from both tiers, so that it is next fetched from the authoritative store.
+   *
+   * @param didId the document's ID
+   */
+  public void invalidate(DidId didId) {
+    hot.remove(didId);
+    if (directory != null) {
+      try {
+        Files.deleteIfExists(toPath(didId));
+      } catch (IOException e) {
+        // The disk tier is only a cache, so the file will be replaced or expire
+      }
+    }
+  }
+
+
+  @Override
+  public boolean isRawAvailable() {
+    return backing instanceof RawDidStore && ((RawDidStore) backing).isRawAvailable();
+  }
+
+
+  @Override
+  public void onChange(DidChange change) {
+    DidId didId = change.getDidId();
+    Entry entry = hot.get(didId);
+    if (entry == null || change.isReplacement()) {
+      invalidate(didId);
+      return;
+    }
+
+    DecentralizedIdentifier document;
+    try {
+      document = change.apply(entry.document.toDocument());
+    } catch (JsonException e) {
+      // The cached copy does not match the one which was changed
+      invalidate(didId);
+      return;
+    }
+
+    // The patched document is only as fresh as the one it was derived from
+    Entry patched = new Entry(CompactDid.of(document), entry.expires, entry.refreshAt);
+    if (hot.replace(didId, entry, patched)) {
+      writeDisk(didId, document, entry.expires.minus(timeToLive));
+    } else {
+      // changed concurrently
+      invalidate(didId);
+    }
+  }
+
+
+  /**
+   * Start a background refresh of every document in the in-memory tier which is due to be refreshed or has expired. This should be called periodically, so
+   * that documents which are used infrequently are also refreshed ahead of their expiry.
+   */
+  public void refreshExpiring() {
+    Instant now = CredentialConstants.getClock().instant();
+    hot.forEach((didId, entry) -> {
+      if (!now.isBefore(entry.refreshAt)) {
+        refresh(didId, entry);
+      }
+    });
+  }
+
+
+  /**
+   * Get the number of documents in the in-memory tier.
+   *
+   * @return the number of documents
+   */
+  public int size() {
+    return hot.size();
+  }
+
+
+  private Entry findCached(DidId didId) {
+    Instant now = CredentialConstants.getClock().instant();
+    Entry entry = hot.get(didId);
+    if (entry == null) {
+      entry = readDisk(didId, now);
+      if (entry != null) {
+        hot.put(didId, entry);
+      }
+    }
+
+    if (entry == null || !now.isBefore(entry.expires)) {
+      return null;
+    }
+    if (!now.isBefore(entry.refreshAt)) {
+      refresh(didId, entry);
+    }
+    return entry;
+  }
+
+
+  private DecentralizedIdentifier load(DidId didId) throws DidStoreException {
+    DecentralizedIdentifier document = backing.fetch(didId);
+    store(didId, document);
+    return document;
+  }
+
+
+  private Entry newEntry(DecentralizedIdentifier document, Instant fetched) {
+    Instant expires = fetched.plus(timeToLive);
+    return new Entry(CompactDid.of(document), expires, expires.minus(refreshAhead));
+  }
+
+
+  private Entry readDisk(DidId didId, Instant now) {
+    if (directory == null) {
+      return null;
+    }
+    Path path = toPath(didId);
+    try {
+      if (!Files.exists(path)) {
+        return null;
+      }
+      Instant fetched = Files.getLastModifiedTime(path).toInstant();
+      if (!now.isBefore(fetched.plus(timeToLive))) {
+        Files.deleteIfExists(path);
+        return null;
+      }
+      DecentralizedIdentifier document = JsonConvert.getReader(DecentralizedIdentifier.class).readValue(Files.readAllBytes(path));
+      if (!didId.equals(document.getDidId())) {
+        // Not the requested document, so the file cannot be trusted
+        Files.deleteIfExists(path);
+        return null;
+      }
+      return newEntry(document, fetched);
+    } catch (IOException e) {
+      // Treat an unreadable file as a cache miss
+      return null;
+    }
+  }
+
+
+  private void refresh(DidId didId, Entry entry) {
+    if (!entry.refreshing.compareAndSet(false, true)) {
+      // already being refreshed
+      return;
+    }
+    try {
+      executor.execute(() -> {
+        try {
+          load(didId);
+        } catch (DidStoreException | RuntimeException e) {
+          // The cached document remains valid until it expires, so a later request can retry the refresh
+          entry.refreshing.set(false);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      entry.refreshing.set(false);
+    }
+  }
+
+
+  private Entry store(DidId didId, DecentralizedIdentifier document) {
+    if (document == null) {
+      invalidate(didId);
+      return null;
+    }
+
+    Instant fetched = CredentialConstants.getClock().instant();
+    Entry entry = newEntry(document, fetched);
+    hot.put(didId, entry);
+    writeDisk(didId, document, fetched);
+    return entry;
+  }
+
+
+  private Path toPath(DidId didId) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(didId.getUri().toString().getBytes(UTF_8));
+      return directory.resolve(Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + ".json");
+    } catch (NoSuchAlgorithmException e) {
+      // SHA-256 is required of every Java implementation
+      throw new InternalError("SHA-256 is not available", e);
+    }
+  }
+
+
+  private void writeDisk(DidId didId, DecentralizedIdentifier document, Instant fetched) {
+    if (directory == null) {
+      return;
+    }
+    Path temp = null;
+    try {
+      temp = Files.createTempFile(directory, "did", ".tmp");
+      Files.write(temp, JsonConvert.OBJECT_MAPPER.writeValueAsBytes(document));
+      Files.setLastModifiedTime(temp, FileTime.from(fetched));
+      Files.move(temp, toPath(didId), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      // The disk tier is only a cache, so the document is simply not cached on disk
+      if (temp != null) {
+        try {
+          Files.deleteIfExists(temp);
+        } catch (IOException e2) {
+          // ignored
+        }
+      }
+    }
+  }
+
+}
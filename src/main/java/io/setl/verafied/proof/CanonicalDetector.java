@@ -0,0 +1,273 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+
+package io.setl.verafied.proof;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
+
+import io.setl.verafied.data.JsonConvert;
+
+/**
+ * A parser which detects whether the JSON it reads is in canonical form, whilst the JSON is being parsed. If it is, the canonical form of the document is
+ * obtained by cutting the "jws" value and the proof set out of the original bytes, rather than converting the document back to JSON and re-writing it.
+ *
+ * <p>The key order and the offset of every token is checked as it is read, so all the tokens must be read through this parser. The detection is conservative:
+ * JSON which contains whitespace, escaped characters, non-integer numbers, negative zero or unsorted keys is not retained. Retained JSON is canonical.
+ *
+ * @author agent on 19/10/2026.
+ */
+public class CanonicalDetector extends JsonParserDelegate {
+
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+  }
+
+
+  /** True if the JSON read so far may be in canonical form. */
+  private boolean canonical = true;
+
+  /** True once the root object has been closed. */
+  private boolean closed = false;
+
+  /** The JSON being parsed. */
+  private final byte[] json;
+
+  /** The last key seen in each open object. */
+  private final List<String> lastKeys = new ArrayList<>();
+
+  /** The previous top level key, if the current token is its value. */
+  private String previousName = null;
+
+  /** The object level of the proof, or -1 if the proof is not open. */
+  private int proofLevel = -1;
+
+  /** The object level of the member being removed. */
+  private int removalLevel = -1;
+
+  /** The start of the member being removed, or -1 if no member is being removed. */
+  private int removalStart = -1;
+
+  /** Pairs of start and end positions of the byte ranges to remove. */
+  private final List<Integer> removals = new ArrayList<>();
+
+  /** The end of the root object. */
+  private int rootEnd = -1;
+
+  /** The position up to which the JSON has been checked for escaped characters. */
+  private int scanned = 0;
+
+  /** True once the first token has been read. */
+  private boolean started = false;
+
+
+  /**
+   * New instance.
+   *
+   * @param json the UTF-8 encoded JSON to parse
+   *
+   * @throws IOException if the parser cannot be created
+   */
+  public CanonicalDetector(byte[] json) throws IOException {
+    super(JsonConvert.OBJECT_MAPPER.getFactory().createParser(json));
+    this.json = json;
+  }
+
+
+  /**
+   * Get the canonical form retained from the parsed JSON. The whole of the JSON must have been read through this parser.
+   *
+   * @return the canonical form, or null if the JSON was not in canonical form
+   */
+  public CanonicalDocument getRetained() {
+    if (!canonical || !closed || rootEnd != json.length) {
+      return null;
+    }
+
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length);
+    int position = 0;
+    for (int i = 0; i < removals.size(); i += 2) {
+      buffer.write(json, position, removals.get(i) - position);
+      position = removals.get(i + 1);
+    }
+    buffer.write(json, position, json.length - position);
+    return new CanonicalDocument(buffer.toByteArray());
+  }
+
+
+  @Override
+  public JsonToken nextToken() throws IOException {
+    JsonToken token = delegate.nextToken();
+    if (canonical && token != null) {
+      inspect(token);
+    }
+    return token;
+  }
+
+
+  @Override
+  public JsonToken nextValue() throws IOException {
+    // Must go through this parser's nextToken, so the member name is inspected
+    JsonToken token = nextToken();
+    return (token == JsonToken.FIELD_NAME) ? nextToken() : token;
+  }
+
+
+  @Override
+  public JsonParser skipChildren() throws IOException {
+    // Skipped tokens must still be inspected
+    JsonToken token = currentToken();
+    if (token != JsonToken.START_OBJECT && token != JsonToken.START_ARRAY) {
+      return this;
+    }
+    int open = 1;
+    while (open > 0) {
+      token = nextToken();
+      if (token == null) {
+        return this;
+      }
+      if (token.isStructStart()) {
+        open++;
+      } else if (token.isStructEnd()) {
+        open--;
+      }
+    }
+    return this;
+  }
+
+
+  private void endRemoval(int level, int end, boolean isLast) {
+    if (removalStart < 0 || level != removalLevel) {
+      return;
+    }
+    int start = removalStart;
+    if (isLast && json[start - 1] == ',') {
+      // last member, so remove the preceding comma
+      start--;
+    }
+    removals.add(start);
+    removals.add(end);
+    removalStart = -1;
+  }
+
+
+  private void inspect(JsonToken token) throws IOException {
+    int start = (int) delegate.getTokenLocation().getByteOffset();
+    if (closed || !isCompact(start)) {
+      // more than one root value, or not compact
+      canonical = false;
+      return;
+    }
+    if (!started) {
+      started = true;
+      if (token != JsonToken.START_OBJECT || start != 0) {
+        canonical = false;
+        return;
+      }
+    }
+
+    String name = previousName;
+    previousName = null;
+    int level = lastKeys.size();
+    switch (token) {
+      case FIELD_NAME:
+        String key = delegate.getCurrentName();
+        String lastKey = lastKeys.get(level - 1);
+        if (lastKey != null && lastKey.compareTo(key) >= 0) {
+          // keys are not sorted, or are duplicated
+          canonical = false;
+          return;
+        }
+        lastKeys.set(level - 1, key);
+        endRemoval(level, start, false);
+        if ((level == 1 && key.equals(CanonicalDocument.PROOF_SET)) || (level == proofLevel && key.equals("jws"))) {
+          removalStart = start;
+          removalLevel = level;
+        }
+        previousName = (level == 1) ? key : null;
+        break;
+      case START_OBJECT:
+        lastKeys.add(null);
+        if ("proof".equals(name)) {
+          proofLevel = lastKeys.size();
+        }
+        break;
+      case END_OBJECT:
+        endRemoval(level, start, true);
+        if (level == proofLevel) {
+          proofLevel = -1;
+        }
+        lastKeys.remove(level - 1);
+        if (lastKeys.isEmpty()) {
+          closed = true;
+          rootEnd = start + 1;
+        }
+        break;
+      case VALUE_NUMBER_INT:
+        if (json[start] == '-' && json[start + 1] == '0') {
+          // negative zero is written as zero
+          canonical = false;
+        }
+        break;
+      case VALUE_NUMBER_FLOAT:
+        // the canonical form of a non-integer is not checked here
+        canonical = false;
+        break;
+      default:
+        break;
+    }
+  }
+
+
+  /**
+   * Check the JSON between the previous token and a token for escaped characters and whitespace.
+   *
+   * @param start the start of the token
+   *
+   * @return true if the JSON is compact
+   */
+  private boolean isCompact(int start) {
+    // A backslash can only appear in valid JSON as an escape in a string
+    for (int i = scanned; i < start; i++) {
+      if (json[i] == '\\') {
+        return false;
+      }
+    }
+    scanned = start;
+    if (start == 0) {
+      return true;
+    }
+
+    // Tokens are separated by at most one comma or colon, and both sides of that must be free of whitespace
+    byte b = json[start - 1];
+    if (b == ',' || b == ':') {
+      b = json[start - 2];
+    }
+    return !isWhitespace(b);
+  }
+
+}
@@ -0,0 +1,323 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+package io.setl.verafied.proof;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Objects;
+import javax.json.JsonObject;
+import javax.json.JsonPointer;
+import javax.json.JsonWriter;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import io.setl.json.CJObject;
+import io.setl.verafied.CredentialConstants;
+import io.setl.verafied.data.JsonConvert;
+import io.setl.verafied.data.Proof;
+import io.setl.verafied.data.Provable;
+
+/**
+ * The canonical form of a provable document, excluding the "jws" value of its proof and any proof set. This is the payload part of the "bytes-to-sign" as
+ * defined by RFC 7797.
+ * Creating the canonical form requires converting the document to JSON and then writing it as canonical JSON. As this is comparatively expensive, an
+ * instance may be created once and then used to verify the same document in many verification contexts.
+ *
+ * <p>Instances are immutable and thread-safe. An instance can only be created from a document or its JSON. When it is supplied alongside a document for
+ * verification, its ID and proof are checked against the document's, but its other content is not.
+ *
+ * @author agent on 18/10/2026.
+ */
+public class CanonicalDocument {
+
+  /** Pointer to the JWS value in a proven document. */
+  static final JsonPointer JWS_POINTER = CredentialConstants.JSON_PROVIDER.createPointer("/proof/jws");
+
+  /** Name of the proof set property. */
+  static final String PROOF_SET = "proofSet";
+
+
+  /**
+   * Create the canonical form of a document.
+   *
+   * @param document the document
+   *
+   * @return the canonical form
+   */
+  public static CanonicalDocument of(Provable document) {
+    return of((JsonObject) JsonConvert.toJson(document));
+  }
+
+
+  /**
+   * Create the canonical form of a document's JSON representation.
+   *
+   * @param json the document's JSON
+   *
+   * @return the canonical form
+   */
+  public static CanonicalDocument of(JsonObject json) {
+    // create a canonical copy of the input without the jws value
+    CJObject canonical = new CJObject(json);
+    if (JWS_POINTER.containsValue(canonical)) {
+      canonical = JWS_POINTER.remove(canonical);
+    }
+
+    // the proof set is independent of the proof
+    canonical.remove(PROOF_SET);
+    return write(canonical);
+  }
+
+
+  /**
+   * Create the canonical form of a document from the JSON it was parsed from, if that JSON is already canonical. Issuers usually emit documents in
+   * canonical form, and in that case the canonical form is obtained by cutting the "jws" value and the proof set out of the original bytes, rather than
+   * converting the document back to JSON and re-writing it. When the document is also being parsed, use a {@link CanonicalDetector} so that the JSON is only
+   * read once.
+   *
+   * @param json the UTF-8 encoded JSON of a document
+   *
+   * @return the canonical form, or null if the JSON is not in canonical form
+   */
+  public static CanonicalDocument ofCanonicalBytes(byte[] json) {
+    try (CanonicalDetector detector = new CanonicalDetector(json)) {
+      while (detector.nextToken() != null) {
+        // read all the tokens
+      }
+      return detector.getRetained();
+    } catch (IOException e) {
+      // Not valid JSON, so certainly not canonical
+      return null;
+    }
+  }
+
+
+  /**
+   * Create the canonical form of a proof, excluding its "jws" value. Each proof in a proof set signs its own canonical form as well as the shared form of the
+   * document, so that its metadata is protected.
+   *
+   * @param proof the proof
+   *
+   * @return the canonical form
+   */
+  public static CanonicalDocument ofProof(Proof proof) {
+    CJObject canonical = new CJObject((JsonObject) JsonConvert.toJson(proof));
+    canonical.remove("jws");
+    return write(canonical);
+  }
+
+
+  /**
+   * Create the canonical form of a document as signed by the members of a proof set. This excludes both the proof and the proof set, so every member of the
+   * set signs exactly the same bytes.
+   *
+   * @param document the document
+   *
+   * @return the canonical form
+   */
+  public static CanonicalDocument withoutProofs(Provable document) {
+    CJObject canonical = new CJObject((JsonObject) JsonConvert.toJson(document));
+    canonical.remove("proof");
+    canonical.remove(PROOF_SET);
+    return write(canonical);
+  }
+
+
+  private static CanonicalDocument write(CJObject canonical) {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    JsonWriter jsonWriter = CredentialConstants.JSON_PROVIDER.createWriter(buffer);
+    jsonWriter.write(canonical);
+    jsonWriter.close();
+    return new CanonicalDocument(buffer.toByteArray());
+  }
+
+
+  /** The canonical bytes. */
+  private final byte[] canonical;
+
+  /** Lazily calculated SHA-256 digest of the canonical bytes. */
+  private volatile byte[] digest;
+
+
+  /**
+   * New instance from bytes which are already known to be the canonical form of a document without its "jws" value.
+   *
+   * @param canonical the canonical bytes
+   */
+  CanonicalDocument(byte[] canonical) {
+    this.canonical = canonical.clone();
+  }
+
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    return (o instanceof CanonicalDocument) && Arrays.equals(canonical, ((CanonicalDocument) o).canonical);
+  }
+
+
+  /**
+   * Get the canonical bytes.
+   *
+   * @return the canonical bytes
+   */
+  public byte[] getBytes() {
+    return canonical.clone();
+  }
+
+
+  /**
+   * Get the SHA-256 digest of the canonical bytes. This is suitable for identifying the document's content, for example as part of a cache key.
+   *
+   * @return the digest
+   */
+  public byte[] getDigest() {
+    return digest().clone();
+  }
+
+
+  /**
+   * Get the SHA-256 digest of the canonical bytes, encoded as Base64-URL text.
+   *
+   * @return the encoded digest
+   */
+  public String getDigestText() {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(digest());
+  }
+
+
+  /**
+   * Get the number of bytes in the canonical form.
+   *
+   * @return the number of bytes
+   */
+  public int getLength() {
+    return canonical.length;
+  }
+
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(canonical);
+  }
+
+
+  /**
+   * Check whether this is the canonical form of a document with the given ID and proof. The proof is compared without its "jws" value, as that is not part
+   * of the canonical form.
+   *
+   * @param id    the document's ID, or null if it has none
+   * @param proof the document's proof
+   *
+   * @return true if this has the same ID and proof
+   */
+  public boolean isFormOf(Object id, Proof proof) {
+    byte[] proofBytes = ofProof(proof).canonical;
+    String myId = null;
+    boolean proofMatched = false;
+    try (JsonParser parser = JsonConvert.OBJECT_MAPPER.getFactory().createParser(canonical)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        return false;
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.getCurrentName();
+        JsonToken token = parser.nextToken();
+        if (name.equals("id") && token == JsonToken.VALUE_STRING) {
+          myId = parser.getText();
+        } else if (name.equals("proof") && token == JsonToken.START_OBJECT) {
+          // Every part of a canonical form is itself canonical, so the proof's value is exactly the canonical form of the proof
+          int start = (int) parser.getTokenLocation().getByteOffset();
+          parser.skipChildren();
+          int end = (int) parser.getCurrentLocation().getByteOffset();
+          proofMatched = Arrays.equals(canonical, start, end, proofBytes, 0, proofBytes.length);
+        } else {
+          parser.skipChildren();
+        }
+      }
+    } catch (IOException e) {
+      // The canonical bytes are always valid JSON
+      throw new InternalError("Canonical form is not valid JSON", e);
+    }
+    return proofMatched && Objects.equals(myId, (id != null) ? id.toString() : null);
+  }
+
+
+  /**
+   * Create the "bytes-to-sign" for a JWS with a detached payload. See RFC 7797 for how the bytes-to-sign is defined.
+   *
+   * @param header the Base64-URL encoded JWS header as ASCII bytes
+   *
+   * @return the bytes-to-sign
+   */
+  public byte[] toBytesToSign(byte[] header) {
+    byte[] output = new byte[header.length + 1 + canonical.length];
+    System.arraycopy(header, 0, output, 0, header.length);
+    output[header.length] = '.';
+    System.arraycopy(canonical, 0, output, header.length + 1, canonical.length);
+    return output;
+  }
+
+
+  /**
+   * Create the "bytes-to-sign" for a member of a proof set. The payload is the canonical proof followed by a '.' and this document. As a canonical JSON
+   * object is self-delimiting, the payload is unambiguous.
+   *
+   * @param header the Base64-URL encoded JWS header as ASCII bytes
+   * @param proof  the canonical form of the proof
+   *
+   * @return the bytes-to-sign
+   */
+  public byte[] toBytesToSign(byte[] header, CanonicalDocument proof) {
+    byte[] proofBytes = proof.canonical;
+    byte[] output = new byte[header.length + 1 + proofBytes.length + 1 + canonical.length];
+    System.arraycopy(header, 0, output, 0, header.length);
+    int pos = header.length;
+    output[pos++] = '.';
+    System.arraycopy(proofBytes, 0, output, pos, proofBytes.length);
+    pos += proofBytes.length;
+    output[pos++] = '.';
+    System.arraycopy(canonical, 0, output, pos, canonical.length);
+    return output;
+  }
+
+
+  private byte[] digest() {
+    byte[] myDigest = digest;
+    if (myDigest == null) {
+      try {
+        myDigest = MessageDigest.getInstance("SHA-256").digest(canonical);
+      } catch (NoSuchAlgorithmException e) {
+        // SHA-256 is required of every Java implementation
+        throw new InternalError("SHA-256 is not available", e);
+      }
+      digest = myDigest;
+    }
+    return myDigest;
+  }
+
+}
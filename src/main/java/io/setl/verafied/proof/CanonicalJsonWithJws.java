@@ -25,10 +25,10 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static io.setl.verafied.UnacceptableDocumentException.mapOf;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
+import java.security.Signature;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Base64;
@@ -36,15 +36,11 @@ import javax.json.Json;
 import javax.json.JsonException;
 import javax.json.JsonObject;
 import javax.json.JsonObjectBuilder;
-import javax.json.JsonPointer;
 import javax.json.JsonReader;
 import javax.json.JsonValue;
-import javax.json.JsonWriter;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
-import io.setl.json.CJObject;
-import io.setl.verafied.CredentialConstants;
 import io.setl.verafied.UnacceptableDocumentException;
 import io.setl.verafied.data.Proof;
 import io.setl.verafied.data.Provable;
@@ -59,9 +55,6 @@ import io.setl.verafied.did.DidStoreException;
  */
 public class CanonicalJsonWithJws implements Prover {
 
-  private static final JsonPointer JWS_POINTER = CredentialConstants.JSON_PROVIDER.createPointer("/proof/jws");
-
-
   @Override
   public void attachProof(ProofContext context, Provable input, TypedKeyPair keyPair) throws GeneralSecurityException {
     Proof proof = input.getProof();
@@ -80,24 +73,11 @@ public class CanonicalJsonWithJws implements Prover {
     proof.set("salt", JsonSalt.create());
     input.setProof(proof);
 
-    JsonObject toSign = input.asJson();
+    CanonicalDocument toSign = CanonicalDocument.of(input.asJson());
 
     // Create the JWS header. See RFC 7797 for how the bytes-to-sign is defined.
-    JsonObjectBuilder headerBuilder = Json.createObjectBuilder();
-    headerBuilder.add("alg", keyPair.getAlgorithm().getJwkName())
-        .add("b64", false)
-        .add("crit", Json.createArrayBuilder().add("b64"));
-    String headerText = headerBuilder.build().toString();
-    String header = Base64.getUrlEncoder().encodeToString(headerText.getBytes(UTF_8));
-    byte[] headerBytes = header.getBytes(UTF_8);
-
-    ByteArrayOutputStream signingBuffer = new ByteArrayOutputStream();
-    signingBuffer.write(headerBytes, 0, header.length());
-    signingBuffer.write('.');
-    JsonWriter jsonWriter = CredentialConstants.JSON_PROVIDER.createWriter(signingBuffer);
-    jsonWriter.write(toSign);
-    jsonWriter.close();
-    context.setBytesToSign(signingBuffer.toByteArray());
+    String header = createHeader(keyPair.getAlgorithm());
+    context.setBytesToSign(toSign.toBytesToSign(header.getBytes(UTF_8)));
 
     context.sign(keyPair);
 
@@ -107,10 +87,134 @@ public class CanonicalJsonWithJws implements Prover {
   }
 
 
-  @SuppressFBWarnings("RCN_REDUNDANT_NULLCHECK_WOULD_HAVE_BEEN_A_NPE")
+  /**
+   * Create a proof for inclusion in a document's proof set. Every member of a proof set signs the same canonical form of the document, so it need only be
+   * created once no matter how many signers there are. Each member also signs its own proof metadata. The document itself is not modified.
+   *
+   * @param context  the proof context
+   * @param document the document's canonical form, as created by {@link CanonicalDocument#withoutProofs(Provable)}
+   * @param keyPair  the signer's key pair
+   *
+   * @return the new proof
+   */
+  public Proof createSetProof(ProofContext context, CanonicalDocument document, TypedKeyPair keyPair) throws GeneralSecurityException {
+    if (keyPair.getId() != null) {
+      context.setDidWithKey(keyPair.getId());
+    }
+
+    Proof proof = new Proof();
+    proof.setType("CanonicalJsonWithJws");
+    proof.setCreated(Instant.now().truncatedTo(ChronoUnit.SECONDS));
+    proof.setVerificationMethod(context.getDidWithKey().getUri());
+    proof.set("salt", JsonSalt.create());
+
+    String header = createHeader(keyPair.getAlgorithm());
+    context.setBytesToSign(document.toBytesToSign(header.getBytes(UTF_8), CanonicalDocument.ofProof(proof)));
+
+    context.sign(keyPair);
+
+    String jws = header + ".." + Base64.getUrlEncoder().encodeToString(context.getSignatureValue());
+    proof.set("jws", jws);
+    return proof;
+  }
+
+
+  /**
+   * Start verifying a proof whose document is too large to canonicalise in memory. The proof is checked and the returned verifier has been updated with the
+   * JWS header and separator. The caller must update it with the document's canonical form and then call {@link VerifyContext#verify(Signature)}.
+   *
+   * @param context the verification context
+   * @param proof   the document's proof
+   *
+   * @return the partially updated verifier
+   */
+  public Signature startVerify(VerifyContext context, Proof proof) throws GeneralSecurityException, DidStoreException, UnacceptableDocumentException {
+    byte[] header = checkProof(context, proof);
+    Signature signature = context.startVerify();
+    signature.update(header);
+    signature.update((byte) '.');
+    return signature;
+  }
+
+
+  /**
+   * Verify a member of a document's proof set.
+   *
+   * @param context  the verification context
+   * @param document the document's canonical form, as created by {@link CanonicalDocument#withoutProofs(Provable)}
+   * @param proof    the member of the proof set
+   */
+  public void verifySetProof(VerifyContext context, CanonicalDocument document, Proof proof)
+      throws GeneralSecurityException, DidStoreException, UnacceptableDocumentException {
+    byte[] header = checkProof(context, proof);
+
+    context.setBytesToSign(document.toBytesToSign(header, CanonicalDocument.ofProof(proof)));
+
+    // Verify the signature
+    context.verify();
+  }
+
+
   @Override
   public void verifyProof(VerifyContext context, JsonObject input, Proof proof)
       throws GeneralSecurityException, DidStoreException, UnacceptableDocumentException {
+    byte[] header = checkProof(context, proof);
+
+    // ready to verify the signature. See RFC 7797 for how the bytes-to-sign is defined.
+    context.setBytesToSign(CanonicalDocument.of(input).toBytesToSign(header));
+
+    // Verify the signature
+    context.verify();
+  }
+
+
+  /**
+   * Verify a proof against a document's previously calculated canonical form. This allows the same document to be verified in many contexts whilst only
+   * being canonicalised once.
+   *
+   * @param context  the verification context
+   * @param document the canonical form of the document
+   * @param proof    the document's proof
+   */
+  public void verifyProof(VerifyContext context, CanonicalDocument document, Proof proof)
+      throws GeneralSecurityException, DidStoreException, UnacceptableDocumentException {
+    byte[] header = checkProof(context, proof);
+
+    // ready to verify the signature. See RFC 7797 for how the bytes-to-sign is defined.
+    context.setBytesToSign(document.toBytesToSign(header));
+
+    // Verify the signature
+    context.verify();
+  }
+
+
+  /**
+   * Create the Base64-URL encoded JWS header for a detached payload.
+   *
+   * @param algorithm the signing algorithm
+   *
+   * @return the encoded header
+   */
+  private String createHeader(SigningAlgorithm algorithm) {
+    JsonObjectBuilder headerBuilder = Json.createObjectBuilder();
+    headerBuilder.add("alg", algorithm.getJwkName())
+        .add("b64", false)
+        .add("crit", Json.createArrayBuilder().add("b64"));
+    String headerText = headerBuilder.build().toString();
+    return Base64.getUrlEncoder().encodeToString(headerText.getBytes(UTF_8));
+  }
+
+
+  /**
+   * Check the proof's JWS value and set the algorithm, alleged signature and verification method on the context.
+   *
+   * @param context the verification context
+   * @param proof   the proof
+   *
+   * @return the Base64-URL encoded JWS header as ASCII bytes
+   */
+  @SuppressFBWarnings("RCN_REDUNDANT_NULLCHECK_WOULD_HAVE_BEEN_A_NPE")
+  private byte[] checkProof(VerifyContext context, Proof proof) throws DidStoreException, UnacceptableDocumentException {
     // The only proof type we support is 'CanonicalJsonWithJws'
     if (!"CanonicalJsonWithJws".equals(proof.getType())) {
       throw new UnacceptableDocumentException(
@@ -202,22 +306,7 @@ public class CanonicalJsonWithJws implements Prover {
 
     // The proof should specify a verification method which is known to us.
     context.findVerificationMethod(proof);
-
-    // create a canonical copy of the input without the jws value
-    CJObject jsonInput = JWS_POINTER.remove(new CJObject(input));
-
-    // ready to verify the signature. See RFC 7797 for how the bytes-to-sign is defined.
-    ByteArrayOutputStream signingBuffer = new ByteArrayOutputStream();
-    signingBuffer.write(b64Ascii, 0, b64Ascii.length);
-    signingBuffer.write('.');
-    JsonWriter jsonWriter = CredentialConstants.JSON_PROVIDER.createWriter(signingBuffer);
-    jsonWriter.write(jsonInput);
-    jsonWriter.close();
-    byte[] toSignBytes = signingBuffer.toByteArray();
-    context.setBytesToSign(toSignBytes);
-
-    // Verify the signature
-    context.verify();
+    return b64Ascii;
   }
 
 }
@@ -20,7 +20,10 @@
 
 package io.setl.verafied.proof;
 
-import java.security.SecureRandom;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+import java.util.Objects;
+import java.util.function.Supplier;
 
 import io.setl.verafied.CredentialConstants;
 
@@ -32,33 +35,104 @@ import io.setl.verafied.CredentialConstants;
  */
 public class JsonSalt {
 
+  /** The number of characters in a salt. */
+  public static final int LENGTH = 40;
+
   private static final char[] ALPHABET = new char[93];
 
+  /** The number of random bytes consumed per salt. Each group of 8 characters is derived from 8 random bytes. */
+  private static final int ENTROPY_PER_SALT = 40;
+
+  /** The source of salts used by {@link #create()}. */
+  private static volatile Supplier<String> supplier = JsonSalt::generate;
+
 
   /**
-   * Get a salt that can be stored using single bytes in an unescaped JSON string and contains at least 256 bits of entropy.
+   * Get a salt that can be stored using single bytes in an unescaped JSON string and contains at least 256 bits of entropy. The salt is provided by the
+   * current supplier, which by default generates a new salt on each call.
    *
    * @return a salt
+   *
+   * @see #setSupplier(Supplier)
    */
   public static String create() {
+    return supplier.get();
+  }
+
+
+  /**
+   * Fill a buffer with salts. Each salt occupies {@link #LENGTH} bytes, and every byte is a printable ASCII character which needs no escaping in a JSON
+   * string, so the output can be written directly into a UTF-8 JSON stream. All the random bytes required are requested from the secure random number
+   * generator in a single call.
+   *
+   * @param output the buffer to write the salts into
+   * @param offset the offset of the first salt in the buffer
+   * @param count  the number of salts to generate
+   */
+  public static void fill(byte[] output, int offset, int count) {
+    byte[] entropy = new byte[count * ENTROPY_PER_SALT];
+    CredentialConstants.getSecureRandom().nextBytes(entropy);
+    encode(entropy, output, offset, count);
+  }
+
+
+  /**
+   * Generate a new salt, ignoring the current supplier.
+   *
+   * @return a new salt
+   */
+  public static String generate() {
+    byte[] output = new byte[LENGTH];
+    fill(output, 0, 1);
+    return new String(output, ISO_8859_1);
+  }
+
+
+  public static Supplier<String> getSupplier() {
+    return supplier;
+  }
+
+
+  /**
+   * Set the source of salts used by {@link #create()}. Every salt provided must meet the same requirements as those created by {@link #generate()}.
+   *
+   * @param newSupplier the new supplier, or null to restore the default
+   */
+  public static void setSupplier(Supplier<String> newSupplier) {
+    supplier = Objects.requireNonNullElse(newSupplier, JsonSalt::generate);
+  }
+
+
+  /**
+   * Convert random bytes into salt characters.
+   *
+   * @param entropy the random bytes
+   * @param output  the output buffer
+   * @param offset  offset of the first salt in the output buffer
+   * @param count   the number of salts
+   */
+  private static void encode(byte[] entropy, byte[] output, int offset, int count) {
     // To get 256 bits of entropy, we need 40 characters as each character gives us 6.539 bits
-    SecureRandom random = CredentialConstants.getSecureRandom();
-    char[] output = new char[40];
+    int p = 0;
+    int end = offset + count * LENGTH;
     long v = 0;
-    for (int i = 0; i < 40; i++) {
-      if (i % 8 == 0) {
+    for (int o = offset; o < end; o++) {
+      if ((o - offset) % 8 == 0) {
         // We grab 63 bits and use them in batches of 8*6.539 = 52.313.
-        v = random.nextLong() & 0x7fff_ffff_ffff_ffffL;
+        v = 0;
+        for (int i = 0; i < 8; i++) {
+          v = (v << 8) | (entropy[p++] & 0xff);
+        }
+        v &= 0x7fff_ffff_ffff_ffffL;
       } else {
         v /= 93;
       }
 
-      output[i] = ALPHABET[(int) (v % 93)];
+      output[o] = (byte) ALPHABET[(int) (v % 93)];
     }
-
-    return new String(output);
   }
 
+
   static {
     int i = 0;
     for (char ch = ' '; ch <= '~'; ch++) {
@@ -0,0 +1,104 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+package io.setl.verafied.proof;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import io.setl.verafied.data.JsonConvert;
+import io.setl.verafied.data.Provable;
+
+/**
+ * A document together with the canonical form retained from the JSON it was parsed from, if that JSON was already canonical. Verifying against the retained
+ * form avoids converting the document back to JSON and re-writing it in canonical form.
+ *
+ * <p>The document should not be modified, as that would invalidate the retained form.
+ *
+ * @param <T> the document type
+ *
+ * @author agent on 19/10/2026.
+ */
+public class ParsedDocument<T extends Provable> {
+
+  /**
+   * Parse a document from UTF-8 encoded JSON, retaining the canonical form if the JSON is already canonical. Whether the JSON is canonical is detected as
+   * it is parsed.
+   *
+   * @param json the JSON
+   * @param type the document type
+   * @param <T>  the document type
+   *
+   * @return the parsed document
+   *
+   * @throws IOException if the JSON is invalid or does not represent the document type
+   */
+  public static <T extends Provable> ParsedDocument<T> parse(byte[] json, Class<T> type) throws IOException {
+    try (CanonicalDetector detector = new CanonicalDetector(json)) {
+      T document = JsonConvert.getReader(type).readValue(detector);
+      return new ParsedDocument<>(document, detector.getRetained());
+    }
+  }
+
+
+  /** The document. */
+  private final T document;
+
+  /** The retained canonical form, if the document was parsed from canonical JSON. */
+  private final CanonicalDocument retained;
+
+
+  /**
+   * New instance.
+   *
+   * @param document the document
+   * @param retained the canonical form retained from the document's original JSON, or null
+   */
+  public ParsedDocument(T document, CanonicalDocument retained) {
+    this.document = Objects.requireNonNull(document);
+    this.retained = retained;
+  }
+
+
+  /**
+   * Get the canonical form of the document. The retained form is used if it is available, otherwise it is calculated.
+   *
+   * @return the canonical form
+   */
+  public CanonicalDocument getCanonical() {
+    return retained != null ? retained : CanonicalDocument.of(document);
+  }
+
+
+  public T getDocument() {
+    return document;
+  }
+
+
+  /**
+   * Get the canonical form retained from the document's original JSON.
+   *
+   * @return the retained form, or null if the original JSON was not canonical
+   */
+  public CanonicalDocument getRetained() {
+    return retained;
+  }
+
+}
@@ -27,6 +27,7 @@ import java.util.Objects;
 
 import io.setl.verafied.CredentialConstants;
 import io.setl.verafied.data.TypedKeyPair;
+import io.setl.verafied.data.jwk.DeterministicEcdsa;
 import io.setl.verafied.data.jwk.SigningAlgorithm;
 
 /**
@@ -39,6 +40,9 @@ public class ProofContext extends SharedContext {
   /** The proof generator. */
   private final Prover prover;
 
+  /** If true, ECDSA signatures are created deterministically. */
+  private boolean isDeterministic = false;
+
   /** The signature. */
   private byte[] signatureValue;
 
@@ -66,12 +70,38 @@ public class ProofContext extends SharedContext {
   }
 
 
+  /**
+   * Will ECDSA signatures be created deterministically, as per RFC 6979?
+   *
+   * @return true if ECDSA signatures are deterministic
+   */
+  public boolean isDeterministic() {
+    return isDeterministic;
+  }
+
+
+  /**
+   * Set whether ECDSA signatures should be created deterministically, as per RFC 6979. Deterministic signatures do not require a random number, and
+   * signing the same bytes with the same key always produces the same signature. This setting has no effect on algorithms other than ECDSA.
+   *
+   * @param isDeterministic true if ECDSA signatures should be deterministic
+   */
+  public void setDeterministic(boolean isDeterministic) {
+    this.isDeterministic = isDeterministic;
+  }
+
+
   /**
    * Sign the document.
    */
   public void sign(TypedKeyPair typedKey) throws GeneralSecurityException {
     PrivateKey privateKey = typedKey.getPrivateKey();
     SigningAlgorithm algorithm = typedKey.getAlgorithm();
+    if (isDeterministic && DeterministicEcdsa.isSupported(algorithm)) {
+      signatureValue = DeterministicEcdsa.sign(algorithm, privateKey, getBytesToSign());
+      return;
+    }
+
     Signature signature = algorithm.createSignature();
     signature.initSign(privateKey, CredentialConstants.getSecureRandom());
     signature.update(getBytesToSign());
@@ -0,0 +1,188 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+package io.setl.verafied.proof;
+
+import static io.setl.verafied.CredentialConstants.logSafe;
+import static io.setl.verafied.UnacceptableDocumentException.mapOf;
+
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import io.setl.verafied.UnacceptableDocumentException;
+import io.setl.verafied.data.Proof;
+import io.setl.verafied.data.Provable;
+import io.setl.verafied.data.TypedKeyPair;
+import io.setl.verafied.did.DidId;
+import io.setl.verafied.did.DidStore;
+import io.setl.verafied.did.DidStoreException;
+import io.setl.verafied.did.KeyUsage;
+
+/**
+ * Utility methods for creating and verifying proof sets. A proof set contains several independent proofs over the same document, for example when a document
+ * must be co-signed by several parties. Every member of the set signs the same canonical form of the document, which excludes both the "proof" and the
+ * "proofSet", so the canonical form is created once and shared by all signers and all verifiers. Members can be added to the set at any time without
+ * invalidating the existing members.
+ *
+ * @author agent on 18/10/2026.
+ */
+public class ProofSetApi {
+
+  private static final String DOCUMENT_TYPE = "documentType";
+
+
+  /** The outcome of verifying one member of a proof set. */
+  private static class Outcome {
+
+    /** The controller of the verification method, if the proof verified. */
+    DidId controller;
+
+    /** Failure to access the DID store. */
+    DidStoreException didStoreException;
+
+    /** The verification result. */
+    VerifyOutput output;
+
+  }
+
+
+  /**
+   * Add proofs to a document's proof set, one for each key pair. The document's canonical form is only created once.
+   *
+   * @param document the document
+   * @param keyPairs the key pairs of the signers
+   *
+   * @throws GeneralSecurityException if a signature cannot be created
+   */
+  public static void prove(Provable document, List<TypedKeyPair> keyPairs) throws GeneralSecurityException {
+    CanonicalJsonWithJws prover = new CanonicalJsonWithJws();
+    CanonicalDocument canonical = CanonicalDocument.withoutProofs(document);
+
+    List<Proof> proofSet = new ArrayList<>(document.getProofSet());
+    for (TypedKeyPair keyPair : keyPairs) {
+      proofSet.add(prover.createSetProof(new ProofContext(prover), canonical, keyPair));
+    }
+    document.setProofSet(proofSet);
+  }
+
+
+  /**
+   * Verify a document's proof set. Each member of the set is verified in its own context, and the members are verified in parallel using the supplied
+   * executor. The set is acceptable if at least the required number of distinct DIDs produced valid proofs.
+   *
+   * @param document the document
+   * @param type     the type of the document
+   * @param id       the ID of the document
+   * @param didStore the DID store used to resolve verification methods
+   * @param required the number of distinct DIDs which must have produced valid proofs
+   * @param executor the executor which performs the verifications
+   *
+   * @return the verification result for each member of the proof set, in order
+   *
+   * @throws UnacceptableDocumentException if fewer than the required number of DIDs produced valid proofs
+   * @throws DidStoreException             if the policy was not satisfied and a DID could not be accessed
+   */
+  public static List<VerifyOutput> verify(Provable document, String type, Object id, DidStore didStore, int required, Executor executor)
+      throws DidStoreException, UnacceptableDocumentException {
+    if (required < 1) {
+      throw new IllegalArgumentException("Required number of proofs must be positive, not " + required);
+    }
+    List<Proof> proofSet = document.getProofSet();
+    if (proofSet.isEmpty()) {
+      String message = String.format("%s %s does not have a proof set", type, logSafe(String.valueOf(id)));
+      throw new UnacceptableDocumentException("document_no_proof_set", message, mapOf(DOCUMENT_TYPE, type, "id", id));
+    }
+
+    CanonicalDocument canonical = CanonicalDocument.withoutProofs(document);
+    KeyUsage purpose = document.getProofPurpose();
+    List<CompletableFuture<Outcome>> futures = new ArrayList<>(proofSet.size());
+    for (Proof proof : proofSet) {
+      futures.add(CompletableFuture.supplyAsync(() -> verifyMember(canonical, proof, type, id, didStore, purpose), executor));
+    }
+
+    List<VerifyOutput> outputs = new ArrayList<>(proofSet.size());
+    Set<DidId> verified = new HashSet<>();
+    DidStoreException didStoreException = null;
+    for (CompletableFuture<Outcome> future : futures) {
+      Outcome outcome;
+      try {
+        outcome = future.join();
+      } catch (CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        throw e;
+      }
+      if (outcome.didStoreException != null && didStoreException == null) {
+        didStoreException = outcome.didStoreException;
+      }
+      if (outcome.controller != null) {
+        verified.add(outcome.controller);
+      }
+      outputs.add(outcome.output);
+    }
+
+    if (verified.size() >= required) {
+      return outputs;
+    }
+    if (didStoreException != null) {
+      throw didStoreException;
+    }
+    String message = String.format("%s %s has valid proofs from %d DIDs but requires %d", type, logSafe(String.valueOf(id)), verified.size(), required);
+    throw new UnacceptableDocumentException("proof_set_insufficient", message,
+        mapOf(DOCUMENT_TYPE, type, "id", id, "required", required, "verified", verified.size())
+    );
+  }
+
+
+  private static Outcome verifyMember(CanonicalDocument canonical, Proof proof, String type, Object id, DidStore didStore, KeyUsage purpose) {
+    Outcome outcome = new Outcome();
+    CanonicalJsonWithJws verifier = new CanonicalJsonWithJws();
+    VerifyContext context = new VerifyContext(didStore);
+    context.setProofPurpose(purpose);
+    try {
+      verifier.verifySetProof(context, canonical, proof);
+      outcome.controller = new DidId(proof.getVerificationMethod()).withoutFragment();
+      outcome.output = VerifyOutput.OK;
+    } catch (UnacceptableDocumentException e) {
+      outcome.output = new VerifyOutput(e);
+    } catch (DidStoreException e) {
+      outcome.didStoreException = e;
+      outcome.output = new VerifyOutput("proof_did_unavailable", "DID could not be accessed: " + e.getMessage(), mapOf("errorMessage", e.toString()));
+    } catch (GeneralSecurityException e) {
+      String message = String.format("%s %s proof did not verify", type, logSafe(String.valueOf(id)));
+      outcome.output = new VerifyOutput("document_proof_error", message, mapOf(DOCUMENT_TYPE, type, "id", id, "errorMessage", e.toString()));
+    }
+    return outcome;
+  }
+
+
+  private ProofSetApi() {
+    // Hidden as this is a utility class
+  }
+
+}
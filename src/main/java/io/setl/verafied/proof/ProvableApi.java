@@ -24,6 +24,7 @@ import static io.setl.verafied.CredentialConstants.logSafe;
 import static io.setl.verafied.UnacceptableDocumentException.mapOf;
 
 import java.security.GeneralSecurityException;
+import java.time.Instant;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -103,6 +104,25 @@ public class ProvableApi {
   }
 
 
+  /**
+   * Verify that a previously calculated canonical form was created from a document with the same ID and proof. A document without a proof is not checked,
+   * as that is reported when the proof is verified.
+   *
+   * @param myProof  the document's proof
+   * @param document the canonical form supplied for the document
+   * @param type     the type of the document
+   * @param id       the ID of the document
+   *
+   * @throws UnacceptableDocumentException if the canonical form is of a different document
+   */
+  public static void verifyCanonicalForm(Proof myProof, CanonicalDocument document, String type, Object id) throws UnacceptableDocumentException {
+    if (myProof != null && !document.isFormOf(id, myProof)) {
+      String message = String.format("%s %s NOT verified as the canonical form supplied is of a different document", type, logSafe(String.valueOf(id)));
+      throw new UnacceptableDocumentException("document_canonical_mismatch", message, mapOf(DOCUMENT_TYPE, type, "id", id));
+    }
+  }
+
+
   /**
    * Verify that this document correctly declares the W3C context.
    *
@@ -160,10 +180,33 @@ public class ProvableApi {
       throw new UnacceptableDocumentException("document_no_proof", message, mapOf(DOCUMENT_TYPE, type, "id", id));
     }
 
-    JsonObject input = (JsonObject) JsonConvert.toJson(document);
+    verifyProof(myProof, CanonicalDocument.of((JsonObject) JsonConvert.toJson(document)), type, id, verifyContext);
+  }
+
+
+  /**
+   * Verify that the cryptographic proof for a document is correct, using the document's previously calculated canonical form.
+   *
+   * @param myProof       the document's proof
+   * @param document      the canonical form of the document
+   * @param type          the type of the document
+   * @param id            the ID of the document
+   * @param verifyContext the verification context
+   *
+   * @throws UnacceptableDocumentException if the proof is invalid
+   * @throws DidStoreException             if the signing DIDs cannot be accessed
+   */
+  public static void verifyProof(Proof myProof, CanonicalDocument document, String type, Object id, VerifyContext verifyContext)
+      throws DidStoreException, UnacceptableDocumentException {
+    // The input must contain a 'proof'
+    if (myProof == null) {
+      String message = String.format("%s %s has not been proved", type, logSafe(String.valueOf(id)));
+      throw new UnacceptableDocumentException("document_no_proof", message, mapOf(DOCUMENT_TYPE, type, "id", id));
+    }
+
     CanonicalJsonWithJws verifier = new CanonicalJsonWithJws();
     try {
-      verifier.verifyProof(verifyContext, input, myProof);
+      verifier.verifyProof(verifyContext, document, myProof);
     } catch (GeneralSecurityException e) {
       // Proof object is invalid
       String message = String.format("%s %s proof did not verify", type, logSafe(String.valueOf(id)));
@@ -175,6 +218,58 @@ public class ProvableApi {
   }
 
 
+  /**
+   * Verify that the cryptographic proof for a parsed document is correct. If the canonical form was retained from the document's original JSON, the proof
+   * is checked against that. Otherwise, the canonical form is calculated from the document.
+   *
+   * @param myProof       the document's proof
+   * @param document      the parsed document
+   * @param type          the type of the document
+   * @param id            the ID of the document
+   * @param verifyContext the verification context
+   *
+   * @throws UnacceptableDocumentException if the proof is invalid
+   * @throws DidStoreException             if the signing DIDs cannot be accessed
+   */
+  public static void verifyProof(Proof myProof, ParsedDocument<?> document, String type, Object id, VerifyContext verifyContext)
+      throws DidStoreException, UnacceptableDocumentException {
+    verifyProof(myProof, document.getCanonical(), type, id, verifyContext);
+  }
+
+
+  /**
+   * Verify that the cryptographic proof for a document is correct, consulting a cache of previous verifications. If the cache shows the proof has already
+   * been verified, the cryptographic check is skipped. Otherwise, the proof is checked and a successful verification is added to the cache.
+   *
+   * <p>The cache does not record the principal a proof was accepted for. If the context has a principal, the verification method is still resolved on a
+   * cache hit, so that it is checked against the principal.
+   *
+   * @param myProof        the document's proof
+   * @param document       the canonical form of the document
+   * @param type           the type of the document
+   * @param id             the ID of the document
+   * @param verifyContext  the verification context
+   * @param cache          the verification cache
+   * @param documentExpiry when the document expires, or null if it does not expire
+   *
+   * @throws UnacceptableDocumentException if the proof is invalid
+   * @throws DidStoreException             if the signing DIDs cannot be accessed
+   */
+  public static void verifyProof(
+      Proof myProof, CanonicalDocument document, String type, Object id, VerifyContext verifyContext,
+      VerificationCache cache, Instant documentExpiry
+  ) throws DidStoreException, UnacceptableDocumentException {
+    if (myProof != null && cache.isVerified(myProof, document)) {
+      if (verifyContext.getPrincipal() != null) {
+        verifyContext.findVerificationMethod(myProof);
+      }
+      return;
+    }
+    verifyProof(myProof, document, type, id, verifyContext);
+    cache.put(myProof, document, documentExpiry);
+  }
+
+
   /**
    * Verify if a JSON-LD document specifies the required type.
    *
@@ -0,0 +1,200 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+
+package io.setl.verafied.proof;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import io.setl.verafied.CredentialConstants;
+
+/**
+ * A record of the challenges which have been used in presentation proofs, so that a presentation cannot be replayed. A proof is only accepted if it was
+ * created within a fixed window before the current time, so a challenge need only be remembered for as long as the window.
+ *
+ * <p>Challenges are held in a ring of buckets by the creation time of their proofs. When the ring comes round to a bucket again, the whole bucket is
+ * discarded, so memory is bounded by the window and the rate of presentations without any per-entry expiry. Each bucket is a concurrent set sized for the
+ * expected rate, and a new bucket is installed by compare-and-set, so there is no global lock.
+ *
+ * <p>Two presentations with the same challenge and different creation times could both be accepted if they are registered concurrently. As both must be
+ * signed by the holder, this does not allow a third party to replay a presentation.
+ *
+ * @author agent on 19/10/2026.
+ */
+public class ReplayCache {
+
+  /** A set of challenges whose proofs were created within the same interval. */
+  private static class Bucket {
+
+    /** The challenges. */
+    final Set<String> challenges;
+
+    /** The interval's index. */
+    final long index;
+
+
+    Bucket(long index, int capacity) {
+      this.index = index;
+      challenges = ConcurrentHashMap.newKeySet(capacity);
+    }
+
+  }
+
+
+  /** Number of buckets in the ring. */
+  private static final int BUCKETS = 16;
+
+
+  /** The duration of each bucket's interval in milliseconds. */
+  private final long bucketMillis;
+
+  /** The ring of buckets. */
+  private final AtomicReferenceArray<Bucket> buckets = new AtomicReferenceArray<>(BUCKETS);
+
+  /** The initial capacity of each bucket. */
+  private final int capacity;
+
+  /** The window in which a proof must have been created. */
+  private final Duration window;
+
+  /** The window in milliseconds. */
+  private final long windowMillis;
+
+
+  /**
+   * New instance.
+   *
+   * @param window       how long before the current time a proof may have been created. A proof may also have been created slightly after the current
+   *                     time, to allow for clock differences.
+   * @param expectedRate the expected number of presentations per second
+   */
+  public ReplayCache(Duration window, int expectedRate) {
+    if (window.toMillis() < 1) {
+      throw new IllegalArgumentException("Window must be positive, not " + window);
+    }
+    if (expectedRate < 1) {
+      throw new IllegalArgumentException("Expected rate must be positive, not " + expectedRate);
+    }
+    this.window = window;
+    windowMillis = window.toMillis();
+
+    // The window plus the allowance for clock differences must never span more than the whole ring
+    long divisor = BUCKETS - 3L;
+    bucketMillis = (windowMillis + divisor - 1) / divisor;
+    capacity = (int) Math.min(1 << 30, Math.max(16, expectedRate * bucketMillis / 1000));
+  }
+
+
+  public Duration getWindow() {
+    return window;
+  }
+
+
+  /**
+   * Test if a proof's creation time is within the window, and hence whether its challenge can be registered.
+   *
+   * @param created when the proof was created
+   *
+   * @return true if the creation time is within the window
+   */
+  public boolean isCurrent(Instant created) {
+    return isCurrent(created.toEpochMilli(), CredentialConstants.getClock().millis());
+  }
+
+
+  /**
+   * Register the use of a challenge. This should only be called once the proof containing the challenge has been verified, so that a challenge cannot be
+   * used up by a forged proof.
+   *
+   * @param challenge the challenge
+   * @param created   when the proof containing the challenge was created
+   *
+   * @return true if the challenge was registered, false if it has been used before or the creation time is not within the window
+   */
+  public boolean register(String challenge, Instant created) {
+    long now = CredentialConstants.getClock().millis();
+    long time = created.toEpochMilli();
+    if (!isCurrent(time, now)) {
+      return false;
+    }
+
+    // The challenge may have been used in a proof with a different creation time
+    long oldest = Math.floorDiv(now - windowMillis, bucketMillis);
+    for (int i = 0; i < BUCKETS; i++) {
+      Bucket bucket = buckets.get(i);
+      if (bucket != null && bucket.index >= oldest && bucket.challenges.contains(challenge)) {
+        return false;
+      }
+    }
+
+    Bucket bucket = getBucket(Math.floorDiv(time, bucketMillis));
+    return bucket != null && bucket.challenges.add(challenge);
+  }
+
+
+  /**
+   * Get the number of challenges remembered, including any in buckets which have left the window but not yet been discarded.
+   *
+   * @return the number of challenges
+   */
+  public int size() {
+    int size = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      Bucket bucket = buckets.get(i);
+      if (bucket != null) {
+        size += bucket.challenges.size();
+      }
+    }
+    return size;
+  }
+
+
+  private Bucket getBucket(long index) {
+    int slot = (int) Math.floorMod(index, (long) BUCKETS);
+    while (true) {
+      Bucket bucket = buckets.get(slot);
+      if (bucket != null) {
+        if (bucket.index == index) {
+          return bucket;
+        }
+        if (bucket.index > index) {
+          // The slot has already moved on to a later interval
+          return null;
+        }
+      }
+
+      // Discard the old bucket
+      Bucket newBucket = new Bucket(index, capacity);
+      if (buckets.compareAndSet(slot, bucket, newBucket)) {
+        return newBucket;
+      }
+    }
+  }
+
+
+  private boolean isCurrent(long time, long now) {
+    return now - windowMillis <= time && time <= now + bucketMillis;
+  }
+
+}
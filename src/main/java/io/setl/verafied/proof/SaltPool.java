@@ -0,0 +1,113 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+package io.setl.verafied.proof;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * A ring of pre-generated salts which is refilled by a background thread. Taking a salt from the pool does not touch the secure random number generator
+ * unless the pool has been exhausted, in which case a salt is generated directly. To use a pool for all proofs, pass it to
+ * {@link JsonSalt#setSupplier(Supplier)}.
+ *
+ * @author agent on 18/10/2026.
+ */
+public class SaltPool implements Supplier<String>, AutoCloseable {
+
+  /** Number of salts generated in each batch. */
+  private final int batchSize;
+
+  /** The background refill thread. */
+  private final Thread refiller;
+
+  /** The ring of ready salts. */
+  private final BlockingQueue<String> ring;
+
+
+  /**
+   * New instance. The pool starts filling immediately.
+   *
+   * @param capacity  the number of salts to hold ready
+   * @param batchSize the number of salts to generate from each request to the secure random number generator
+   */
+  public SaltPool(int capacity, int batchSize) {
+    if (capacity < 1 || batchSize < 1) {
+      throw new IllegalArgumentException("Capacity and batch size must be positive");
+    }
+    this.batchSize = batchSize;
+    ring = new ArrayBlockingQueue<>(capacity);
+    refiller = new Thread(this::refill, "salt-pool-refill");
+    refiller.setDaemon(true);
+    refiller.start();
+  }
+
+
+  /**
+   * Stop refilling this pool. Salts already in the pool remain available.
+   */
+  @Override
+  public void close() {
+    refiller.interrupt();
+  }
+
+
+  /**
+   * Get a salt from the pool, or generate one if the pool is empty.
+   *
+   * @return a salt
+   */
+  @Override
+  public String get() {
+    String salt = ring.poll();
+    return salt != null ? salt : JsonSalt.generate();
+  }
+
+
+  /**
+   * Get the number of salts currently ready.
+   *
+   * @return the number of ready salts
+   */
+  public int getReady() {
+    return ring.size();
+  }
+
+
+  private void refill() {
+    byte[] buffer = new byte[batchSize * JsonSalt.LENGTH];
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        JsonSalt.fill(buffer, 0, batchSize);
+        for (int i = 0; i < batchSize; i++) {
+          // blocks whilst the ring is full
+          ring.put(new String(buffer, i * JsonSalt.LENGTH, JsonSalt.LENGTH, ISO_8859_1));
+        }
+      }
+    } catch (InterruptedException e) {
+      // closed, so just exit
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
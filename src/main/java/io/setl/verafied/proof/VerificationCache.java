@@ -0,0 +1,199 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+package io.setl.verafied.proof;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+
+import io.setl.verafied.BoundedCache;
+import io.setl.verafied.CredentialConstants;
+import io.setl.verafied.data.Proof;
+import io.setl.verafied.did.DidChange;
+import io.setl.verafied.did.DidChangeListener;
+
+/**
+ * A cache of successful proof verifications. An entry is keyed by the proof's "jws" value and the digest of the document's canonical form, so a hit means
+ * exactly the same bytes with exactly the same signature have already been verified.
+ *
+ * <p>An entry expires at the earlier of the document's own expiry and the cache's time-to-live. The time-to-live bounds how long a verification remains
+ * valid after the signing key is removed from its DID. A cache hit only skips the cryptographic check, so other checks such as revocation must still be
+ * performed by the caller. As a hit does not fetch a DID, the verification context is not updated with the verification method.
+ *
+ * <p>When the cache is full, recording a new verification evicts the least recently used one.
+ *
+ * <p>When registered with a {@link io.setl.verafied.did.DidChangeBus}, the verifications which used a verification method revoked by a change are removed
+ * immediately, rather than remaining valid until they expire.
+ *
+ * <p>Verifications are only valid with respect to the DID store that performed them, so a cache should not be shared between contexts that use different
+ * DID stores.
+ *
+ * @author agent on 18/10/2026.
+ */
+public class VerificationCache implements DidChangeListener {
+
+  /** A successful verification. */
+  private static class Entry {
+
+    /** When the verification expires. */
+    final Instant expiry;
+
+    /** The verification method used, if known. */
+    final URI method;
+
+
+    Entry(Instant expiry, URI method) {
+      this.expiry = expiry;
+      this.method = method;
+    }
+
+  }
+
+
+  /** Map of cache key to verification. */
+  private final BoundedCache<String, Entry> cache;
+
+  /** Maximum time for which an entry is held. */
+  private final Duration timeToLive;
+
+
+  /**
+   * New instance.
+   *
+   * @param timeToLive the maximum time for which a verification is held
+   * @param maxSize    the maximum number of verifications held
+   */
+  public VerificationCache(Duration timeToLive, int maxSize) {
+    if (timeToLive.isNegative() || timeToLive.isZero()) {
+      throw new IllegalArgumentException("Time to live must be positive, not " + timeToLive);
+    }
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("Maximum size must be positive, not " + maxSize);
+    }
+    this.timeToLive = timeToLive;
+    cache = new BoundedCache<>(maxSize);
+  }
+
+
+  /**
+   * Remove all entries from this cache.
+   */
+  public void clear() {
+    cache.clear();
+  }
+
+
+  public int getMaxSize() {
+    return cache.getMaxSize();
+  }
+
+
+  public Duration getTimeToLive() {
+    return timeToLive;
+  }
+
+
+  /**
+   * Test if a document with the given proof has already been verified.
+   *
+   * @param proof    the document's proof
+   * @param document the document's canonical form
+   *
+   * @return true if the document's proof has been verified and that verification has not expired
+   */
+  public boolean isVerified(Proof proof, CanonicalDocument document) {
+    String key = toKey(proof, document);
+    if (key == null) {
+      return false;
+    }
+    Entry entry = cache.get(key);
+    if (entry == null) {
+      return false;
+    }
+    if (!entry.expiry.isAfter(CredentialConstants.getClock().instant())) {
+      cache.remove(key, entry);
+      return false;
+    }
+    return true;
+  }
+
+
+  /**
+   * Remove all verifications which used a verification method revoked by the change.
+   *
+   * @param change the change to a DID document
+   */
+  @Override
+  public void onChange(DidChange change) {
+    cache.removeIf(entry -> change.isRevoked(entry.method));
+  }
+
+
+  /**
+   * Remove all expired entries from this cache.
+   */
+  public void purge() {
+    Instant now = CredentialConstants.getClock().instant();
+    cache.removeIf(entry -> !entry.expiry.isAfter(now));
+  }
+
+
+  /**
+   * Record that a document's proof has been successfully verified. If the cache is full, the least recently used verification is evicted.
+   *
+   * @param proof          the document's proof
+   * @param document       the document's canonical form
+   * @param documentExpiry when the document itself expires (optional)
+   */
+  public void put(Proof proof, CanonicalDocument document, Instant documentExpiry) {
+    String key = toKey(proof, document);
+    if (key == null) {
+      return;
+    }
+    Instant expiry = CredentialConstants.getClock().instant().plus(timeToLive);
+    if (documentExpiry != null && documentExpiry.isBefore(expiry)) {
+      expiry = documentExpiry;
+    }
+    cache.put(key, new Entry(expiry, proof.getVerificationMethod()));
+  }
+
+
+  /**
+   * Get the number of entries in this cache, including any which have expired but not yet been removed.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return cache.size();
+  }
+
+
+  private String toKey(Proof proof, CanonicalDocument document) {
+    String jws = Objects.requireNonNull(proof).get(String.class, "jws");
+    if (jws == null || jws.isEmpty()) {
+      return null;
+    }
+    // The JWS is Base64-URL plus dots, so a space is an unambiguous separator
+    return jws + " " + document.getDigestText();
+  }
+
+}
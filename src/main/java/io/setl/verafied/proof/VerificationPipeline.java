@@ -0,0 +1,189 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+package io.setl.verafied.proof;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import io.setl.verafied.UnacceptableDocumentException;
+import io.setl.verafied.did.DidStoreException;
+import io.setl.verafied.proof.VerificationStage.Cost;
+
+/**
+ * A sequence of verification stages. Stages are run cheapest first, so that a document which fails a local check is rejected before any DID is fetched or
+ * any signature is checked. Verification stops at the first failure. Stages of the same cost are run in the order they were added, except that I/O stages
+ * are run concurrently if an executor has been provided.
+ *
+ * <p>A pipeline is immutable and may be shared between threads.
+ *
+ * @param <T> the type of document verified
+ *
+ * @author agent on 18/10/2026.
+ */
+public class VerificationPipeline<T> {
+
+  /** Executor for concurrent I/O stages. If null, I/O stages run on the calling thread. */
+  private final Executor executor;
+
+  /** The stages, in the order they will be run. */
+  private final List<VerificationStage<T>> stages;
+
+
+  /**
+   * New empty pipeline which runs every stage on the calling thread.
+   */
+  public VerificationPipeline() {
+    this(null, List.of());
+  }
+
+
+  /**
+   * New empty pipeline which runs I/O stages concurrently using the supplied executor.
+   *
+   * @param executor the executor for I/O stages
+   */
+  public VerificationPipeline(Executor executor) {
+    this(Objects.requireNonNull(executor), List.of());
+  }
+
+
+  private VerificationPipeline(Executor executor, List<VerificationStage<T>> stages) {
+    this.executor = executor;
+    this.stages = stages;
+  }
+
+
+  /**
+   * Get the stages of this pipeline, in the order they will be run.
+   *
+   * @return the stages
+   */
+  public List<VerificationStage<T>> getStages() {
+    return stages;
+  }
+
+
+  /**
+   * Verify a document by running every stage of this pipeline.
+   *
+   * @param document the document
+   * @param context  the verification context
+   *
+   * @throws UnacceptableDocumentException if the document fails a stage
+   * @throws DidStoreException             if a DID cannot be accessed
+   */
+  public void verify(T document, VerifyContext context) throws DidStoreException, UnacceptableDocumentException {
+    int size = stages.size();
+    int index = 0;
+    while (index < size) {
+      VerificationStage<T> stage = stages.get(index);
+      if (stage.getCost() != Cost.IO || executor == null) {
+        stage.verify(document, context);
+        index++;
+        continue;
+      }
+
+      // Find all the I/O stages, which are adjacent as the stages are sorted
+      int end = index + 1;
+      while (end < size && stages.get(end).getCost() == Cost.IO) {
+        end++;
+      }
+      if (end == index + 1) {
+        stage.verify(document, context);
+      } else {
+        verifyConcurrently(stages.subList(index, end), document, context);
+      }
+      index = end;
+    }
+  }
+
+
+  /**
+   * Create a new pipeline which contains all the stages of this and the new stage.
+   *
+   * @param stage the additional stage
+   *
+   * @return the new pipeline
+   */
+  public VerificationPipeline<T> with(VerificationStage<T> stage) {
+    List<VerificationStage<T>> newStages = new ArrayList<>(stages);
+    newStages.add(Objects.requireNonNull(stage));
+
+    // A stable sort, so stages of the same cost keep their order
+    newStages.sort(Comparator.comparing(VerificationStage::getCost));
+    return new VerificationPipeline<>(executor, List.copyOf(newStages));
+  }
+
+
+  /**
+   * Create a new pipeline which contains all the stages of this and a new stage.
+   *
+   * @param name  the new stage's name
+   * @param cost  the new stage's cost
+   * @param check the new stage's check
+   *
+   * @return the new pipeline
+   */
+  public VerificationPipeline<T> with(String name, Cost cost, VerificationStage.Check<T> check) {
+    return with(VerificationStage.of(name, cost, check));
+  }
+
+
+  private void verifyConcurrently(List<VerificationStage<T>> ioStages, T document, VerifyContext context)
+      throws DidStoreException, UnacceptableDocumentException {
+    List<CompletableFuture<Void>> futures = new ArrayList<>(ioStages.size());
+    for (VerificationStage<T> stage : ioStages) {
+      futures.add(CompletableFuture.runAsync(() -> {
+        try {
+          stage.verify(document, context);
+        } catch (DidStoreException | UnacceptableDocumentException e) {
+          throw new CompletionException(e);
+        }
+      }, executor));
+    }
+
+    // Report the first failure in stage order. Stages which have not started when a failure is found are cancelled.
+    for (CompletableFuture<Void> future : futures) {
+      try {
+        future.join();
+      } catch (CompletionException e) {
+        futures.forEach(f -> f.cancel(false));
+        Throwable cause = e.getCause();
+        if (cause instanceof UnacceptableDocumentException) {
+          throw (UnacceptableDocumentException) cause;
+        }
+        if (cause instanceof DidStoreException) {
+          throw (DidStoreException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        throw e;
+      }
+    }
+  }
+
+}
@@ -0,0 +1,140 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+package io.setl.verafied.proof;
+
+import java.util.Objects;
+
+import io.setl.verafied.UnacceptableDocumentException;
+import io.setl.verafied.data.Proof;
+import io.setl.verafied.did.DidStoreException;
+import io.setl.verafied.did.KeyUsage;
+
+/**
+ * A single check within a verification pipeline.
+ *
+ * @param <T> the type of document checked
+ *
+ * @author agent on 18/10/2026.
+ */
+public interface VerificationStage<T> {
+
+  /** The relative cost of a stage. Cheaper stages are run first. */
+  enum Cost {
+    /** The check only inspects the document in memory. */
+    LOCAL,
+
+    /** The check requires access to an external resource, such as a revocation list. I/O stages may be run concurrently with each other. */
+    IO,
+
+    /** The check requires cryptographic operations, such as verifying a signature. */
+    CRYPTO
+  }
+
+
+
+  /** The check performed by a stage. */
+  @FunctionalInterface
+  interface Check<T> {
+
+    /**
+     * Check a document.
+     *
+     * @param document the document
+     * @param context  the verification context
+     *
+     * @throws UnacceptableDocumentException if the document fails the check
+     * @throws DidStoreException             if a DID cannot be accessed
+     */
+    void verify(T document, VerifyContext context) throws DidStoreException, UnacceptableDocumentException;
+
+  }
+
+
+  /**
+   * Create a stage from a check.
+   *
+   * @param name  the stage's name
+   * @param cost  the stage's cost
+   * @param check the check
+   * @param <T>   the document type
+   *
+   * @return the stage
+   */
+  static <T> VerificationStage<T> of(String name, Cost cost, Check<T> check) {
+    Objects.requireNonNull(name);
+    Objects.requireNonNull(cost);
+    Objects.requireNonNull(check);
+    return new VerificationStage<>() {
+      @Override
+      public Cost getCost() {
+        return cost;
+      }
+
+
+      @Override
+      public String getName() {
+        return name;
+      }
+
+
+      @Override
+      public void verify(T document, VerifyContext context) throws DidStoreException, UnacceptableDocumentException {
+        check.verify(document, context);
+      }
+
+
+      @Override
+      public String toString() {
+        return "VerificationStage(" + name + ", " + cost + ")";
+      }
+    };
+  }
+
+
+  /**
+   * Get the relative cost of this stage.
+   *
+   * @return the cost
+   */
+  Cost getCost();
+
+
+  /**
+   * Get a name for this stage, for use in diagnostics.
+   *
+   * @return the name
+   */
+  String getName();
+
+
+  /**
+   * Check a document. An I/O stage may run concurrently with other I/O stages, so it must not change the settings of the verification context. It may resolve
+   * a verification method in advance with {@link VerifyContext#resolveVerificationMethod(Proof, KeyUsage)}, as that changes no settings.
+   *
+   * @param document the document
+   * @param context  the verification context
+   *
+   * @throws UnacceptableDocumentException if the document fails the check
+   * @throws DidStoreException             if a DID cannot be accessed
+   */
+  void verify(T document, VerifyContext context) throws DidStoreException, UnacceptableDocumentException;
+
+}
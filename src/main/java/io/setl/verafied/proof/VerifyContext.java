@@ -22,6 +22,7 @@ package io.setl.verafied.proof;
 
 import static io.setl.verafied.UnacceptableDocumentException.mapOf;
 
+import java.io.IOException;
 import java.net.URI;
 import java.security.InvalidKeyException;
 import java.security.Signature;
@@ -33,10 +34,16 @@ import java.util.Objects;
 import io.setl.verafied.UnacceptableDocumentException;
 import io.setl.verafied.data.Proof;
 import io.setl.verafied.data.jwk.SigningAlgorithm;
+import io.setl.verafied.did.CompactDid;
+import io.setl.verafied.did.CompactDidStore;
+import io.setl.verafied.did.ControllerResolver;
 import io.setl.verafied.did.DecentralizedIdentifier;
 import io.setl.verafied.did.DidId;
 import io.setl.verafied.did.DidStore;
 import io.setl.verafied.did.DidStoreException;
+import io.setl.verafied.did.KeyUsage;
+import io.setl.verafied.did.LazyDidDocument;
+import io.setl.verafied.did.RawDidStore;
 import io.setl.verafied.did.VerificationMethod;
 import io.setl.verafied.did.validate.DidUrl.Has;
 import io.setl.verafied.did.validate.DidUrlValidator;
@@ -48,12 +55,63 @@ import io.setl.verafied.did.validate.DidUrlValidator;
  */
 public class VerifyContext extends SharedContext {
 
+  /** A verification method resolved in advance, and the settings it was resolved with. */
+  private static class Resolved {
+
+    /** The controller resolver used. */
+    final ControllerResolver controllerResolver;
+
+    /** The verification method. */
+    final VerificationMethod method;
+
+    /** The principal the method was checked against. */
+    final DidId principal;
+
+    /** The proof which specified the method. */
+    final Proof proof;
+
+    /** The purpose the method was checked against. */
+    final KeyUsage proofPurpose;
+
+
+    Resolved(Proof proof, KeyUsage proofPurpose, DidId principal, ControllerResolver controllerResolver, VerificationMethod method) {
+      this.proof = proof;
+      this.proofPurpose = proofPurpose;
+      this.principal = principal;
+      this.controllerResolver = controllerResolver;
+      this.method = method;
+    }
+
+
+    boolean matches(Proof proof, KeyUsage proofPurpose, DidId principal, ControllerResolver controllerResolver) {
+      return this.proof == proof && this.proofPurpose == proofPurpose && Objects.equals(this.principal, principal)
+          && this.controllerResolver == controllerResolver;
+    }
+
+  }
+
+
   private final DidStore didStore;
 
   private SigningAlgorithm algorithm;
 
   private byte[] allegedSignature;
 
+  private String challenge;
+
+  private ControllerResolver controllerResolver;
+
+  private String domain;
+
+  private DidId principal;
+
+  private KeyUsage proofPurpose;
+
+  private ReplayCache replayCache;
+
+  /** A verification method resolved in advance, or null. Volatile as it may be set by an I/O stage running on another thread. */
+  private volatile Resolved resolved;
+
   private VerificationMethod verificationMethod;
 
 
@@ -63,48 +121,34 @@ public class VerifyContext extends SharedContext {
 
 
   /**
-   * Identify the verification method required by a specific signed document.
+   * Identify the verification method required by a specific signed document. If a proof purpose has been set, the method must also have the corresponding
+   * verification relationship with its DID. If a principal has been set, the method's DID must be the principal, or for a capability purpose, one of the
+   * principal's controllers.
+   *
+   * <p>If the method was resolved in advance for this proof by {@link #resolveVerificationMethod(Proof, KeyUsage)} with the current proof purpose, principal
+   * and controller resolver, that method is returned without fetching the DID again.
    *
    * @param proof the signed document we are trying to verify
    *
    * @return the identified method
    */
   public VerificationMethod findVerificationMethod(Proof proof) throws DidStoreException, UnacceptableDocumentException {
-    // The proof should specify a verification method which is known to us.
-    URI method = proof.getVerificationMethod();
-    if (method == null) {
-      throw new UnacceptableDocumentException("proof_no_verification_method", "Proof does not contain a 'verificationMethod'");
-    }
-    if (!DidUrlValidator.isValid(method, "", Has.EITHER, Has.EITHER, Has.YES)) {
-      throw new UnacceptableDocumentException("proof_verification_method_not_did", "Specified 'verificationMethod' is not a valid 'did:' URI",
-          mapOf("verificationMethod", method)
-      );
-    }
+    Resolved myResolved = resolved;
+    resolved = null;
 
     // Extract the DID id and Key ID from the DID URI
-    DidId didId = new DidId(method);
+    DidId didId = toDidId(proof);
     setDidWithKey(didId);
 
-    // fetch the DID from the store
-    DecentralizedIdentifier did = getDidStore().fetch(didId.withoutFragment());
-    if (did == null) {
-      throw new UnacceptableDocumentException("proof_did_unknown", "DID associated with the document is not available", mapOf("did", didId));
-    }
-
-    // Look for the key in the DID
-    List<VerificationMethod> methods = did.getVerificationMethod();
     verificationMethod = null;
-    for (VerificationMethod vm : methods) {
-      if (Objects.equals(vm.getId(), method)) {
-        verificationMethod = vm;
-        return vm;
-      }
+    VerificationMethod found;
+    if (myResolved != null && myResolved.matches(proof, proofPurpose, principal, controllerResolver)) {
+      found = myResolved.method;
+    } else {
+      found = lookup(proof.getVerificationMethod(), didId, proofPurpose);
     }
-
-    // not matched
-    throw new UnacceptableDocumentException("proof_verification_method_not_matched", "No such verification method in specified DID",
-        mapOf("verificationMethod", method)
-    );
+    verificationMethod = found;
+    return found;
   }
 
 
@@ -140,6 +184,26 @@ public class VerifyContext extends SharedContext {
   }
 
 
+  /**
+   * Get the challenge which the proof must contain.
+   *
+   * @return the challenge, or null if the proof may contain any challenge
+   */
+  public String getChallenge() {
+    return challenge;
+  }
+
+
+  /**
+   * Get the resolver used to check that a verification method's DID controls the principal.
+   *
+   * @return the resolver, or null if only the principal's own verification methods are acceptable
+   */
+  public ControllerResolver getControllerResolver() {
+    return controllerResolver;
+  }
+
+
   /**
    * Get the DID Store from which Decentralized Identity Documents can be retrieved.
    *
@@ -150,6 +214,46 @@ public class VerifyContext extends SharedContext {
   }
 
 
+  /**
+   * Get the domain which the proof must contain.
+   *
+   * @return the domain, or null if the proof may contain any domain
+   */
+  public String getDomain() {
+    return domain;
+  }
+
+
+  /**
+   * Get the DID on whose behalf the proof is made.
+   *
+   * @return the principal, or null if a verification method in any DID is acceptable
+   */
+  public DidId getPrincipal() {
+    return principal;
+  }
+
+
+  /**
+   * Get the verification relationship that the verification method must have with its DID.
+   *
+   * @return the relationship, or null if any verification method in the DID is acceptable
+   */
+  public KeyUsage getProofPurpose() {
+    return proofPurpose;
+  }
+
+
+  /**
+   * Get the record of used challenges, which prevents a presentation being replayed.
+   *
+   * @return the record, or null if replays are not detected
+   */
+  public ReplayCache getReplayCache() {
+    return replayCache;
+  }
+
+
   /**
    * Get the verification method used to check the signature.
    *
@@ -166,6 +270,28 @@ public class VerifyContext extends SharedContext {
   }
 
 
+  /**
+   * Resolve the verification method for a proof in advance of checking its signature. This allows the DID to be fetched in an I/O stage of a verification
+   * pipeline, leaving only the signature check to the cryptographic stage. The next call to {@link #findVerificationMethod(Proof)} for the same proof returns
+   * the resolved method, if the proof purpose is then the one given here and the principal and controller resolver are unchanged.
+   *
+   * <p>The proof purpose is passed in rather than set, as this does not change any of the settings of this context. The resolved method is only recorded for
+   * the later call, so this may be called from an I/O stage running concurrently with others.
+   *
+   * @param proof        the signed document we are trying to verify
+   * @param proofPurpose the relationship the method must have with its DID, or null to accept any verification method in the DID
+   *
+   * @return the identified method
+   */
+  public VerificationMethod resolveVerificationMethod(Proof proof, KeyUsage proofPurpose) throws DidStoreException, UnacceptableDocumentException {
+    DidId myPrincipal = principal;
+    ControllerResolver myResolver = controllerResolver;
+    VerificationMethod found = lookup(proof.getVerificationMethod(), toDidId(proof), proofPurpose);
+    resolved = new Resolved(proof, proofPurpose, myPrincipal, myResolver, found);
+    return found;
+  }
+
+
   public void setAlgorithm(SigningAlgorithm inputAlg) {
     algorithm = inputAlg;
   }
@@ -177,30 +303,264 @@ public class VerifyContext extends SharedContext {
 
 
   /**
-   * Perform verification, checking the signature.
+   * Set the challenge which the proof must contain. A verifier issues a new challenge for each request, so that a presentation made in response to one request
+   * cannot be used in response to another.
+   *
+   * @param challenge the challenge, or null if the proof may contain any challenge
+   */
+  public void setChallenge(String challenge) {
+    this.challenge = challenge;
+  }
+
+
+  /**
+   * Set the resolver used to check that a verification method's DID controls the principal. A resolver should be shared between verifications, so that
+   * resolved chains of controllers are re-used.
+   *
+   * @param controllerResolver the resolver, or null if only the principal's own verification methods are acceptable
+   */
+  public void setControllerResolver(ControllerResolver controllerResolver) {
+    this.controllerResolver = controllerResolver;
+  }
+
+
+  /**
+   * Set the domain which the proof must contain. This is typically the verifier's own domain, so that a presentation made to one verifier cannot be used with
+   * another.
+   *
+   * @param domain the domain, or null if the proof may contain any domain
+   */
+  public void setDomain(String domain) {
+    this.domain = domain;
+  }
+
+
+  /**
+   * Set the DID on whose behalf the proof is made. Under the capability delegation and capability invocation purposes, a verification method in a DID which
+   * controls the principal is also acceptable.
+   *
+   * <p>The credential and presentation APIs set the proof purpose from the document, which is assertion or authentication, so with them the verification
+   * method must be in the principal itself. A controller's verification method can only be accepted by calling {@link ProvableApi} directly with a
+   * capability purpose.
+   *
+   * @param principal the principal, or null if a verification method in any DID is acceptable
+   */
+  public void setPrincipal(DidId principal) {
+    this.principal = principal != null ? principal.withoutFragment() : null;
+  }
+
+
+  /**
+   * Set the verification relationship that the verification method must have with its DID. Credentials are proved with an assertion method, and
+   * presentations with an authentication method.
+   *
+   * @param proofPurpose the relationship, or null to accept any verification method in the DID
+   */
+  public void setProofPurpose(KeyUsage proofPurpose) {
+    this.proofPurpose = proofPurpose;
+  }
+
+
+  /**
+   * Set the record of used challenges. When set, a presentation's proof must contain a challenge which has not been used before. The record should be shared
+   * between verifications.
+   *
+   * @param replayCache the record, or null if replays are not detected
+   */
+  public void setReplayCache(ReplayCache replayCache) {
+    this.replayCache = replayCache;
+  }
+
+
+  /**
+   * Create a signature verifier initialised with the verification method's public key. This allows the bytes-to-sign to be supplied incrementally when they
+   * are too large to hold in memory.
+   *
+   * @return the initialised verifier
    *
    * @throws InvalidKeySpecException       if the key in the DID is invalid
-   * @throws UnacceptableDocumentException if the signature is invalid
+   * @throws UnacceptableDocumentException if the key does not match the signing algorithm
+   * @see #verify(Signature)
    */
-  public void verify() throws InvalidKeySpecException, UnacceptableDocumentException {
+  public Signature startVerify() throws InvalidKeySpecException, UnacceptableDocumentException {
     try {
       Signature signature = getAlgorithm().createSignature();
       signature.initVerify(getVerificationMethod().getPublicKeyJwk().getPublicKey());
-      signature.update(getBytesToSign());
-      if (!signature.verify(getAllegedSignature())) {
-        throw new UnacceptableDocumentException("proof_incorrect_signature", "Incorrect signature");
-      }
+      return signature;
     } catch (InvalidKeyException e) {
       throw new UnacceptableDocumentException(
           "proof_wrong_signature_method",
           "Declared JWS Signature algorithm does not match the declared verification method",
           mapOf("errorMessage", e.toString()), e
       );
+    }
+  }
+
+
+  /**
+   * Perform verification, checking the signature.
+   *
+   * @throws InvalidKeySpecException       if the key in the DID is invalid
+   * @throws UnacceptableDocumentException if the signature is invalid
+   */
+  public void verify() throws InvalidKeySpecException, UnacceptableDocumentException {
+    Signature signature = startVerify();
+    try {
+      signature.update(getBytesToSign());
     } catch (SignatureException e) {
-      throw new UnacceptableDocumentException("proof_invalid_signature", "Invalid signature",
-          mapOf("errorMessage", e.toString()), e
+      throw invalidSignature(e);
+    }
+    verify(signature);
+  }
+
+
+  /**
+   * Complete verification of a signature whose bytes-to-sign have been supplied incrementally.
+   *
+   * @param signature the verifier, as created by {@link #startVerify()} and updated with all the bytes-to-sign
+   *
+   * @throws UnacceptableDocumentException if the signature is invalid
+   */
+  public void verify(Signature signature) throws UnacceptableDocumentException {
+    try {
+      if (!signature.verify(getAllegedSignature())) {
+        throw new UnacceptableDocumentException("proof_incorrect_signature", "Incorrect signature");
+      }
+    } catch (SignatureException e) {
+      throw invalidSignature(e);
+    }
+  }
+
+
+  private void checkPrincipal(DidId keyDid, URI method, KeyUsage purpose) throws DidStoreException, UnacceptableDocumentException {
+    if (principal == null || principal.equals(keyDid)) {
+      return;
+    }
+
+    // Only capabilities may be exercised by a controller on the principal's behalf
+    if (controllerResolver != null && (purpose == KeyUsage.CAPABILITY_DELEGATION || purpose == KeyUsage.CAPABILITY_INVOCATION)
+        && controllerResolver.isController(keyDid, principal)) {
+      return;
+    }
+    throw new UnacceptableDocumentException("proof_verification_method_not_controller", "Verification method's DID does not control the principal",
+        mapOf("verificationMethod", method, "principal", principal)
+    );
+  }
+
+
+  private VerificationMethod find(DidId didId, URI method, KeyUsage purpose) throws DidStoreException, UnacceptableDocumentException {
+    // fetch the DID from the store
+    DecentralizedIdentifier did = getDidStore().fetch(didId.withoutFragment());
+    if (did == null) {
+      throw new UnacceptableDocumentException("proof_did_unknown", "DID associated with the document is not available", mapOf("did", didId));
+    }
+
+    // Look for the key in the DID
+    List<VerificationMethod> methods = did.getVerificationMethod();
+    for (VerificationMethod vm : methods) {
+      if (Objects.equals(vm.getId(), method)) {
+        if (purpose != null && !did.hasUsage(method, purpose)) {
+          throw wrongPurpose(method, purpose);
+        }
+        return vm;
+      }
+    }
+    return null;
+  }
+
+
+  private VerificationMethod findCompact(CompactDidStore store, DidId didId, URI method, KeyUsage purpose)
+      throws DidStoreException, UnacceptableDocumentException {
+    // fetch the DID's compact form from the store
+    CompactDid did = store.fetchCompact(didId.withoutFragment());
+    if (did == null) {
+      throw new UnacceptableDocumentException("proof_did_unknown", "DID associated with the document is not available", mapOf("did", didId));
+    }
+
+    // Recreate only the required key
+    VerificationMethod vm = did.findVerificationMethod(method);
+    if (vm != null && purpose != null && !did.hasRelationship(purpose, method)) {
+      throw wrongPurpose(method, purpose);
+    }
+    return vm;
+  }
+
+
+  private VerificationMethod findLazily(RawDidStore store, DidId didId, URI method, KeyUsage purpose)
+      throws DidStoreException, UnacceptableDocumentException {
+    // fetch the DID's JSON from the store
+    byte[] json = store.fetchRaw(didId.withoutFragment());
+    if (json == null) {
+      throw new UnacceptableDocumentException("proof_did_unknown", "DID associated with the document is not available", mapOf("did", didId));
+    }
+
+    // Parse only the required key
+    LazyDidDocument document;
+    VerificationMethod vm;
+    try {
+      document = LazyDidDocument.scan(json);
+      vm = document.findVerificationMethod(method);
+    } catch (IOException e) {
+      throw new DidStoreException("Stored document for " + didId.withoutFragment() + " is invalid", e);
+    }
+    if (vm != null && purpose != null && !document.hasRelationship(purpose, method)) {
+      throw wrongPurpose(method, purpose);
+    }
+    return vm;
+  }
+
+
+  private UnacceptableDocumentException invalidSignature(SignatureException e) {
+    return new UnacceptableDocumentException("proof_invalid_signature", "Invalid signature",
+        mapOf("errorMessage", e.toString()), e
+    );
+  }
+
+
+  /**
+   * Find a verification method, checking it against a purpose and the principal. This only reads the settings of this context.
+   */
+  private VerificationMethod lookup(URI method, DidId didId, KeyUsage purpose) throws DidStoreException, UnacceptableDocumentException {
+    VerificationMethod found;
+    DidStore store = getDidStore();
+    if (store instanceof CompactDidStore && ((CompactDidStore) store).isCompactAvailable()) {
+      found = findCompact((CompactDidStore) store, didId, method, purpose);
+    } else if (store instanceof RawDidStore && ((RawDidStore) store).isRawAvailable()) {
+      found = findLazily((RawDidStore) store, didId, method, purpose);
+    } else {
+      found = find(didId, method, purpose);
+    }
+    if (found != null) {
+      checkPrincipal(didId.withoutFragment(), method, purpose);
+      return found;
+    }
+
+    // not matched
+    throw new UnacceptableDocumentException("proof_verification_method_not_matched", "No such verification method in specified DID",
+        mapOf("verificationMethod", method)
+    );
+  }
+
+
+  private DidId toDidId(Proof proof) throws UnacceptableDocumentException {
+    // The proof should specify a verification method which is known to us.
+    URI method = proof.getVerificationMethod();
+    if (method == null) {
+      throw new UnacceptableDocumentException("proof_no_verification_method", "Proof does not contain a 'verificationMethod'");
+    }
+    if (!DidUrlValidator.isValid(method, "", Has.EITHER, Has.EITHER, Has.YES)) {
+      throw new UnacceptableDocumentException("proof_verification_method_not_did", "Specified 'verificationMethod' is not a valid 'did:' URI",
+          mapOf("verificationMethod", method)
       );
     }
+    return new DidId(method);
+  }
+
+
+  private UnacceptableDocumentException wrongPurpose(URI method, KeyUsage purpose) {
+    return new UnacceptableDocumentException("proof_verification_method_wrong_purpose", "Verification method is not authorized for the proof's purpose",
+        mapOf("verificationMethod", method, "purpose", purpose.getId())
+    );
   }
 
 }
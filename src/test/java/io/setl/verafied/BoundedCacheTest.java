@@ -0,0 +1,87 @@
+package io.setl.verafied;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * @author agent on 19/10/2026.
+ */
+public class BoundedCacheTest {
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBadSize() {
+    new BoundedCache<String, String>(0);
+  }
+
+
+  @Test
+  public void testForEachMayModify() {
+    BoundedCache<Integer, Integer> cache = new BoundedCache<>(10);
+    for (int i = 0; i < 10; i++) {
+      cache.put(i, i);
+    }
+    AtomicInteger seen = new AtomicInteger();
+    cache.forEach((k, v) -> {
+      seen.incrementAndGet();
+      cache.remove(k);
+    });
+    assertEquals(10, seen.get());
+    assertEquals(0, cache.size());
+  }
+
+
+  @Test
+  public void testLeastRecentlyUsed() {
+    BoundedCache<String, String> cache = new BoundedCache<>(2);
+    cache.put("a", "1");
+    cache.put("b", "2");
+    assertEquals("1", cache.get("a"));
+    cache.put("c", "3");
+    assertEquals(2, cache.size());
+    assertNull(cache.get("b"));
+    assertEquals("1", cache.get("a"));
+    assertEquals("3", cache.get("c"));
+  }
+
+
+  @Test
+  public void testModify() {
+    BoundedCache<String, String> cache = new BoundedCache<>(10);
+    cache.put("a", "1");
+    cache.put("b", "2");
+    assertFalse(cache.replace("a", "2", "3"));
+    assertTrue(cache.replace("a", "1", "3"));
+    assertFalse(cache.remove("a", "1"));
+    assertTrue(cache.remove("a", "3"));
+    assertEquals("2", cache.remove("b"));
+
+    cache.put("c", "1");
+    cache.put("d", "2");
+    cache.removeIf("1"::equals);
+    assertEquals(1, cache.size());
+    cache.clear();
+    assertEquals(0, cache.size());
+  }
+
+
+  @Test
+  public void testSegmented() {
+    BoundedCache<Integer, Integer> cache = new BoundedCache<>(1000);
+    assertEquals(1000, cache.getMaxSize());
+    for (int i = 0; i < 10_000; i++) {
+      cache.put(i, i);
+      assertTrue(cache.size() <= 1000);
+    }
+    assertEquals(1000, cache.size());
+
+    // The most recent entry is always retained
+    assertEquals(Integer.valueOf(9999), cache.get(9999));
+  }
+
+}
@@ -0,0 +1,66 @@
+package io.setl.verafied;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Test;
+
+/**
+ * @author agent on 18/10/2026.
+ */
+public class StripedSecureRandomTest {
+
+  @Test
+  public void testDistinct() {
+    StripedSecureRandom random = new StripedSecureRandom(new SecureRandom(), 3);
+    assertEquals(4, random.getStripeCount());
+    byte[] b1 = new byte[32];
+    byte[] b2 = new byte[32];
+    random.nextBytes(b1);
+    random.nextBytes(b2);
+    assertFalse(Arrays.equals(b1, b2));
+    assertEquals(16, random.generateSeed(16).length);
+
+    random.setSeed(1234L);
+    random.setSeed(new byte[]{1, 2, 3});
+    assertEquals("StripedHashDRBG", random.getAlgorithm());
+  }
+
+
+  @Test
+  public void testThreads() throws InterruptedException {
+    StripedSecureRandom random = new StripedSecureRandom(new SecureRandom());
+    Set<Long> values = ConcurrentHashMap.newKeySet();
+    Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread(() -> {
+        for (int j = 0; j < 100; j++) {
+          values.add(random.nextLong());
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(800, values.size());
+  }
+
+
+  @Test
+  public void testUse() {
+    SecureRandom original = CredentialConstants.getSecureRandom();
+    SecureRandom random = CredentialConstants.useStripedSecureRandom();
+    assertTrue(random instanceof StripedSecureRandom);
+    assertSame(random, CredentialConstants.getSecureRandom());
+    CredentialConstants.setSecureRandom(original);
+  }
+
+}
@@ -0,0 +1,101 @@
+package io.setl.verafied.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.json.JsonObject;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Test;
+
+import io.setl.json.jackson.Convert;
+import io.setl.verafied.data.credential.Credential;
+import io.setl.verafied.data.credential.CredentialApiTest;
+import io.setl.verafied.data.credential.StatusDeserializer;
+import io.setl.verafied.data.credential.TestStatus;
+import io.setl.verafied.did.DecentralizedIdentifier;
+import io.setl.verafied.proof.CanonicalDocument;
+
+/**
+ * @author agent on 18/10/2026.
+ */
+public class JsonConvertTest {
+
+  @Test
+  public void testDecimals() throws Exception {
+    Map<String, Object> map = new TreeMap<>();
+    map.put("amount", new BigDecimal("12345678901234567890.123456789012345678"));
+    map.put("rate", 0.1f);
+    map.put("small", new BigDecimal("1E-30"));
+    map.put("nested", Map.of("price", new BigDecimal("0.30000000000000000001"), "weight", 2.5f));
+
+    // Writing matches the previous conversion through a Jackson tree
+    JsonObject json = (JsonObject) JsonConvert.toJson(map);
+    byte[] expected = canonical(Convert.toJson(JsonConvert.OBJECT_MAPPER.valueToTree(map)));
+    assertArrayEquals(expected, canonical(json));
+
+    // Reading into untyped targets does not lose precision
+    Object oldCopy = JsonConvert.OBJECT_MAPPER.treeToValue(Convert.toJackson(json), Map.class);
+    assertArrayEquals(expected, canonical(JsonConvert.toJson(oldCopy)));
+    assertArrayEquals(expected, canonical(JsonConvert.toJson(JsonConvert.toInstance(json, Map.class))));
+    assertArrayEquals(expected, canonical(JsonConvert.toJson(JsonConvert.toInstance(json, Object.class))));
+    assertArrayEquals(expected, canonical(Convert.toJson(JsonConvert.toInstance(json, JsonNode.class))));
+  }
+
+
+  @Test
+  public void testNumbers() throws Exception {
+    Map<String, Object> map = new TreeMap<>();
+    map.put("int", 42);
+    map.put("long", 1L << 40);
+    map.put("big", BigInteger.TEN.pow(30));
+    map.put("double", 1.5);
+    map.put("list", List.of(1, "two", true));
+
+    JsonObject json = (JsonObject) JsonConvert.toJson(map);
+    assertEquals(map, JsonConvert.toInstance(json, TreeMap.class));
+  }
+
+
+  @Test
+  public void testProof() throws Exception {
+    Proof proof = new Proof();
+    proof.setType("CanonicalJsonWithJws");
+    proof.setCreated(Instant.ofEpochSecond(1_600_000_000L));
+    proof.set("salt", "abc");
+
+    JsonObject json = (JsonObject) JsonConvert.toJson(proof);
+    assertEquals("abc", json.getString("salt"));
+    Proof copy = JsonConvert.toInstance(json, Proof.class);
+    assertEquals(proof.getCreated(), copy.getCreated());
+    assertEquals("abc", copy.get(String.class, "salt"));
+  }
+
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    JsonConvert.prepare();
+    StatusDeserializer.addTypeMapping("VerafiedHttpCheck", TestStatus.class);
+
+    Credential credential = JsonConvert.toInstance(CredentialApiTest.load(JsonConvert.class.getResourceAsStream("sample_vc_1.json")), Credential.class);
+    JsonObject json = (JsonObject) JsonConvert.toJson(credential);
+    assertEquals(json, JsonConvert.toJson(JsonConvert.toInstance(json, Credential.class)));
+
+    DecentralizedIdentifier did = JsonConvert.toInstance(
+        CredentialApiTest.load(JsonConvert.class.getResourceAsStream("sample_did.json")), DecentralizedIdentifier.class);
+    json = (JsonObject) JsonConvert.toJson(did);
+    assertEquals(json, JsonConvert.toJson(JsonConvert.toInstance(json.toString(), DecentralizedIdentifier.class)));
+  }
+
+
+  private static byte[] canonical(Object json) {
+    return CanonicalDocument.of((JsonObject) json).getBytes();
+  }
+
+}
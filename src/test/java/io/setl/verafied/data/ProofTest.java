@@ -0,0 +1,79 @@
+package io.setl.verafied.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import javax.json.JsonObject;
+
+import org.junit.Test;
+
+/**
+ * @author agent on 19/10/2026.
+ */
+public class ProofTest {
+
+  @Test
+  public void testCopyIsIndependent() {
+    Proof proof = new Proof();
+    proof.set("jws", "a..b");
+    proof.set("nonce", "n1");
+
+    Proof copy = new Proof(proof.asImmutable());
+    assertFalse(copy.isImmutable());
+    copy.remove("jws");
+    copy.set("nonce", "n2");
+
+    assertEquals("a..b", proof.getJws());
+    assertEquals("n1", proof.get(String.class, "nonce"));
+    assertNull(copy.getJws());
+    assertEquals("n2", copy.get(String.class, "nonce"));
+  }
+
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testImmutable() {
+    Proof proof = new Proof().asImmutable();
+    assertTrue(proof.isImmutable());
+    assertSame(proof, proof.asImmutable());
+    proof.set("salt", "abc");
+  }
+
+
+  @Test
+  public void testProperties() throws Exception {
+    Proof proof = new Proof();
+    proof.set("jws", "a..b");
+    proof.set("salt", "abc");
+    proof.set("nonce", 123);
+    assertEquals("a..b", proof.get(String.class, "jws"));
+    assertNull(proof.get(Integer.class, "salt"));
+    assertEquals(Integer.valueOf(123), proof.get(Integer.class, "nonce"));
+    assertEquals(Map.of("jws", "a..b", "salt", "abc", "nonce", 123), proof.getProperties());
+
+    // The challenge and domain are held in their own fields
+    proof.set("challenge", "c1");
+    proof.setDomain("example.com");
+    assertEquals("c1", proof.getChallenge());
+    assertEquals("example.com", proof.get(String.class, "domain"));
+    assertEquals(Map.of("jws", "a..b", "salt", "abc", "nonce", 123, "challenge", "c1", "domain", "example.com"), proof.getProperties());
+    proof.remove("challenge");
+    assertNull(proof.getChallenge());
+
+    // A non-string JWS is held with the other properties
+    proof.set("jws", 1);
+    assertNull(proof.getJws());
+    assertEquals(Integer.valueOf(1), proof.get(Integer.class, "jws"));
+
+    JsonObject json = (JsonObject) JsonConvert.toJson(proof);
+    assertEquals(1, json.getInt("jws"));
+    assertEquals("example.com", json.getString("domain"));
+    assertEquals(123, json.getInt("nonce"));
+    assertFalse(json.containsKey("properties"));
+    assertFalse(json.containsKey("immutable"));
+  }
+
+}
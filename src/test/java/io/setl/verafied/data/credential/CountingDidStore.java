@@ -0,0 +1,65 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+package io.setl.verafied.data.credential;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.setl.verafied.did.DecentralizedIdentifier;
+import io.setl.verafied.did.DidId;
+import io.setl.verafied.did.DidStoreException;
+
+/**
+ * A test DID store which counts the fetches made from it, and records the threads they were made on.
+ *
+ * @author agent on 19/10/2026.
+ */
+public class CountingDidStore extends TestDidStore {
+
+  private final Set<Thread> fetchThreads = ConcurrentHashMap.newKeySet();
+
+  private final AtomicInteger fetches = new AtomicInteger();
+
+
+  @Override
+  public DecentralizedIdentifier fetch(DidId didId) throws DidStoreException {
+    fetches.incrementAndGet();
+    fetchThreads.add(Thread.currentThread());
+    return super.fetch(didId);
+  }
+
+
+  public Set<Thread> getFetchThreads() {
+    return fetchThreads;
+  }
+
+
+  public int getFetches() {
+    return fetches.get();
+  }
+
+
+  public void resetFetches() {
+    fetches.set(0);
+  }
+
+}
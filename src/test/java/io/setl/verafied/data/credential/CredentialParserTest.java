@@ -0,0 +1,62 @@
+package io.setl.verafied.data.credential;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.setl.verafied.data.JsonConvert;
+import io.setl.verafied.data.LazyJsonObject;
+import io.setl.verafied.did.DecentralizedIdentifier;
+import io.setl.verafied.proof.VerifyContext;
+
+/**
+ * @author agent on 19/10/2026.
+ */
+public class CredentialParserTest {
+
+  String json;
+
+  TestDidStore testDidStore;
+
+
+  @Before
+  public void before() throws Exception {
+    StatusDeserializer.addTypeMapping("VerafiedHttpCheck", TestStatus.class);
+    json = CredentialApiTest.load(JsonConvert.class.getResourceAsStream("sample_vc_1.json"));
+
+    testDidStore = new TestDidStore();
+    testDidStore.add(JsonConvert.toInstance(CredentialApiTest.load(JsonConvert.class.getResourceAsStream("sample_did.json")), DecentralizedIdentifier.class));
+  }
+
+
+  @Test(expected = IOException.class)
+  public void testNotObject() throws Exception {
+    CredentialParser.parseLazily("[]".getBytes(StandardCharsets.UTF_8));
+  }
+
+
+  @Test
+  public void testParse() throws Exception {
+    Credential lazy = CredentialParser.parseLazily(json.getBytes(StandardCharsets.UTF_8));
+    Credential eager = JsonConvert.toInstance(json, Credential.class);
+    assertEquals(eager.getIssuer(), lazy.getIssuer());
+    assertEquals(eager.getProof().get(String.class, "jws"), lazy.getProof().get(String.class, "jws"));
+
+    // Verifying the credential does not retain the parsed subject
+    CredentialApi.verify(lazy, new VerifyContext(testDidStore), null);
+    LazyJsonObject subject = (LazyJsonObject) lazy.getCredentialSubject();
+    assertFalse(subject.isMaterialised());
+
+    // Reading the subject does
+    assertEquals("Cunningham", subject.getString("familyName"));
+    assertTrue(subject.isMaterialised());
+    assertEquals(eager.getCredentialSubject(), subject);
+  }
+
+}
@@ -0,0 +1,110 @@
+package io.setl.verafied.data.credential;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import javax.json.Json;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.setl.verafied.data.credential.CredentialWallet.Query;
+
+/**
+ * @author agent on 19/10/2026.
+ */
+public class CredentialWalletTest {
+
+  Instant now = Instant.ofEpochSecond(1_700_000_000L);
+
+  CredentialWallet wallet;
+
+
+  @Before
+  public void before() {
+    wallet = new CredentialWallet();
+    for (int i = 0; i < 100; i++) {
+      // Even credentials are current, and odd credentials have expired unless they never expire
+      Instant expires = (i % 2 == 0) ? now.plusSeconds(i) : ((i % 5 == 1) ? null : now.minusSeconds(i));
+      wallet.add(credential(i, "did:example:issuer" + (i % 10), "Type" + (i % 3), expires));
+    }
+  }
+
+
+  @Test
+  public void testExpired() {
+    assertEquals(100, wallet.size());
+    List<Credential> valid = wallet.query(new Query().withValidAt(now));
+    assertEquals(60, valid.size());
+    assertEquals(40, wallet.removeExpired(now));
+    assertEquals(60, wallet.size());
+    assertEquals(60, wallet.query(new Query()).size());
+  }
+
+
+  @Test
+  public void testIssuersAndType() {
+    List<Credential> selected = wallet.query(new Query()
+        .withIssuers(List.of(URI.create("did:example:issuer1"), URI.create("did:example:issuer4")))
+        .withTypes(List.of("Type1"))
+        .withValidAt(now));
+    for (Credential credential : selected) {
+      assertTrue(credential.getType().contains("Type1"));
+      assertTrue(credential.getExpirationDate() == null || !credential.getExpirationDate().isBefore(now));
+    }
+
+    // 1, 4, 31, 34, 61, 64, 91, and 94 have Type1. The odd ones never expire.
+    assertEquals(8, selected.size());
+    assertTrue(wallet.query(new Query().withIssuers(Set.of())).isEmpty());
+  }
+
+
+  @Test
+  public void testLimit() {
+    assertEquals(5, wallet.query(new Query().withTypes(List.of("Type0")).withLimit(5)).size());
+  }
+
+
+  @Test
+  public void testReplaceAndRemove() {
+    URI id = URI.create("urn:credential:1");
+    Credential replacement = credential(1, "did:example:other", "Type9", null);
+    wallet.add(replacement);
+    assertEquals(100, wallet.size());
+    assertSame(replacement, wallet.get(id));
+    assertEquals(9, wallet.query(new Query().withIssuers(List.of(URI.create("did:example:issuer1")))).size());
+    assertEquals(1, wallet.query(new Query().withTypes(List.of("Type9"))).size());
+
+    assertSame(replacement, wallet.remove(id));
+    assertNull(wallet.get(id));
+    assertNull(wallet.remove(id));
+    assertTrue(wallet.query(new Query().withTypes(List.of("Type9"))).isEmpty());
+  }
+
+
+  @Test
+  public void testSubject() {
+    Credential credential = credential(100, "did:example:issuer0", "Type0", null);
+    credential.setCredentialSubject(Json.createObjectBuilder().add("id", "did:example:holder").build());
+    wallet.add(credential);
+    assertEquals(List.of(credential), wallet.query(new Query().withSubject(URI.create("did:example:holder"))));
+  }
+
+
+  private Credential credential(int i, String issuer, String type, Instant expires) {
+    Credential credential = new Credential();
+    credential.setId(URI.create("urn:credential:" + i));
+    credential.setIssuer(URI.create(issuer));
+    credential.setType(Set.of("VerifiableCredential", type));
+    credential.setIssuanceDate(now.minusSeconds(86400));
+    credential.setExpirationDate(expires);
+    return credential;
+  }
+
+}
@@ -0,0 +1,52 @@
+package io.setl.verafied.data.jwk;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.Signature;
+
+import org.junit.Test;
+
+/**
+ * @author agent on 18/10/2026.
+ */
+public class DeterministicEcdsaTest {
+
+  private static final byte[] DATA = "Hello, World!".getBytes(StandardCharsets.UTF_8);
+
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNotSupported() throws Exception {
+    KeyPair keyPair = SigningAlgorithm.ED25519.createKeyPair();
+    DeterministicEcdsa.sign(SigningAlgorithm.ED25519, keyPair.getPrivate(), DATA);
+  }
+
+
+  @Test
+  public void testSignAndVerify() throws Exception {
+    for (SigningAlgorithm algorithm : new SigningAlgorithm[]{SigningAlgorithm.ES256, SigningAlgorithm.ES256K, SigningAlgorithm.ES384,
+        SigningAlgorithm.ES512}) {
+      assertTrue(DeterministicEcdsa.isSupported(algorithm));
+      KeyPair keyPair = algorithm.createKeyPair();
+      byte[] sig1 = DeterministicEcdsa.sign(algorithm, keyPair.getPrivate(), DATA);
+      byte[] sig2 = DeterministicEcdsa.sign(algorithm, keyPair.getPrivate(), DATA);
+      assertArrayEquals(sig1, sig2);
+
+      Signature signature = algorithm.createSignature();
+      signature.initVerify(keyPair.getPublic());
+      signature.update(DATA);
+      assertTrue(signature.verify(sig1));
+    }
+  }
+
+
+  @Test
+  public void testSupported() {
+    assertFalse(DeterministicEcdsa.isSupported(SigningAlgorithm.RS256));
+    assertFalse(DeterministicEcdsa.isSupported(SigningAlgorithm.ED448));
+  }
+
+}
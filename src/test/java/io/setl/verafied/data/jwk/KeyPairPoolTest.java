@@ -0,0 +1,62 @@
+package io.setl.verafied.data.jwk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+
+import java.security.KeyPair;
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * @author agent on 18/10/2026.
+ */
+public class KeyPairPoolTest {
+
+  private static void waitForReady(KeyPairPool pool, SigningAlgorithm algorithm, int count) throws InterruptedException {
+    for (int i = 0; i < 500 && pool.getReady(algorithm) < count; i++) {
+      Thread.sleep(10);
+    }
+    assertEquals(count, pool.getReady(algorithm));
+  }
+
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBadThreads() {
+    new KeyPairPool(Map.of(SigningAlgorithm.ES256, 1), 0);
+  }
+
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNone() {
+    new KeyPairPool(Map.of(SigningAlgorithm.NONE, 1), 1);
+  }
+
+
+  @Test
+  public void testRefill() throws InterruptedException {
+    try (KeyPairPool pool = new KeyPairPool(Map.of(SigningAlgorithm.ES256, 2, SigningAlgorithm.ED25519, 1), 2)) {
+      waitForReady(pool, SigningAlgorithm.ES256, 2);
+      waitForReady(pool, SigningAlgorithm.ED25519, 1);
+
+      KeyPair kp1 = pool.take(SigningAlgorithm.ES256);
+      KeyPair kp2 = pool.take(SigningAlgorithm.ES256, Duration.ofSeconds(5));
+      assertNotSame(kp1, kp2);
+      waitForReady(pool, SigningAlgorithm.ES256, 2);
+
+      assertNotNull(pool.take(SigningAlgorithm.ED25519));
+    }
+  }
+
+
+  @Test
+  public void testUnpooled() {
+    try (KeyPairPool pool = new KeyPairPool(Map.of(SigningAlgorithm.ES256, 1), 1)) {
+      assertEquals(0, pool.getReady(SigningAlgorithm.ES384));
+      assertNotNull(pool.take(SigningAlgorithm.ES384));
+    }
+  }
+
+}
@@ -1,11 +1,14 @@
 package io.setl.verafied.data.presentation;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.net.URI;
 import java.security.KeyFactory;
 import java.security.PrivateKey;
 import java.security.spec.PKCS8EncodedKeySpec;
+import java.time.Duration;
 import java.util.Base64;
 import java.util.List;
 
@@ -26,6 +29,7 @@ import io.setl.verafied.did.DidId;
 import io.setl.verafied.did.VerificationMethod;
 import io.setl.verafied.proof.CanonicalJsonWithJws;
 import io.setl.verafied.proof.ProofContext;
+import io.setl.verafied.proof.ReplayCache;
 import io.setl.verafied.proof.VerifyContext;
 
 /**
@@ -80,6 +84,37 @@ public class PresentationApiTest {
   }
 
 
+  @Test
+  public void testChallenge() throws Exception {
+    presentation.setProof(null);
+    PresentationApi.prove(new ProofContext(new CanonicalJsonWithJws()), presentation, typedKeyPair2, "c1", "verifier.example.com");
+    assertEquals("c1", presentation.getProof().getChallenge());
+
+    VerifyContext context = new VerifyContext(testDidStore);
+    context.setChallenge("c1");
+    context.setDomain("verifier.example.com");
+    context.setReplayCache(new ReplayCache(Duration.ofMinutes(5), 100));
+    PresentationApi.verify(presentation, context);
+    assertCode("presentation_replayed", context);
+
+    context = new VerifyContext(testDidStore);
+    context.setChallenge("c2");
+    assertCode("presentation_wrong_challenge", context);
+
+    context = new VerifyContext(testDidStore);
+    context.setDomain("other.example.com");
+    assertCode("presentation_wrong_domain", context);
+
+    // The challenge is signed
+    Proof proof = presentation.getProof();
+    proof.setChallenge("c2");
+    presentation.setProof(proof);
+    context = new VerifyContext(testDidStore);
+    context.setChallenge("c2");
+    assertCode("proof_incorrect_signature", context);
+  }
+
+
   @Test
   public void testHappyPath() throws Exception {
     PresentationApi.verify(presentation, new VerifyContext(testDidStore));
@@ -106,6 +141,14 @@ public class PresentationApiTest {
   }
 
 
+  @Test
+  public void testNoChallenge() throws Exception {
+    VerifyContext context = new VerifyContext(testDidStore);
+    context.setReplayCache(new ReplayCache(Duration.ofMinutes(5), 100));
+    assertCode("presentation_no_challenge", context);
+  }
+
+
   @Test(expected = UnacceptableDocumentException.class)
   public void testNoMatchingVerificationMethod() throws Exception {
     // Verification method cannot be found
@@ -139,4 +182,14 @@ public class PresentationApiTest {
     PresentationApi.verify(presentation, new VerifyContext(testDidStore));
   }
 
+
+  private void assertCode(String code, VerifyContext context) throws Exception {
+    try {
+      PresentationApi.verify(presentation, context);
+      fail();
+    } catch (UnacceptableDocumentException e) {
+      assertEquals(code, e.getCode());
+    }
+  }
+
 }
\ No newline at end of file
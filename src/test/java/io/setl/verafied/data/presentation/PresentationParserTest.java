@@ -0,0 +1,99 @@
+package io.setl.verafied.data.presentation;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.setl.verafied.UnacceptableDocumentException;
+import io.setl.verafied.data.JsonConvert;
+import io.setl.verafied.data.credential.Credential;
+import io.setl.verafied.data.credential.CredentialApi;
+import io.setl.verafied.data.credential.CredentialApiTest;
+import io.setl.verafied.data.credential.StatusDeserializer;
+import io.setl.verafied.data.credential.TestDidStore;
+import io.setl.verafied.data.credential.TestStatus;
+import io.setl.verafied.did.DecentralizedIdentifier;
+import io.setl.verafied.proof.VerifyContext;
+
+/**
+ * @author agent on 19/10/2026.
+ */
+public class PresentationParserTest {
+
+  ObjectNode json;
+
+  TestDidStore testDidStore;
+
+
+  @Before
+  public void before() throws Exception {
+    StatusDeserializer.addTypeMapping("VerafiedHttpCheck", TestStatus.class);
+    json = (ObjectNode) JsonConvert.OBJECT_MAPPER.readTree(CredentialApiTest.load(JsonConvert.class.getResourceAsStream("sample_vp_1.json")));
+
+    testDidStore = new TestDidStore();
+    testDidStore.add(JsonConvert.toInstance(CredentialApiTest.load(JsonConvert.class.getResourceAsStream("sample_did.json")), DecentralizedIdentifier.class));
+    testDidStore.add(JsonConvert.toInstance(CredentialApiTest.load(JsonConvert.class.getResourceAsStream("sample_did_2.json")), DecentralizedIdentifier.class));
+  }
+
+
+  @Test
+  public void testCredentialsFirst() throws Exception {
+    // The credentials have to be buffered until the proof is found
+    ObjectNode reordered = JsonConvert.OBJECT_MAPPER.createObjectNode();
+    reordered.set("verifiableCredential", json.get("verifiableCredential"));
+    json.remove("verifiableCredential");
+    reordered.setAll(json);
+
+    List<Credential> credentials = new ArrayList<>();
+    Presentation presentation = PresentationParser.parse(toStream(reordered), new VerifyContext(testDidStore), credentials::add);
+    assertEquals(1, credentials.size());
+    assertEquals(json.get("holder").asText(), presentation.getHolder().toString());
+  }
+
+
+  @Test(expected = UnacceptableDocumentException.class)
+  public void testIncorrectSignature() throws Exception {
+    json.put("holder", "did:setl:ygWIJJP5sGErqskusG853bZV");
+    PresentationParser.parse(toStream(json), new VerifyContext(testDidStore), c -> { });
+  }
+
+
+  @Test(expected = UnacceptableDocumentException.class)
+  public void testMemberAfterCredentials() throws Exception {
+    ObjectNode reordered = json.deepCopy();
+    reordered.remove("type");
+    reordered.set("type", json.get("type"));
+    PresentationParser.parse(toStream(reordered), new VerifyContext(testDidStore), c -> { });
+  }
+
+
+  @Test
+  public void testStream() throws Exception {
+    Presentation expected = JsonConvert.toInstance(json.toString(), Presentation.class);
+    PresentationApi.verify(expected, new VerifyContext(testDidStore));
+
+    List<Credential> credentials = new ArrayList<>();
+    Presentation presentation = PresentationParser.parse(toStream(json), new VerifyContext(testDidStore), c -> {
+      CredentialApi.verify(c, new VerifyContext(testDidStore), null);
+      credentials.add(c);
+    });
+
+    assertEquals(expected.getVerifiableCredential().size(), credentials.size());
+    assertEquals(expected.getHolder(), presentation.getHolder());
+    assertEquals(expected.getProof().get(String.class, "jws"), presentation.getProof().get(String.class, "jws"));
+    assertEquals(0, presentation.getVerifiableCredential().size());
+  }
+
+
+  private ByteArrayInputStream toStream(ObjectNode node) {
+    return new ByteArrayInputStream(node.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+}
@@ -0,0 +1,73 @@
+package io.setl.verafied.did;
+
+import static io.setl.verafied.did.SampleDid.DUMMY;
+import static io.setl.verafied.did.SampleDid.MAIN;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.setl.verafied.data.JsonConvert;
+import io.setl.verafied.data.jwk.PublicKeyJwkEc;
+
+/**
+ * @author agent on 19/10/2026.
+ */
+public class CompactDidTest {
+
+  DecentralizedIdentifier did;
+
+
+  @Before
+  public void before() throws Exception {
+    did = SampleDid.load();
+  }
+
+
+  @Test
+  public void testFind() {
+    CompactDid compact = CompactDid.of(did);
+    assertEquals(did.getDidId(), compact.getDidId());
+    assertEquals(did.getVerificationMethod().get(1), compact.findVerificationMethod(DUMMY));
+    assertNull(compact.findVerificationMethod(URI.create("did:setl:qDjni0qJX3KHrvgn46JBEVYE#other")));
+
+    assertTrue(compact.hasRelationship(KeyUsage.ASSERTION, MAIN));
+    assertTrue(compact.hasRelationship(KeyUsage.AUTHENTICATION, MAIN));
+    assertFalse(compact.hasRelationship(KeyUsage.ASSERTION, DUMMY));
+    assertFalse(compact.hasRelationship(KeyUsage.CAPABILITY_INVOCATION, MAIN));
+  }
+
+
+  @Test
+  public void testRoundTrip() {
+    DecentralizedIdentifier copy = CompactDid.of(did).toDocument();
+    assertNotSame(did, copy);
+    assertEquals(JsonConvert.toJson(did), JsonConvert.toJson(copy));
+  }
+
+
+  @Test
+  public void testUnusualEncoding() {
+    // Standard Base64 without padding, and a reference to a method in another DID
+    VerificationMethod method = did.getVerificationMethod().get(1);
+    PublicKeyJwkEc jwk = (PublicKeyJwkEc) method.getPublicKeyJwk();
+    jwk.setX("LQcwZNTkPeZPluBQxam2gUGTKmB8DnkC+IKofEmBfo");
+    method.setPublicKeyJwk(jwk);
+    did.setVerificationMethod(List.of(did.getVerificationMethod().get(0), method));
+    did.setCapabilityInvocation(List.of(URI.create("did:setl:other#key"), DUMMY));
+
+    CompactDid compact = CompactDid.of(did);
+    DecentralizedIdentifier copy = compact.toDocument();
+    assertEquals(JsonConvert.toJson(did), JsonConvert.toJson(copy));
+    assertTrue(compact.hasRelationship(KeyUsage.CAPABILITY_INVOCATION, URI.create("did:setl:other#key")));
+    assertTrue(compact.hasRelationship(KeyUsage.CAPABILITY_INVOCATION, DUMMY));
+  }
+
+}
@@ -0,0 +1,199 @@
+package io.setl.verafied.did;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import javax.json.Json;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.setl.verafied.CredentialConstants;
+import io.setl.verafied.data.credential.CountingDidStore;
+
+/**
+ * @author agent on 19/10/2026.
+ */
+public class ControllerResolverTest {
+
+  CountingDidStore testDidStore;
+
+
+  @After
+  public void after() {
+    CredentialConstants.setClock(Clock.systemUTC());
+  }
+
+
+  @Before
+  public void before() {
+    CredentialConstants.setClock(Clock.fixed(Instant.ofEpochSecond(1_700_000_000L), ZoneOffset.UTC));
+    testDidStore = new CountingDidStore();
+
+    // A group controls two holding companies, which both control a subsidiary. The group also controls itself.
+    add("subsidiary", "holdingA", "holdingB");
+    add("holdingA", "group");
+    add("holdingB", "group", "not a DID");
+    add("group", "group", "subsidiary");
+  }
+
+
+  @Test
+  public void testChain() throws Exception {
+    ControllerResolver resolver = new ControllerResolver(testDidStore, 5, Duration.ofMinutes(10), 10, Runnable::run);
+    assertEquals(Set.of(id("holdingA"), id("holdingB"), id("group")), resolver.resolve(id("subsidiary")));
+    assertTrue(resolver.isController(id("group"), id("subsidiary")));
+    assertFalse(resolver.isController(id("unknown"), id("subsidiary")));
+
+    // The cycle back to the subsidiary is not followed, and each document is fetched once
+    assertEquals(4, testDidStore.getFetches());
+  }
+
+
+  @Test
+  public void testChangeDuringFetch() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    DidStore slowStore = id -> {
+      if (id.equals(id("holdingA"))) {
+        started.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      return testDidStore.fetch(id);
+    };
+    ControllerResolver resolver = new ControllerResolver(slowStore, 5, Duration.ofMinutes(10), 10, Runnable::run);
+
+    CompletableFuture<Set<DidId>> first = CompletableFuture.supplyAsync(() -> {
+      try {
+        return resolver.resolve(id("subsidiary"));
+      } catch (DidStoreException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    started.await();
+    resolver.onChange(new DidChange(id("holdingA"), Json.createPatchBuilder().build()));
+    release.countDown();
+    assertEquals(3, first.get().size());
+
+    // The chain was built from a document which changed, so it is not remembered
+    assertEquals(0, resolver.size());
+    resolver.resolve(id("subsidiary"));
+    assertEquals(1, resolver.size());
+  }
+
+
+  @Test
+  public void testDepth() throws Exception {
+    ControllerResolver resolver = new ControllerResolver(testDidStore, 1, Duration.ofMinutes(10), 10, Runnable::run);
+    assertEquals(Set.of(id("holdingA"), id("holdingB")), resolver.resolve(id("subsidiary")));
+    assertEquals(1, testDidStore.getFetches());
+  }
+
+
+  @Test
+  public void testEviction() throws Exception {
+    ControllerResolver resolver = new ControllerResolver(testDidStore, 1, Duration.ofMinutes(10), 2, Runnable::run);
+    resolver.resolve(id("subsidiary"));
+    resolver.resolve(id("holdingA"));
+    resolver.resolve(id("subsidiary"));
+    resolver.resolve(id("holdingB"));
+    assertEquals(2, resolver.size());
+    assertEquals(3, testDidStore.getFetches());
+
+    // Holding A was the least recently used, so it was forgotten
+    resolver.resolve(id("subsidiary"));
+    assertEquals(3, testDidStore.getFetches());
+    resolver.resolve(id("holdingA"));
+    assertEquals(4, testDidStore.getFetches());
+  }
+
+
+  @Test
+  public void testInvalidate() throws Exception {
+    ControllerResolver resolver = new ControllerResolver(testDidStore, 5, Duration.ofMinutes(10), 10, Runnable::run);
+    resolver.resolve(id("subsidiary"));
+    resolver.resolve(id("holdingA"));
+    assertEquals(2, resolver.size());
+
+    // Only the chain which passed through holding B is affected
+    resolver.onChange(new DidChange(id("holdingB"), Json.createPatchBuilder().build()));
+    assertEquals(1, resolver.size());
+    testDidStore.resetFetches();
+    resolver.resolve(id("holdingA"));
+    assertEquals(0, testDidStore.getFetches());
+  }
+
+
+  @Test
+  public void testMemoised() throws Exception {
+    ControllerResolver resolver = new ControllerResolver(testDidStore, 5, Duration.ofMinutes(10), 10, Runnable::run);
+    resolver.resolve(id("subsidiary"));
+    resolver.resolve(id("subsidiary"));
+    assertEquals(4, testDidStore.getFetches());
+
+    // Resolved again once expired
+    CredentialConstants.setClock(Clock.offset(CredentialConstants.getClock(), Duration.ofMinutes(11)));
+    resolver.resolve(id("subsidiary"));
+    assertEquals(8, testDidStore.getFetches());
+  }
+
+
+  @Test
+  public void testParallel() throws Exception {
+    ControllerResolver resolver = new ControllerResolver(testDidStore, 5, Duration.ofMinutes(10), 10, r -> new Thread(r).start());
+    assertEquals(3, resolver.resolve(id("subsidiary")).size());
+
+    // The two holding companies were fetched on other threads
+    assertEquals(3, testDidStore.getFetchThreads().size());
+  }
+
+
+  @Test(expected = DidStoreException.class)
+  public void testStoreError() throws Exception {
+    testDidStore.setError(id("unknown"), new DidStoreException("Unavailable"));
+    add("orphan", "unknown", "group");
+    ControllerResolver resolver = new ControllerResolver(testDidStore, 5, Duration.ofMinutes(10), 10, Runnable::run);
+    resolver.resolve(id("orphan"));
+  }
+
+
+  @Test
+  public void testUnknown() throws Exception {
+    ControllerResolver resolver = new ControllerResolver(testDidStore, 5, Duration.ofMinutes(10), 10, Runnable::run);
+    assertTrue(resolver.resolve(id("unknown")).isEmpty());
+  }
+
+
+  private void add(String name, String... controllers) {
+    DecentralizedIdentifier did = new DecentralizedIdentifier();
+    did.setId(id(name).getUri());
+    List<URI> uris = new ArrayList<>();
+    for (String c : controllers) {
+      uris.add(c.contains(" ") ? URI.create("urn:" + c.replace(' ', '-')) : id(c).getUri());
+    }
+    did.setController(uris);
+    testDidStore.add(did);
+  }
+
+
+  private DidId id(String name) {
+    return new DidId(URI.create("did:example:" + name));
+  }
+
+}
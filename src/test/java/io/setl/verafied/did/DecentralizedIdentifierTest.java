@@ -21,6 +21,7 @@
 package io.setl.verafied.did;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
@@ -168,6 +169,25 @@ public class DecentralizedIdentifierTest {
   }
 
 
+  @Test
+  public void hasUsage() {
+    URI vm1 = URI.create("did:setl:user#vm1");
+    URI vm2 = URI.create("did:setl:user#vm2");
+    did.setAssertionMethod(List.of(vm1));
+    did.setAuthentication(List.of(vm1, vm2));
+    assertTrue(did.hasUsage(vm1, KeyUsage.ASSERTION));
+    assertTrue(did.hasUsage(vm2, KeyUsage.AUTHENTICATION));
+    assertFalse(did.hasUsage(vm2, KeyUsage.ASSERTION));
+    assertFalse(did.hasUsage(vm1, KeyUsage.CAPABILITY_INVOCATION));
+
+    // Changes are reflected in the index
+    did.addAssertionMethod(jpb, vm2);
+    did.removeAuthentication(jpb, vm1);
+    assertTrue(did.hasUsage(vm2, KeyUsage.ASSERTION));
+    assertFalse(did.hasUsage(vm1, KeyUsage.AUTHENTICATION));
+  }
+
+
   @Test
   public void verificationMethod() {
     VerificationMethod vm1 = new VerificationMethod();
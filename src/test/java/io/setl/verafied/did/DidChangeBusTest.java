@@ -0,0 +1,152 @@
+package io.setl.verafied.did;
+
+import static io.setl.verafied.did.SampleDid.DUMMY;
+import static io.setl.verafied.did.SampleDid.MAIN;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.json.Json;
+import javax.json.JsonPatchBuilder;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.setl.verafied.data.JsonConvert;
+import io.setl.verafied.data.Proof;
+import io.setl.verafied.data.credential.TestDidStore;
+import io.setl.verafied.proof.CanonicalDocument;
+import io.setl.verafied.proof.VerificationCache;
+
+/**
+ * @author agent on 19/10/2026.
+ */
+public class DidChangeBusTest {
+
+  String didJson;
+
+  TestDidStore testDidStore;
+
+
+  @Before
+  public void before() throws Exception {
+    didJson = SampleDid.loadJson();
+    testDidStore = new TestDidStore();
+    testDidStore.add(JsonConvert.toInstance(didJson, DecentralizedIdentifier.class));
+  }
+
+
+  @Test
+  public void testCachesUpdated() throws Exception {
+    List<Runnable> tasks = new ArrayList<>();
+    AtomicInteger backingFetches = new AtomicInteger();
+    TieredDidStore tiered = new TieredDidStore(id -> {
+      backingFetches.incrementAndGet();
+      return testDidStore.fetch(id);
+    }, null, Duration.ofHours(1), Duration.ofMinutes(10), 10, tasks::add);
+    VerificationCache cache = new VerificationCache(Duration.ofMinutes(5), 10);
+    DidChangeBus bus = new DidChangeBus();
+    bus.addListener(tiered);
+    bus.addListener(cache);
+
+    DecentralizedIdentifier did = JsonConvert.toInstance(didJson, DecentralizedIdentifier.class);
+    DecentralizedIdentifier cached = tiered.fetch(did.getDidId());
+    assertEquals(2, cached.getVerificationMethod().size());
+
+    Proof mainProof = proof(MAIN, "a..b");
+    Proof dummyProof = proof(DUMMY, "c..d");
+    CanonicalDocument document = CanonicalDocument.ofCanonicalBytes("{}".getBytes(UTF_8));
+    cache.put(mainProof, document, null);
+    cache.put(dummyProof, document, null);
+    assertEquals(2, cache.size());
+
+    JsonPatchBuilder builder = Json.createPatchBuilder();
+    did.removeVerificationMethod(builder, DUMMY);
+    bus.publish(DidChange.of(did, builder));
+
+    // The cached document is patched, not re-fetched
+    DecentralizedIdentifier patched = tiered.fetch(did.getDidId());
+    assertNotSame(cached, patched);
+    assertEquals(1, patched.getVerificationMethod().size());
+    assertEquals(MAIN, patched.getVerificationMethod().get(0).getId());
+    assertEquals(1, backingFetches.get());
+
+    // Only the verification which used the removed key is dropped
+    assertTrue(cache.isVerified(mainProof, document));
+    assertFalse(cache.isVerified(dummyProof, document));
+
+    // A replacement invalidates everything for the DID
+    bus.publish(new DidChange(did.getDidId(), null));
+    assertEquals(0, tiered.size());
+    assertEquals(0, cache.size());
+  }
+
+
+  @Test
+  public void testListenerFailure() {
+    AtomicInteger calls = new AtomicInteger();
+    DidChangeBus bus = new DidChangeBus();
+    bus.addListener(c -> {
+      throw new IllegalStateException("first");
+    });
+    bus.addListener(c -> calls.incrementAndGet());
+    DidChangeListener failing = c -> {
+      throw new IllegalArgumentException("second");
+    };
+    bus.addListener(failing);
+
+    DidChange change = new DidChange(new DidId(MAIN), null);
+    try {
+      bus.publish(change);
+      fail();
+    } catch (IllegalStateException e) {
+      assertEquals(1, e.getSuppressed().length);
+    }
+    assertEquals(1, calls.get());
+
+    bus.removeListener(failing);
+    assertEquals(new DidId(MAIN).withoutFragment(), change.getDidId());
+  }
+
+
+  @Test
+  public void testRevokedMethods() throws Exception {
+    DecentralizedIdentifier did = JsonConvert.toInstance(didJson, DecentralizedIdentifier.class);
+    JsonPatchBuilder builder = Json.createPatchBuilder();
+    did.removeAuthentication(builder, MAIN);
+    did.updated(builder);
+    DidChange change = DidChange.of(did, builder);
+    assertEquals(Set.of(MAIN), change.getRevokedMethods());
+    assertFalse(change.revokesAll());
+    assertFalse(change.isRevoked(DUMMY));
+    assertFalse(change.isRevoked(null));
+
+    // A replacement of the list cannot be analysed, so revokes every method of the DID
+    builder = Json.createPatchBuilder();
+    builder.replace("/assertionMethod", Json.createArrayBuilder().build());
+    change = new DidChange(did.getDidId(), builder.build());
+    assertTrue(change.revokesAll());
+    assertTrue(change.isRevoked(DUMMY));
+    assertFalse(change.isRevoked(URI.create("did:setl:other#key")));
+    assertNull(new DidChange(did.getDidId(), null).getPatch());
+  }
+
+
+  private Proof proof(URI method, String jws) {
+    Proof proof = new Proof();
+    proof.setVerificationMethod(method);
+    proof.setJws(jws);
+    return proof;
+  }
+
+}
@@ -0,0 +1,185 @@
+package io.setl.verafied.did;
+
+import static io.setl.verafied.did.SampleDid.DUMMY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.json.Json;
+import javax.json.JsonPatchBuilder;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.setl.verafied.data.JsonConvert;
+import io.setl.verafied.data.credential.CredentialApiTest;
+
+/**
+ * @author agent on 19/10/2026.
+ */
+public class EventSourcedDidStoreTest {
+
+  Path directory;
+
+  DecentralizedIdentifier did;
+
+
+  @After
+  public void after() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path p : (Iterable<Path>) files::iterator) {
+        Files.delete(p);
+      }
+    }
+    Files.delete(directory);
+  }
+
+
+  @Before
+  public void before() throws Exception {
+    directory = Files.createTempDirectory("did");
+    did = SampleDid.load();
+  }
+
+
+  @Test
+  public void testBackgroundSnapshot() throws Exception {
+    List<Runnable> pending = new ArrayList<>();
+    try (EventSourcedDidStore store = new EventSourcedDidStore(directory, 1, pending::add)) {
+      store.put(did);
+      assertEquals(1, pending.size());
+      assertFalse(Files.exists(directory.resolve("did.snapshot")));
+
+      // Writes continue whilst the snapshot is pending, and do not schedule another
+      JsonPatchBuilder builder = Json.createPatchBuilder();
+      did.removeVerificationMethod(builder, DUMMY);
+      store.update(DidChange.of(did, builder));
+      assertEquals(1, pending.size());
+
+      // The snapshot also includes the update made after it was scheduled
+      pending.get(0).run();
+      assertTrue(Files.exists(directory.resolve("did.snapshot")));
+    }
+
+    // The update is not applied twice
+    try (EventSourcedDidStore store = new EventSourcedDidStore(directory, 100, Runnable::run)) {
+      assertEquals(1, store.fetch(did.getDidId()).getVerificationMethod().size());
+    }
+  }
+
+
+  @Test
+  public void testChangedWhilstSnapshotting() throws Exception {
+    DecentralizedIdentifier other = JsonConvert.toInstance(
+        CredentialApiTest.load(JsonConvert.class.getResourceAsStream("sample_did_2.json")), DecentralizedIdentifier.class);
+    List<Runnable> pending = new ArrayList<>();
+    try (EventSourcedDidStore store = new EventSourcedDidStore(directory, 2, pending::add)) {
+      store.put(did);
+      store.put(other);
+      assertEquals(1, pending.size());
+
+      // Changed and deleted after the snapshot was scheduled, but before it was written
+      JsonPatchBuilder builder = Json.createPatchBuilder();
+      did.removeVerificationMethod(builder, DUMMY);
+      store.update(DidChange.of(did, builder));
+      builder = Json.createPatchBuilder();
+      other.updated(builder);
+      store.update(DidChange.of(other, builder));
+      store.delete(other.getDidId());
+      pending.get(0).run();
+    }
+
+    // Replaying the log over the snapshot skips the events it includes, and the patch of the document it does not include
+    try (EventSourcedDidStore store = new EventSourcedDidStore(directory, 100, Runnable::run)) {
+      assertEquals(1, store.size());
+      assertEquals(1, store.fetch(did.getDidId()).getVerificationMethod().size());
+    }
+  }
+
+
+  @Test
+  public void testFetchRaw() throws Exception {
+    try (EventSourcedDidStore store = new EventSourcedDidStore(directory, 100, Runnable::run)) {
+      store.put(did);
+      LazyDidDocument document = LazyDidDocument.scan(store.fetchRaw(did.getDidId()));
+      assertEquals(did.getDidId(), document.getDidId());
+      assertNotNull(document.findVerificationMethod(DUMMY));
+      assertNull(store.fetchRaw(new DidId(URI.create("did:setl:unknown"))));
+    }
+  }
+
+
+  @Test
+  public void testInterruptedWrite() throws Exception {
+    try (EventSourcedDidStore store = new EventSourcedDidStore(directory, 100, Runnable::run)) {
+      store.put(did);
+    }
+    Path log = directory.resolve("did.log");
+    long size = Files.size(log);
+
+    // A partial record at the end of the log is discarded
+    Files.write(log, new byte[]{0, 0, 1, 0, 1, 2, 3}, StandardOpenOption.APPEND);
+    try (EventSourcedDidStore store = new EventSourcedDidStore(directory, 100, Runnable::run)) {
+      assertEquals(1, store.size());
+      assertEquals(size, Files.size(log));
+    }
+  }
+
+
+  @Test
+  public void testReplay() throws Exception {
+    try (EventSourcedDidStore store = new EventSourcedDidStore(directory, 100, Runnable::run)) {
+      store.put(did);
+      JsonPatchBuilder builder = Json.createPatchBuilder();
+      did.removeVerificationMethod(builder, DUMMY);
+      DecentralizedIdentifier updated = store.update(DidChange.of(did, builder));
+      assertEquals(1, updated.getVerificationMethod().size());
+      assertTrue(Files.notExists(directory.resolve("did.snapshot")));
+    }
+
+    try (EventSourcedDidStore store = new EventSourcedDidStore(directory, 100, Runnable::run)) {
+      assertEquals(1, store.fetch(did.getDidId()).getVerificationMethod().size());
+      store.delete(did.getDidId());
+      assertNull(store.fetch(did.getDidId()));
+    }
+
+    try (EventSourcedDidStore store = new EventSourcedDidStore(directory, 100, Runnable::run)) {
+      assertEquals(0, store.size());
+    }
+  }
+
+
+  @Test
+  public void testSnapshot() throws Exception {
+    try (EventSourcedDidStore store = new EventSourcedDidStore(directory, 2, Runnable::run)) {
+      store.put(did);
+      JsonPatchBuilder builder = Json.createPatchBuilder();
+      did.removeVerificationMethod(builder, DUMMY);
+      store.update(DidChange.of(did, builder));
+      assertTrue(Files.exists(directory.resolve("did.snapshot")));
+
+      builder = Json.createPatchBuilder();
+      did.updated(builder);
+      store.update(DidChange.of(did, builder));
+    }
+
+    // The snapshot is loaded and the final change replayed
+    try (EventSourcedDidStore store = new EventSourcedDidStore(directory, 2, Runnable::run)) {
+      DecentralizedIdentifier restored = store.fetch(did.getDidId());
+      assertEquals(1, restored.getVerificationMethod().size());
+      assertEquals(did.getUpdated(), restored.getUpdated());
+    }
+  }
+
+}
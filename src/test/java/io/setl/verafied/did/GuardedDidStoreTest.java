@@ -0,0 +1,177 @@
+package io.setl.verafied.did;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.setl.verafied.CredentialConstants;
+import io.setl.verafied.data.JsonConvert;
+import io.setl.verafied.data.credential.CountingDidStore;
+
+/**
+ * @author agent on 19/10/2026.
+ */
+public class GuardedDidStoreTest {
+
+  DidId knownId;
+
+  CountingDidStore testDidStore;
+
+
+  @After
+  public void after() {
+    CredentialConstants.setClock(Clock.systemUTC());
+  }
+
+
+  @Before
+  public void before() throws Exception {
+    CredentialConstants.setClock(Clock.fixed(Instant.ofEpochSecond(1_700_000_000L), ZoneOffset.UTC));
+    testDidStore = new CountingDidStore();
+    DecentralizedIdentifier did = SampleDid.load();
+    testDidStore.add(did);
+    knownId = did.getDidId();
+  }
+
+
+  @Test(expected = DidStoreException.class)
+  public void testConcurrencyCap() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    DidStore slowStore = id -> {
+      started.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return testDidStore.fetch(id);
+    };
+    GuardedDidStore store = new GuardedDidStore(slowStore, Duration.ofMinutes(1), 100, 10, 10, 1, Duration.ZERO);
+
+    CompletableFuture<DecentralizedIdentifier> first = CompletableFuture.supplyAsync(() -> {
+      try {
+        return store.fetch(knownId);
+      } catch (DidStoreException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    started.await();
+    try {
+      store.fetch(knownId);
+    } finally {
+      release.countDown();
+      assertNotNull(first.get());
+    }
+  }
+
+
+  @Test
+  public void testKnownDoesNotDrain() throws Exception {
+    GuardedDidStore store = new GuardedDidStore(testDidStore, Duration.ofMinutes(1), 100, 1, 1, 10, Duration.ZERO);
+    for (int i = 0; i < 5; i++) {
+      assertNotNull(store.fetch(knownId));
+    }
+    assertNull(store.fetch(unknown(1)));
+    assertEquals(6, testDidStore.getFetches());
+  }
+
+
+  @Test
+  public void testKnownServedWhenDrained() throws Exception {
+    GuardedDidStore store = new GuardedDidStore(testDidStore, Duration.ofMinutes(1), 100, 1, 1, 10, Duration.ZERO);
+    assertNotNull(store.fetch(knownId));
+    assertNull(store.fetch(unknown(1)));
+    boolean rejected = false;
+    try {
+      store.fetch(unknown(2));
+    } catch (DidStoreException e) {
+      rejected = true;
+    }
+    assertTrue(rejected);
+
+    // The bucket is empty, but a DID which was recently found is still looked up
+    assertNotNull(store.fetch(knownId));
+    assertEquals(3, testDidStore.getFetches());
+  }
+
+
+  @Test
+  public void testNegativeCache() throws Exception {
+    GuardedDidStore store = new GuardedDidStore(testDidStore, Duration.ofMinutes(1), 100, 1, 1, 10, Duration.ZERO);
+    assertNull(store.fetch(unknown(1)));
+    assertNull(store.fetch(unknown(1)));
+    assertEquals(1, testDidStore.getFetches());
+    assertEquals(1, store.getNegativeSize());
+
+    // The remembered result expires
+    CredentialConstants.setClock(Clock.offset(CredentialConstants.getClock(), Duration.ofMinutes(2)));
+    assertNull(store.fetch(unknown(1)));
+    assertEquals(2, testDidStore.getFetches());
+
+    store.forget(unknown(1));
+    assertEquals(0, store.getNegativeSize());
+  }
+
+
+  @Test
+  public void testRawForwarded() throws Exception {
+    byte[] json = JsonConvert.OBJECT_MAPPER.writeValueAsBytes(testDidStore.fetch(knownId));
+    testDidStore.resetFetches();
+    RawDidStore rawStore = id -> (testDidStore.fetch(id) != null) ? json : null;
+    GuardedDidStore store = new GuardedDidStore(rawStore, Duration.ofMinutes(1), 100, 1, 1, 10, Duration.ZERO);
+    assertTrue(store.isRawAvailable());
+    assertSame(json, store.fetchRaw(knownId));
+
+    // The controls still apply
+    assertNull(store.fetchRaw(unknown(1)));
+    assertNull(store.fetchRaw(unknown(1)));
+    assertEquals(2, testDidStore.getFetches());
+
+    assertFalse(new GuardedDidStore(testDidStore, Duration.ofMinutes(1), 100, 1, 1, 10, Duration.ZERO).isRawAvailable());
+  }
+
+
+  @Test
+  public void testRateLimit() throws Exception {
+    GuardedDidStore store = new GuardedDidStore(testDidStore, Duration.ofMinutes(1), 100, 1, 2, 10, Duration.ZERO);
+    assertNull(store.fetch(unknown(1)));
+    assertNull(store.fetch(unknown(2)));
+    boolean rejected = false;
+    try {
+      store.fetch(unknown(3));
+    } catch (DidStoreException e) {
+      rejected = true;
+    }
+    assertTrue(rejected);
+    assertEquals(2, testDidStore.getFetches());
+
+    // Another method has its own bucket
+    assertNull(store.fetch(new DidId(URI.create("did:other:123456789abcdefghi"))));
+
+    // One token per second is added
+    CredentialConstants.setClock(Clock.offset(CredentialConstants.getClock(), Duration.ofSeconds(1)));
+    assertNull(store.fetch(unknown(3)));
+  }
+
+
+  private DidId unknown(int i) {
+    return new DidId(URI.create("did:" + knownId.getMethod() + ":unknown" + i));
+  }
+
+}
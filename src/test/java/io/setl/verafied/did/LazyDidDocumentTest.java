@@ -0,0 +1,71 @@
+package io.setl.verafied.did;
+
+import static io.setl.verafied.did.SampleDid.DUMMY;
+import static io.setl.verafied.did.SampleDid.MAIN;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.setl.verafied.data.JsonConvert;
+import io.setl.verafied.data.Proof;
+import io.setl.verafied.proof.VerifyContext;
+
+/**
+ * @author agent on 19/10/2026.
+ */
+public class LazyDidDocumentTest {
+
+  DecentralizedIdentifier did;
+
+  byte[] json;
+
+
+  @Before
+  public void before() throws Exception {
+    String text = SampleDid.loadJson();
+    json = text.getBytes(UTF_8);
+    did = JsonConvert.toInstance(text, DecentralizedIdentifier.class);
+  }
+
+
+  @Test(expected = IOException.class)
+  public void testNoId() throws IOException {
+    LazyDidDocument.scan("{\"verificationMethod\":[]}".getBytes(UTF_8));
+  }
+
+
+  @Test
+  public void testScan() throws IOException {
+    LazyDidDocument document = LazyDidDocument.scan(json);
+    assertEquals(did.getDidId(), document.getDidId());
+    assertEquals(2, document.getVerificationMethodIds().size());
+    assertEquals(did.getVerificationMethod().get(1), document.findVerificationMethod(DUMMY));
+    assertEquals(did.getVerificationMethod().get(0), document.findVerificationMethod(MAIN));
+    assertNull(document.findVerificationMethod(URI.create("did:setl:qDjni0qJX3KHrvgn46JBEVYE#other")));
+
+    assertTrue(document.hasRelationship(KeyUsage.AUTHENTICATION, MAIN));
+    assertFalse(document.hasRelationship(KeyUsage.AUTHENTICATION, DUMMY));
+    assertEquals(JsonConvert.toJson(did), JsonConvert.toJson(document.toDocument()));
+  }
+
+
+  @Test
+  public void testVerifyContext() throws Exception {
+    RawDidStore store = id -> did.getDidId().equals(id) ? json : null;
+    assertEquals(did.getDidId(), store.fetch(did.getDidId()).getDidId());
+
+    VerifyContext context = new VerifyContext(store);
+    Proof proof = new Proof();
+    proof.setVerificationMethod(DUMMY);
+    assertEquals(DUMMY, context.findVerificationMethod(proof).getId());
+  }
+
+}
@@ -0,0 +1,83 @@
+package io.setl.verafied.did;
+
+import static io.setl.verafied.did.SampleDid.DUMMY;
+import static io.setl.verafied.did.SampleDid.MAIN;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.Set;
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonPatch;
+import javax.json.JsonPatchBuilder;
+
+import org.junit.Test;
+
+import io.setl.verafied.data.JsonConvert;
+
+/**
+ * @author agent on 19/10/2026.
+ */
+public class PatchCoalescerTest {
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBadMax() {
+    new PatchCoalescer(-1);
+  }
+
+
+  @Test
+  public void testBatch() throws Exception {
+    DecentralizedIdentifier did = SampleDid.load();
+    JsonObject before = (JsonObject) JsonConvert.toJson(did);
+
+    // Redundant changes which cancel out, plus a real removal
+    JsonPatchBuilder builder = Json.createPatchBuilder();
+    for (int i = 0; i < 10; i++) {
+      did.removeAssertionMethod(builder, MAIN);
+      did.addAssertionMethod(builder, MAIN);
+      did.updated(builder);
+    }
+    did.removeVerificationMethod(builder, DUMMY);
+    JsonPatch original = builder.build();
+
+    DidChange change = new PatchCoalescer().coalesce(before, did);
+    JsonArray ops = change.getPatch().toJsonArray();
+    assertTrue(ops.size() < original.toJsonArray().size());
+
+    // The verificationMethod test and remove, and the updated replace
+    assertEquals(3, ops.size());
+    assertEquals(JsonConvert.toJson(did), change.getPatch().apply(before));
+    assertEquals(Set.of(DUMMY), change.getRevokedMethods());
+    assertFalse(change.revokesAll());
+  }
+
+
+  @Test
+  public void testListReplaced() {
+    JsonObject before = Json.createObjectBuilder()
+        .add("authentication", Json.createArrayBuilder().add("a").add("b").add("c"))
+        .add("created", "x")
+        .build();
+    JsonObject after = Json.createObjectBuilder()
+        .add("authentication", Json.createArrayBuilder().add("c").add("d").add("e"))
+        .add("updated", "y")
+        .build();
+
+    JsonPatch patch = new PatchCoalescer(2).coalesce(before, after);
+    assertEquals(after, patch.apply(before));
+    JsonArray ops = patch.toJsonArray();
+    assertEquals(3, ops.size());
+    assertEquals("replace", ops.getJsonObject(0).getString("op"));
+    assertTrue(new DidChange(new DidId(MAIN), patch).revokesAll());
+
+    // With a higher limit, elements are removed individually
+    patch = new PatchCoalescer(4).coalesce(before, after);
+    assertEquals(after, patch.apply(before));
+    assertEquals(Set.of(URI.create("a"), URI.create("b")), new DidChange(new DidId(MAIN), patch).getRevokedMethods());
+  }
+
+}
@@ -0,0 +1,72 @@
+/* <notice>
+ *
+ *   SETL Blockchain
+ *   Copyright (C) 2021 SETL Ltd
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU Affero General Public License, version 3, as
+ *   published by the Free Software Foundation.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Affero General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Affero General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * </notice>
+ */
+
+
+package io.setl.verafied.did;
+
+import java.io.IOException;
+import java.net.URI;
+
+import io.setl.verafied.data.JsonConvert;
+import io.setl.verafied.data.credential.CredentialApiTest;
+
+/**
+ * The sample DID document shared by the DID tests, and the IDs of its verification methods.
+ *
+ * @author agent on 19/10/2026.
+ */
+public class SampleDid {
+
+  /** The sample document's second verification method, which has no relationships. */
+  public static final URI DUMMY = URI.create("did:setl:qDjni0qJX3KHrvgn46JBEVYE#dummy");
+
+  /** The sample document's main verification method. */
+  public static final URI MAIN = URI.create("did:setl:qDjni0qJX3KHrvgn46JBEVYE#erGcvT");
+
+
+  /**
+   * Load the sample DID document.
+   *
+   * @return the document
+   *
+   * @throws IOException if the document cannot be loaded
+   */
+  public static DecentralizedIdentifier load() throws IOException {
+    return JsonConvert.toInstance(loadJson(), DecentralizedIdentifier.class);
+  }
+
+
+  /**
+   * Load the JSON of the sample DID document.
+   *
+   * @return the JSON
+   *
+   * @throws IOException if the document cannot be loaded
+   */
+  public static String loadJson() throws IOException {
+    return CredentialApiTest.load(JsonConvert.class.getResourceAsStream("sample_did.json"));
+  }
+
+
+  private SampleDid() {
+    // Hidden as this is a utility class
+  }
+
+}
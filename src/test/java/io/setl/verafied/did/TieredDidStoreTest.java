@@ -0,0 +1,162 @@
+package io.setl.verafied.did;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.setl.verafied.CredentialConstants;
+import io.setl.verafied.data.JsonConvert;
+import io.setl.verafied.data.credential.CountingDidStore;
+
+/**
+ * @author agent on 19/10/2026.
+ */
+public class TieredDidStoreTest {
+
+  DidId didId;
+
+  Path directory;
+
+  List<Runnable> tasks = new ArrayList<>();
+
+  CountingDidStore testDidStore;
+
+
+  @After
+  public void after() throws IOException {
+    CredentialConstants.setClock(Clock.systemUTC());
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path p : (Iterable<Path>) files::iterator) {
+        Files.delete(p);
+      }
+    }
+    Files.delete(directory);
+  }
+
+
+  @Before
+  public void before() throws Exception {
+    CredentialConstants.setClock(Clock.fixed(Instant.ofEpochSecond(1_700_000_000L), ZoneOffset.UTC));
+    directory = Files.createTempDirectory("did");
+    testDidStore = new CountingDidStore();
+    DecentralizedIdentifier did = SampleDid.load();
+    testDidStore.add(did);
+    didId = did.getDidId();
+  }
+
+
+  @Test
+  public void testDiskSurvivesRestart() throws Exception {
+    TieredDidStore store = new TieredDidStore(testDidStore, directory, Duration.ofHours(1), Duration.ofMinutes(10), 10, tasks::add);
+    assertNotNull(store.fetch(didId));
+    assertEquals(1, testDidStore.getFetches());
+
+    // A new instance finds the document on disk
+    store = new TieredDidStore(testDidStore, directory, Duration.ofHours(1), Duration.ofMinutes(10), 10, tasks::add);
+    assertEquals(didId, store.fetch(didId).getDidId());
+    assertEquals(1, testDidStore.getFetches());
+
+    // Once invalidated, it is fetched again
+    store.invalidate(didId);
+    assertEquals(0, store.size());
+    assertNotNull(store.fetch(didId));
+    assertEquals(2, testDidStore.getFetches());
+  }
+
+
+  @Test
+  public void testEviction() throws Exception {
+    DecentralizedIdentifier other = new DecentralizedIdentifier();
+    other.setId(URI.create("did:setl:other"));
+    other.setController(List.of(other.getId()));
+    testDidStore.add(other);
+
+    TieredDidStore store = new TieredDidStore(testDidStore, null, Duration.ofHours(1), Duration.ofMinutes(10), 1, tasks::add);
+    assertNotNull(store.fetch(didId));
+    assertNotNull(store.fetch(other.getDidId()));
+    assertEquals(1, store.size());
+
+    // The least recently used document was evicted
+    assertNotNull(store.fetch(other.getDidId()));
+    assertEquals(2, testDidStore.getFetches());
+    assertNotNull(store.fetch(didId));
+    assertEquals(3, testDidStore.getFetches());
+  }
+
+
+  @Test
+  public void testExpiry() throws Exception {
+    TieredDidStore store = new TieredDidStore(testDidStore, null, Duration.ofHours(1), Duration.ofMinutes(10), 10, tasks::add);
+    assertNotNull(store.fetch(didId));
+    CredentialConstants.setClock(Clock.offset(CredentialConstants.getClock(), Duration.ofHours(2)));
+    assertNotNull(store.fetch(didId));
+    assertEquals(2, testDidStore.getFetches());
+  }
+
+
+  @Test
+  public void testFetchCompact() throws Exception {
+    TieredDidStore store = new TieredDidStore(testDidStore, null, Duration.ofHours(1), Duration.ofMinutes(10), 10, tasks::add);
+    CompactDid compact = store.fetchCompact(didId);
+    assertNotNull(compact);
+
+    // The cached form itself is returned, so nothing is recreated
+    assertSame(compact, store.fetchCompact(didId));
+    assertNotNull(store.fetch(didId));
+    assertEquals(1, testDidStore.getFetches());
+    assertNull(store.fetchCompact(new DidId(didId.getMethod(), "unknown", null, null, null)));
+  }
+
+
+  @Test
+  public void testHot() throws Exception {
+    TieredDidStore store = new TieredDidStore(testDidStore, null, Duration.ofHours(1), Duration.ofMinutes(10), 10, tasks::add);
+    assertNotNull(store.fetch(didId));
+    assertNotNull(store.fetch(didId));
+    assertEquals(1, testDidStore.getFetches());
+    assertEquals(1, store.size());
+    assertNull(store.fetch(new DidId(didId.getMethod(), "unknown", null, null, null)));
+  }
+
+
+  @Test
+  public void testRefreshAhead() throws Exception {
+    TieredDidStore store = new TieredDidStore(testDidStore, null, Duration.ofHours(1), Duration.ofMinutes(10), 10, tasks::add);
+    assertNotNull(store.fetch(didId));
+
+    // Within the refresh window, the cached copy is returned and a single refresh is scheduled
+    CredentialConstants.setClock(Clock.offset(CredentialConstants.getClock(), Duration.ofMinutes(55)));
+    assertNotNull(store.fetch(didId));
+    assertNotNull(store.fetch(didId));
+    store.refreshExpiring();
+    assertEquals(1, tasks.size());
+    assertEquals(1, testDidStore.getFetches());
+
+    tasks.get(0).run();
+    assertEquals(2, testDidStore.getFetches());
+
+    // The refreshed copy is valid for a full time to live
+    CredentialConstants.setClock(Clock.offset(CredentialConstants.getClock(), Duration.ofMinutes(30)));
+    assertNotNull(store.fetch(didId));
+    assertEquals(2, testDidStore.getFetches());
+    assertEquals(1, tasks.size());
+  }
+
+}
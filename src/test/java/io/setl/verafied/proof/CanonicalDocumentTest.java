@@ -0,0 +1,148 @@
+package io.setl.verafied.proof;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.setl.json.Canonical;
+import io.setl.verafied.UnacceptableDocumentException;
+import io.setl.verafied.data.JsonConvert;
+import io.setl.verafied.data.credential.Credential;
+import io.setl.verafied.data.credential.CredentialApi;
+import io.setl.verafied.data.credential.CredentialApiTest;
+import io.setl.verafied.data.credential.StatusDeserializer;
+import io.setl.verafied.data.credential.TestDidStore;
+import io.setl.verafied.data.credential.TestStatus;
+import io.setl.verafied.did.DecentralizedIdentifier;
+
+/**
+ * @author agent on 18/10/2026.
+ */
+public class CanonicalDocumentTest {
+
+  Credential credential;
+
+  TestDidStore testDidStore;
+
+
+  @Before
+  public void before() throws Exception {
+    StatusDeserializer.addTypeMapping("VerafiedHttpCheck", TestStatus.class);
+    credential = JsonConvert.toInstance(CredentialApiTest.load(JsonConvert.class.getResourceAsStream("sample_vc_1.json")), Credential.class);
+
+    String didJson = CredentialApiTest.load(JsonConvert.class.getResourceAsStream("sample_did.json"));
+    testDidStore = new TestDidStore();
+    testDidStore.add(JsonConvert.toInstance(didJson, DecentralizedIdentifier.class));
+  }
+
+
+  @Test
+  public void testBytesToSign() {
+    CanonicalDocument document = new CanonicalDocument("{}".getBytes(StandardCharsets.UTF_8));
+    byte[] header = "abc".getBytes(StandardCharsets.US_ASCII);
+    assertArrayEquals("abc.{}".getBytes(StandardCharsets.UTF_8), document.toBytesToSign(header));
+    assertEquals(2, document.getLength());
+  }
+
+
+  @Test
+  public void testCanonicalBytes() throws Exception {
+    // Canonical JSON including the proof is retained, less the JWS
+    byte[] json = Canonical.cast(credential.asJson()).toCanonicalString().getBytes(StandardCharsets.UTF_8);
+    CanonicalDocument retained = CanonicalDocument.ofCanonicalBytes(json);
+    assertNotNull(retained);
+    assertEquals(CanonicalDocument.of(credential), retained);
+
+    ParsedDocument<Credential> parsed = ParsedDocument.parse(json, Credential.class);
+    assertEquals(retained, parsed.getRetained());
+    CredentialApi.verify(parsed, new VerifyContext(testDidStore), null);
+
+    // Pretty printed JSON is not retained, but still verifies
+    json = CredentialApiTest.load(JsonConvert.class.getResourceAsStream("sample_vc_1.json")).getBytes(StandardCharsets.UTF_8);
+    parsed = ParsedDocument.parse(json, Credential.class);
+    assertNull(parsed.getRetained());
+    CredentialApi.verify(parsed, new VerifyContext(testDidStore), null);
+  }
+
+
+  @Test
+  public void testCanonicalBytesRejected() {
+    assertNull(CanonicalDocument.ofCanonicalBytes("{\"b\":1,\"a\":2}".getBytes(StandardCharsets.UTF_8)));
+    assertNull(CanonicalDocument.ofCanonicalBytes("{\"a\": 1}".getBytes(StandardCharsets.UTF_8)));
+    assertNull(CanonicalDocument.ofCanonicalBytes("{\"a\":1.5}".getBytes(StandardCharsets.UTF_8)));
+    assertNull(CanonicalDocument.ofCanonicalBytes("{\"a\":\"\\u0041\"}".getBytes(StandardCharsets.UTF_8)));
+    assertNull(CanonicalDocument.ofCanonicalBytes("[]".getBytes(StandardCharsets.UTF_8)));
+    assertNull(CanonicalDocument.ofCanonicalBytes("{\"a\" :1}".getBytes(StandardCharsets.UTF_8)));
+    assertNull(CanonicalDocument.ofCanonicalBytes("{\"a\":[1 ,2]}".getBytes(StandardCharsets.UTF_8)));
+    assertNull(CanonicalDocument.ofCanonicalBytes("{\"a\":1} ".getBytes(StandardCharsets.UTF_8)));
+    assertNull(CanonicalDocument.ofCanonicalBytes("{\"a\":-0}".getBytes(StandardCharsets.UTF_8)));
+    assertNull(CanonicalDocument.ofCanonicalBytes("{}{}".getBytes(StandardCharsets.UTF_8)));
+
+    byte[] json = "{\"a\":1,\"proof\":{\"jws\":\"x\",\"type\":\"t\"},\"proofSet\":[]}".getBytes(StandardCharsets.UTF_8);
+    assertArrayEquals("{\"a\":1,\"proof\":{\"type\":\"t\"}}".getBytes(StandardCharsets.UTF_8), CanonicalDocument.ofCanonicalBytes(json).getBytes());
+  }
+
+
+  @Test
+  public void testDigest() {
+    CanonicalDocument document1 = CanonicalDocument.of(credential);
+    CanonicalDocument document2 = CanonicalDocument.of(credential.asJson());
+    assertEquals(document1, document2);
+    assertEquals(document1.hashCode(), document2.hashCode());
+    assertArrayEquals(document1.getDigest(), document2.getDigest());
+    assertEquals(43, document1.getDigestText().length());
+
+    CanonicalDocument document3 = new CanonicalDocument("{}".getBytes(StandardCharsets.UTF_8));
+    assertNotEquals(document1, document3);
+    assertNotEquals(document1.getDigestText(), document3.getDigestText());
+  }
+
+
+  @Test
+  public void testFormOf() {
+    CanonicalDocument document = CanonicalDocument.of(credential);
+    assertTrue(document.isFormOf(credential.getId(), credential.getImmutableProof()));
+    assertFalse(document.isFormOf(URI.create("urn:other"), credential.getImmutableProof()));
+    assertFalse(document.isFormOf(null, credential.getImmutableProof()));
+  }
+
+
+  @Test
+  public void testJwsRemoved() {
+    String text = new String(CanonicalDocument.of(credential).getBytes(), StandardCharsets.UTF_8);
+    assertFalse(text.contains("\"jws\""));
+  }
+
+
+  @Test
+  public void testManyContexts() throws Exception {
+    CanonicalDocument document = CanonicalDocument.of(credential);
+    CredentialApi.verify(credential, document, new VerifyContext(testDidStore), null);
+    CredentialApi.verify(credential, document, new VerifyContext(testDidStore), null);
+  }
+
+
+  @Test
+  public void testWrongDocument() throws Exception {
+    CanonicalDocument document = CanonicalDocument.of(credential);
+    credential.setId(URI.create("urn:other"));
+    try {
+      CredentialApi.verify(credential, document, new VerifyContext(testDidStore), null);
+      fail();
+    } catch (UnacceptableDocumentException e) {
+      assertEquals("document_canonical_mismatch", e.getCode());
+    }
+  }
+
+}
@@ -0,0 +1,73 @@
+package io.setl.verafied.proof;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+/**
+ * @author agent on 18/10/2026.
+ */
+public class JsonSaltTest {
+
+  private static void assertValid(String salt) {
+    assertEquals(JsonSalt.LENGTH, salt.length());
+    for (char ch : salt.toCharArray()) {
+      assertTrue(ch >= ' ' && ch <= '~' && ch != '"' && ch != '\\');
+    }
+  }
+
+
+  @Test
+  public void testCreate() {
+    String s1 = JsonSalt.create();
+    String s2 = JsonSalt.create();
+    assertValid(s1);
+    assertValid(s2);
+    assertNotEquals(s1, s2);
+  }
+
+
+  @Test
+  public void testFill() {
+    byte[] buffer = new byte[2 + 3 * JsonSalt.LENGTH];
+    JsonSalt.fill(buffer, 2, 3);
+    assertEquals(0, buffer[0]);
+    assertEquals(0, buffer[1]);
+    for (int i = 0; i < 3; i++) {
+      assertValid(new String(buffer, 2 + i * JsonSalt.LENGTH, JsonSalt.LENGTH, StandardCharsets.ISO_8859_1));
+    }
+  }
+
+
+  @Test
+  public void testPool() throws InterruptedException {
+    try (SaltPool pool = new SaltPool(16, 4)) {
+      for (int i = 0; i < 100 && pool.getReady() < 16; i++) {
+        Thread.sleep(10);
+      }
+      assertEquals(16, pool.getReady());
+      assertValid(pool.get());
+
+      Supplier<String> original = JsonSalt.getSupplier();
+      JsonSalt.setSupplier(pool);
+      assertSame(pool, JsonSalt.getSupplier());
+      assertValid(JsonSalt.create());
+      JsonSalt.setSupplier(null);
+      assertNotEquals(pool, JsonSalt.getSupplier());
+      JsonSalt.setSupplier(original);
+    }
+  }
+
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testPoolBadSize() {
+    new SaltPool(0, 1);
+  }
+
+}
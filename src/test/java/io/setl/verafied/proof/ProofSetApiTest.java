@@ -0,0 +1,126 @@
+package io.setl.verafied.proof;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.setl.verafied.UnacceptableDocumentException;
+import io.setl.verafied.data.JsonConvert;
+import io.setl.verafied.data.Proof;
+import io.setl.verafied.data.TypedKeyPair;
+import io.setl.verafied.data.credential.CredentialApiTest;
+import io.setl.verafied.data.credential.StatusDeserializer;
+import io.setl.verafied.data.credential.TestDidStore;
+import io.setl.verafied.data.credential.TestStatus;
+import io.setl.verafied.data.jwk.SigningAlgorithm;
+import io.setl.verafied.data.presentation.Presentation;
+import io.setl.verafied.data.presentation.PresentationApi;
+import io.setl.verafied.did.DecentralizedIdentifier;
+import io.setl.verafied.did.DidId;
+
+/**
+ * @author agent on 18/10/2026.
+ */
+public class ProofSetApiTest {
+
+  ExecutorService executor = Executors.newFixedThreadPool(2);
+
+  Presentation presentation;
+
+  TestDidStore testDidStore;
+
+  TypedKeyPair typedKeyPair1;
+
+  TypedKeyPair typedKeyPair2;
+
+
+  @After
+  public void after() {
+    executor.shutdown();
+  }
+
+
+  @Before
+  public void before() throws Exception {
+    String keyText = CredentialApiTest.load(JsonConvert.class.getResourceAsStream("private_key.txt"));
+    PrivateKey privateKey = KeyFactory.getInstance("EC").generatePrivate(new PKCS8EncodedKeySpec(Base64.getMimeDecoder().decode(keyText)));
+    typedKeyPair1 = new TypedKeyPair(SigningAlgorithm.ES256, privateKey);
+    typedKeyPair1.setId(new DidId(URI.create("did:setl:qDjni0qJX3KHrvgn46JBEVYE#erGcvT")));
+
+    keyText = CredentialApiTest.load(JsonConvert.class.getResourceAsStream("private_key_2.txt"));
+    privateKey = KeyFactory.getInstance("RSA").generatePrivate(new PKCS8EncodedKeySpec(Base64.getMimeDecoder().decode(keyText)));
+    typedKeyPair2 = new TypedKeyPair(SigningAlgorithm.PS256, privateKey);
+    typedKeyPair2.setId(new DidId(URI.create("did:setl:ygWIJJP5sGErqskusG853bZV#s1FLxF")));
+
+    StatusDeserializer.addTypeMapping("VerafiedHttpCheck", TestStatus.class);
+    presentation = JsonConvert.toInstance(CredentialApiTest.load(JsonConvert.class.getResourceAsStream("sample_vp_1.json")), Presentation.class);
+
+    testDidStore = new TestDidStore();
+    testDidStore.add(JsonConvert.toInstance(CredentialApiTest.load(JsonConvert.class.getResourceAsStream("sample_did.json")), DecentralizedIdentifier.class));
+    testDidStore.add(JsonConvert.toInstance(CredentialApiTest.load(JsonConvert.class.getResourceAsStream("sample_did_2.json")), DecentralizedIdentifier.class));
+  }
+
+
+  @Test
+  public void testAddSigner() throws Exception {
+    ProofSetApi.prove(presentation, List.of(typedKeyPair1));
+    ProofSetApi.prove(presentation, List.of(typedKeyPair2));
+    assertEquals(2, ProofSetApi.verify(presentation, "Presentation", presentation.getId(), testDidStore, 2, executor).size());
+  }
+
+
+  @Test
+  public void testHappyPath() throws Exception {
+    ProofSetApi.prove(presentation, List.of(typedKeyPair1, typedKeyPair2));
+    assertEquals(2, presentation.getProofSet().size());
+
+    // The proof set survives a round trip through JSON
+    presentation = JsonConvert.toInstance(JsonConvert.toJson(presentation).toString(), Presentation.class);
+    List<VerifyOutput> outputs = ProofSetApi.verify(presentation, "Presentation", presentation.getId(), testDidStore, 2, executor);
+    assertTrue(outputs.get(0).isOk());
+    assertTrue(outputs.get(1).isOk());
+
+    // The single proof is unaffected by the proof set
+    PresentationApi.verify(presentation, new VerifyContext(testDidStore));
+  }
+
+
+  @Test(expected = UnacceptableDocumentException.class)
+  public void testNoProofSet() throws Exception {
+    ProofSetApi.verify(presentation, "Presentation", presentation.getId(), testDidStore, 1, executor);
+  }
+
+
+  @Test
+  public void testOneOfTwo() throws Exception {
+    ProofSetApi.prove(presentation, List.of(typedKeyPair1, typedKeyPair2));
+    List<Proof> proofSet = presentation.getProofSet();
+    proofSet.get(0).set("salt", "tampered");
+    presentation.setProofSet(proofSet);
+
+    List<VerifyOutput> outputs = ProofSetApi.verify(presentation, "Presentation", presentation.getId(), testDidStore, 1, executor);
+    assertFalse(outputs.get(0).isOk());
+    assertTrue(outputs.get(1).isOk());
+  }
+
+
+  @Test(expected = UnacceptableDocumentException.class)
+  public void testSameSignerTwice() throws Exception {
+    ProofSetApi.prove(presentation, List.of(typedKeyPair1, typedKeyPair1));
+    ProofSetApi.verify(presentation, "Presentation", presentation.getId(), testDidStore, 2, executor);
+  }
+
+}
@@ -0,0 +1,119 @@
+package io.setl.verafied.proof;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.setl.verafied.CredentialConstants;
+
+/**
+ * @author agent on 19/10/2026.
+ */
+public class ReplayCacheTest {
+
+  Instant now = Instant.ofEpochSecond(1_700_000_000L);
+
+
+  @After
+  public void after() {
+    CredentialConstants.setClock(Clock.systemUTC());
+  }
+
+
+  @Before
+  public void before() {
+    CredentialConstants.setClock(Clock.fixed(now, ZoneOffset.UTC));
+  }
+
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBadRate() {
+    new ReplayCache(Duration.ofMinutes(5), 0);
+  }
+
+
+  @Test
+  public void testConcurrent() throws Exception {
+    ReplayCache cache = new ReplayCache(Duration.ofMinutes(5), 1000);
+    AtomicInteger registered = new AtomicInteger();
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      // Every thread tries every challenge, each with a different creation time
+      Instant created = now.minusSeconds(t * 60L);
+      Thread thread = new Thread(() -> {
+        for (int i = 0; i < 1000; i++) {
+          if (cache.register("c" + i, created)) {
+            registered.incrementAndGet();
+          }
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertTrue(registered.get() >= 1000);
+    assertEquals(registered.get(), cache.size());
+  }
+
+
+  @Test
+  public void testEviction() {
+    // A 13 minute window gives one minute buckets
+    ReplayCache cache = new ReplayCache(Duration.ofMinutes(13), 10);
+    for (int i = 0; i < 100; i++) {
+      assertTrue(cache.register("old" + i, now));
+    }
+    assertEquals(100, cache.size());
+
+    // Once the window has passed, the challenges can no longer be presented
+    CredentialConstants.setClock(Clock.offset(CredentialConstants.getClock(), Duration.ofMinutes(16)));
+    assertFalse(cache.isCurrent(now));
+    assertFalse(cache.register("old0", now));
+    assertEquals(100, cache.size());
+
+    // The old bucket is discarded when its slot is re-used
+    assertTrue(cache.register("new", now.plus(Duration.ofMinutes(16))));
+    assertEquals(1, cache.size());
+  }
+
+
+  @Test
+  public void testReplay() {
+    ReplayCache cache = new ReplayCache(Duration.ofMinutes(5), 10);
+    assertTrue(cache.register("abc", now));
+    assertFalse(cache.register("abc", now));
+
+    // A different creation time does not allow re-use
+    assertFalse(cache.register("abc", now.minusSeconds(100)));
+    assertTrue(cache.register("def", now.minusSeconds(100)));
+  }
+
+
+  @Test
+  public void testWindow() {
+    ReplayCache cache = new ReplayCache(Duration.ofMinutes(5), 10);
+    assertEquals(Duration.ofMinutes(5), cache.getWindow());
+    assertTrue(cache.isCurrent(now.minusSeconds(300)));
+    assertFalse(cache.isCurrent(now.minusSeconds(301)));
+
+    // A little clock difference is allowed
+    assertTrue(cache.isCurrent(now.plusSeconds(5)));
+    assertFalse(cache.isCurrent(now.plusSeconds(60)));
+    assertFalse(cache.register("abc", now.plusSeconds(60)));
+  }
+
+}
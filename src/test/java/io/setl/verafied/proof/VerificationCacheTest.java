@@ -0,0 +1,154 @@
+package io.setl.verafied.proof;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.setl.verafied.CredentialConstants;
+import io.setl.verafied.UnacceptableDocumentException;
+import io.setl.verafied.data.JsonConvert;
+import io.setl.verafied.data.credential.Credential;
+import io.setl.verafied.data.credential.CredentialApi;
+import io.setl.verafied.data.credential.CredentialApiTest;
+import io.setl.verafied.data.credential.StatusDeserializer;
+import io.setl.verafied.data.credential.TestDidStore;
+import io.setl.verafied.data.credential.TestStatus;
+import io.setl.verafied.did.DecentralizedIdentifier;
+import io.setl.verafied.did.DidId;
+import io.setl.verafied.revocation.RevocationChecker;
+
+/**
+ * @author agent on 18/10/2026.
+ */
+public class VerificationCacheTest {
+
+  VerificationCache cache = new VerificationCache(Duration.ofMinutes(5), 10);
+
+  Credential credential;
+
+  TestDidStore testDidStore;
+
+
+  @After
+  public void after() {
+    CredentialConstants.setClock(Clock.systemUTC());
+  }
+
+
+  @Before
+  public void before() throws Exception {
+    StatusDeserializer.addTypeMapping("VerafiedHttpCheck", TestStatus.class);
+    credential = JsonConvert.toInstance(CredentialApiTest.load(JsonConvert.class.getResourceAsStream("sample_vc_1.json")), Credential.class);
+
+    String didJson = CredentialApiTest.load(JsonConvert.class.getResourceAsStream("sample_did.json"));
+    testDidStore = new TestDidStore();
+    testDidStore.add(JsonConvert.toInstance(didJson, DecentralizedIdentifier.class));
+  }
+
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBadSize() {
+    new VerificationCache(Duration.ofMinutes(1), 0);
+  }
+
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBadTimeToLive() {
+    new VerificationCache(Duration.ZERO, 10);
+  }
+
+
+  @Test
+  public void testCacheHit() throws Exception {
+    CredentialApi.verify(credential, new VerifyContext(testDidStore), null, cache);
+    assertEquals(1, cache.size());
+
+    // DID is no longer available, but the verification is cached
+    CredentialApi.verify(credential, new VerifyContext(new TestDidStore()), null, cache);
+  }
+
+
+  @Test
+  public void testExpiry() throws Exception {
+    CanonicalDocument document = CanonicalDocument.of(credential);
+    Instant now = Instant.now();
+    CredentialConstants.setClock(Clock.fixed(now, ZoneOffset.UTC));
+    cache.put(credential.getProof(), document, now.plusSeconds(60));
+    assertTrue(cache.isVerified(credential.getProof(), document));
+
+    // document expiry is before the TTL
+    CredentialConstants.setClock(Clock.fixed(now.plusSeconds(61), ZoneOffset.UTC));
+    assertFalse(cache.isVerified(credential.getProof(), document));
+    assertEquals(0, cache.size());
+
+    // TTL is before the document expiry
+    cache.put(credential.getProof(), document, null);
+    CredentialConstants.setClock(Clock.fixed(now.plus(Duration.ofMinutes(7)), ZoneOffset.UTC));
+    assertFalse(cache.isVerified(credential.getProof(), document));
+  }
+
+
+  @Test
+  public void testPrincipalOnHit() throws Exception {
+    CredentialApi.verify(credential, new VerifyContext(testDidStore), null, cache);
+
+    // The cached verification does not bypass the principal check
+    VerifyContext context = new VerifyContext(testDidStore);
+    context.setPrincipal(new DidId(credential.getProof().getVerificationMethod()));
+    CredentialApi.verify(credential, context, null, cache);
+    context.setPrincipal(new DidId(URI.create("did:setl:someoneElse")));
+    try {
+      CredentialApi.verify(credential, context, null, cache);
+      fail();
+    } catch (UnacceptableDocumentException e) {
+      assertEquals("proof_verification_method_not_controller", e.getCode());
+    }
+  }
+
+
+  @Test(expected = UnacceptableDocumentException.class)
+  public void testRevokedOnHit() throws Exception {
+    CredentialApi.verify(credential, new VerifyContext(testDidStore), null, cache);
+
+    RevocationChecker checker = mock(RevocationChecker.class);
+    when(checker.test(any(), any(), any())).thenReturn(true);
+    CredentialApi.verify(credential, new VerifyContext(testDidStore), checker, cache);
+  }
+
+
+  @Test
+  public void testFull() {
+    VerificationCache small = new VerificationCache(Duration.ofMinutes(5), 2);
+    CanonicalDocument document1 = CanonicalDocument.of(credential);
+    CanonicalDocument document2 = new CanonicalDocument(new byte[]{'{', '}'});
+    CanonicalDocument document3 = new CanonicalDocument(new byte[]{'[', ']'});
+    small.put(credential.getProof(), document1, null);
+    small.put(credential.getProof(), document2, null);
+
+    // Using the first verification makes the second the least recently used, so it is evicted
+    assertTrue(small.isVerified(credential.getProof(), document1));
+    small.put(credential.getProof(), document3, null);
+    assertEquals(2, small.size());
+    assertTrue(small.isVerified(credential.getProof(), document1));
+    assertFalse(small.isVerified(credential.getProof(), document2));
+    assertTrue(small.isVerified(credential.getProof(), document3));
+
+    small.clear();
+    assertEquals(0, small.size());
+  }
+
+}
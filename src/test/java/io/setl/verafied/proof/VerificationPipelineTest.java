@@ -0,0 +1,123 @@
+package io.setl.verafied.proof;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import io.setl.verafied.UnacceptableDocumentException;
+import io.setl.verafied.data.JsonConvert;
+import io.setl.verafied.data.credential.Credential;
+import io.setl.verafied.data.credential.CredentialApi;
+import io.setl.verafied.data.credential.CredentialApiTest;
+import io.setl.verafied.data.credential.StatusDeserializer;
+import io.setl.verafied.data.credential.TestDidStore;
+import io.setl.verafied.data.credential.TestStatus;
+import io.setl.verafied.did.DecentralizedIdentifier;
+import io.setl.verafied.proof.VerificationStage.Cost;
+
+/**
+ * @author agent on 18/10/2026.
+ */
+public class VerificationPipelineTest {
+
+  ExecutorService executor = Executors.newFixedThreadPool(2);
+
+
+  @After
+  public void after() {
+    executor.shutdown();
+  }
+
+
+  @Test
+  public void testConcurrentIo() throws Exception {
+    CountDownLatch latch = new CountDownLatch(2);
+    VerificationStage.Check<String> check = (d, c) -> {
+      latch.countDown();
+      try {
+        // Only completes if the other stage is running at the same time
+        if (!latch.await(5, TimeUnit.SECONDS)) {
+          throw new UnacceptableDocumentException("test", "Not concurrent");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    };
+    new VerificationPipeline<String>(executor)
+        .with("io1", Cost.IO, check)
+        .with("io2", Cost.IO, check)
+        .verify("doc", null);
+  }
+
+
+  @Test
+  public void testCredential() throws Exception {
+    StatusDeserializer.addTypeMapping("VerafiedHttpCheck", TestStatus.class);
+    Credential credential = JsonConvert.toInstance(CredentialApiTest.load(JsonConvert.class.getResourceAsStream("sample_vc_1.json")), Credential.class);
+    TestDidStore testDidStore = new TestDidStore();
+    testDidStore.add(JsonConvert.toInstance(CredentialApiTest.load(JsonConvert.class.getResourceAsStream("sample_did.json")), DecentralizedIdentifier.class));
+
+    List<String> issuers = new ArrayList<>();
+    VerificationPipeline<Credential> pipeline = CredentialApi.createPipeline(new VerificationPipeline<>(executor), (t, i, d) -> false)
+        .with("issuer", Cost.LOCAL, (c, x) -> issuers.add(c.getIssuer().toString()));
+    assertEquals("issuer", pipeline.getStages().get(2).getName());
+
+    pipeline.verify(credential, new VerifyContext(testDidStore));
+    assertEquals(1, issuers.size());
+  }
+
+
+  @Test
+  public void testOrderAndShortCircuit() throws Exception {
+    List<String> run = new ArrayList<>();
+    VerificationPipeline<String> pipeline = new VerificationPipeline<String>()
+        .with("crypto", Cost.CRYPTO, (d, c) -> run.add("crypto"))
+        .with("io", Cost.IO, (d, c) -> run.add("io"))
+        .with("local1", Cost.LOCAL, (d, c) -> run.add("local1"))
+        .with("local2", Cost.LOCAL, (d, c) -> run.add("local2"));
+    pipeline.verify("doc", null);
+    assertEquals(List.of("local1", "local2", "io", "crypto"), run);
+
+    run.clear();
+    pipeline = pipeline.with("reject", Cost.LOCAL, (d, c) -> {
+      throw new UnacceptableDocumentException("test", "Rejected");
+    });
+    try {
+      pipeline.verify("doc", null);
+      fail();
+    } catch (UnacceptableDocumentException e) {
+      assertEquals("test", e.getCode());
+    }
+    assertEquals(List.of("local1", "local2"), run);
+  }
+
+
+  @Test
+  public void testIoFailure() {
+    VerificationPipeline<String> pipeline = new VerificationPipeline<String>(executor)
+        .with("io1", Cost.IO, (d, c) -> {
+        })
+        .with("io2", Cost.IO, (d, c) -> {
+          throw new UnacceptableDocumentException("io_failed", "Failed");
+        })
+        .with("crypto", Cost.CRYPTO, (d, c) -> fail());
+    try {
+      pipeline.verify("doc", null);
+      fail();
+    } catch (Exception e) {
+      assertTrue(e instanceof UnacceptableDocumentException);
+      assertEquals("io_failed", ((UnacceptableDocumentException) e).getCode());
+    }
+  }
+
+}
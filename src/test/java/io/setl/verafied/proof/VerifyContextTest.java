@@ -1,13 +1,26 @@
 package io.setl.verafied.proof;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
 import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
 import io.setl.verafied.UnacceptableDocumentException;
+import io.setl.verafied.data.JsonConvert;
 import io.setl.verafied.data.Proof;
+import io.setl.verafied.data.credential.CredentialApiTest;
 import io.setl.verafied.data.credential.TestDidStore;
+import io.setl.verafied.did.ControllerResolver;
+import io.setl.verafied.did.DecentralizedIdentifier;
+import io.setl.verafied.did.DidId;
 import io.setl.verafied.did.DidStoreException;
+import io.setl.verafied.did.KeyUsage;
 
 /**
  * @author Simon Greatrix on 05/11/2021.
@@ -46,9 +59,110 @@ public class VerifyContextTest {
   }
 
 
+  @Test
+  public void principal() throws Exception {
+    DecentralizedIdentifier group = JsonConvert.toInstance(
+        CredentialApiTest.load(JsonConvert.class.getResourceAsStream("sample_did.json")), DecentralizedIdentifier.class);
+    URI key = URI.create("did:setl:qDjni0qJX3KHrvgn46JBEVYE#erGcvT");
+    group.setCapabilityInvocation(List.of(key));
+    didStore.add(group);
+    DecentralizedIdentifier subsidiary = new DecentralizedIdentifier();
+    subsidiary.setId(URI.create("did:setl:subsidiary"));
+    subsidiary.setController(List.of(group.getId()));
+    didStore.add(subsidiary);
+
+    Proof proof = new Proof();
+    proof.setVerificationMethod(key);
+    context.setPrincipal(subsidiary.getDidId());
+
+    // A controller's key is only accepted for capabilities, and when the controller can be resolved
+    context.setProofPurpose(KeyUsage.ASSERTION);
+    assertCode("proof_verification_method_not_controller", proof);
+    context.setProofPurpose(KeyUsage.CAPABILITY_INVOCATION);
+    assertCode("proof_verification_method_not_controller", proof);
+    context.setControllerResolver(new ControllerResolver(didStore, 3, Duration.ofMinutes(1), 10, Runnable::run));
+    context.findVerificationMethod(proof);
+
+    // The key must still be listed for the capability
+    context.setProofPurpose(KeyUsage.CAPABILITY_DELEGATION);
+    assertCode("proof_verification_method_wrong_purpose", proof);
+
+    // The principal's own keys are accepted
+    context.setProofPurpose(KeyUsage.ASSERTION);
+    context.setPrincipal(new DidId(key));
+    context.findVerificationMethod(proof);
+  }
+
+
+  @Test
+  public void proofPurpose() throws Exception {
+    didStore.add(JsonConvert.toInstance(CredentialApiTest.load(JsonConvert.class.getResourceAsStream("sample_did.json")), DecentralizedIdentifier.class));
+    Proof proof = new Proof();
+    proof.setVerificationMethod(URI.create("did:setl:qDjni0qJX3KHrvgn46JBEVYE#dummy"));
+
+    // Any method is acceptable without a purpose
+    assertNull(context.getProofPurpose());
+    context.findVerificationMethod(proof);
+
+    context.setProofPurpose(KeyUsage.ASSERTION);
+    try {
+      context.findVerificationMethod(proof);
+      fail();
+    } catch (UnacceptableDocumentException e) {
+      assertEquals("proof_verification_method_wrong_purpose", e.getCode());
+    }
+
+    proof.setVerificationMethod(URI.create("did:setl:qDjni0qJX3KHrvgn46JBEVYE#erGcvT"));
+    context.findVerificationMethod(proof);
+  }
+
+
+  @Test
+  public void resolvedInAdvance() throws Exception {
+    didStore.add(JsonConvert.toInstance(CredentialApiTest.load(JsonConvert.class.getResourceAsStream("sample_did.json")), DecentralizedIdentifier.class));
+    AtomicInteger fetches = new AtomicInteger();
+    VerifyContext counting = new VerifyContext(id -> {
+      fetches.incrementAndGet();
+      return didStore.fetch(id);
+    });
+    Proof proof = new Proof();
+    proof.setVerificationMethod(URI.create("did:setl:qDjni0qJX3KHrvgn46JBEVYE#erGcvT"));
+    counting.resolveVerificationMethod(proof, null);
+
+    // The resolved method is used once, without fetching the DID again
+    assertEquals(proof.getVerificationMethod(), counting.findVerificationMethod(proof).getId());
+    assertEquals(1, fetches.get());
+    counting.findVerificationMethod(proof);
+    assertEquals(2, fetches.get());
+
+    // The resolved method is used if the purpose is then set to the one it was resolved for
+    counting.resolveVerificationMethod(proof, KeyUsage.AUTHENTICATION);
+    assertNull(counting.getProofPurpose());
+    counting.setProofPurpose(KeyUsage.AUTHENTICATION);
+    counting.findVerificationMethod(proof);
+    assertEquals(3, fetches.get());
+
+    // But not for a different purpose
+    counting.resolveVerificationMethod(proof, KeyUsage.AUTHENTICATION);
+    counting.setProofPurpose(KeyUsage.ASSERTION);
+    counting.findVerificationMethod(proof);
+    assertEquals(5, fetches.get());
+  }
+
+
   @Test(expected = IllegalStateException.class)
   public void signatureNotSet() {
     context.getAllegedSignature();
   }
 
+
+  private void assertCode(String code, Proof proof) throws DidStoreException {
+    try {
+      context.findVerificationMethod(proof);
+      fail();
+    } catch (UnacceptableDocumentException e) {
+      assertEquals(code, e.getCode());
+    }
+  }
+
 }
\ No newline at end of file